@@ -0,0 +1,69 @@
+package com.challenge.leban.jmh;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.challenge.leban.readmodel.DepartamentoColumns;
+
+/**
+ * Selection in the columnar read model over a million rows: a 50-row page of available rows in a price range,
+ * and a price change that moves a row a short distance, through the overlay of the sorted column.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DepartamentoColumnsBenchmark {
+
+    private static final int PAGE_SIZE = 51;
+
+    @Param({ "1000000" })
+    public int rows;
+
+    private DepartamentoColumns columns;
+    private UUID[] ids;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+        random = new SplittableRandom(42);
+        columns = new DepartamentoColumns(rows);
+        ids = new UUID[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong());
+            columns.appendSorted(ids[i], random.nextInt(4) != 0, i * 10L, (byte) 0);
+        }
+    }
+
+    @Benchmark
+    public int[] selectDisponiblePage() {
+        long precioMin = random.nextLong(rows * 10L);
+        return columns.select(true, precioMin, precioMin + 100_000, 0, null, PAGE_SIZE);
+    }
+
+    // Includes the compactions it makes due, amortized
+    @Benchmark
+    public int updatePrecio() {
+        int row = random.nextInt(rows);
+        columns.upsert(ids[row], true, row * 10L + random.nextInt(-500, 500), (byte) 0);
+        if (columns.needsCompaction()) {
+            columns.compact();
+        }
+        return columns.size();
+    }
+}
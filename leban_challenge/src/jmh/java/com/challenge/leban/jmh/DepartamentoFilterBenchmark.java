@@ -0,0 +1,61 @@
+package com.challenge.leban.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.repository.DepartamentoSpecifications;
+
+/**
+ * Per-request work of {@code filterDepartamentos} before the query runs: parsing and validating the price
+ * parameters, and composing the specification chain.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DepartamentoFilterBenchmark {
+
+    @Param({ "100000", "100000.50" })
+    public String precioMin;
+
+    @Param({ "", "250000.00" })
+    public String precioMax;
+
+    private DepartamentoFilter filter;
+
+    @Setup
+    public void setUp() {
+        filter = DepartamentoFilter.of(true, precioMin, precioMax);
+    }
+
+    @Benchmark
+    public DepartamentoFilter parseAndValidate() {
+        return DepartamentoFilter.of(true, precioMin, precioMax);
+    }
+
+    @Benchmark
+    public Specification<Departamento> buildSpecification() {
+        return DepartamentoSpecifications.matches(filter);
+    }
+
+    @Benchmark
+    public Specification<Departamento> parseAndBuildSpecification() {
+        return DepartamentoSpecifications.matches(DepartamentoFilter.of(true, precioMin, precioMax));
+    }
+}
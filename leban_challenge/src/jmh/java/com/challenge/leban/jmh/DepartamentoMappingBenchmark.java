@@ -0,0 +1,68 @@
+package com.challenge.leban.jmh;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.enums.Moneda;
+
+/**
+ * Entity/DTO mapping done once per row on every read and write.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DepartamentoMappingBenchmark {
+
+    private Departamento departamento;
+    private DepartamentoDto departamentoDto;
+
+    @Setup
+    public void setUp() {
+        departamentoDto = Fixtures.departamentoDto(1);
+        departamento = new Departamento();
+        departamento.setId(UUID.fromString("0190b7a2-6d5e-7c3a-9f1e-2b4c6d8e0f12"));
+        departamento.setData(departamentoDto);
+    }
+
+    @Benchmark
+    public DepartamentoDto getDTO() {
+        return departamento.getDTO();
+    }
+
+    @Benchmark
+    public Departamento setData() {
+        departamento.setData(departamentoDto);
+        return departamento;
+    }
+
+    @Benchmark
+    public DepartamentoDto builder() {
+        return DepartamentoDto.builder()
+                .id("0190b7a2-6d5e-7c3a-9f1e-2b4c6d8e0f12")
+                .titulo("Departamento luminoso")
+                .descripcion("Dos ambientes con balcon")
+                .precio(new BigDecimal("150000.00"))
+                .moneda(Moneda.ARS)
+                .metros_cuadrados(55f)
+                .direccion("Av. Corrientes 1234")
+                .disponible(true)
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.challenge.leban.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.challenge.leban.readmodel.DepartamentoPrefixIndex;
+import com.challenge.leban.util.DepartamentoDataGenerator;
+
+/**
+ * Type-ahead over a million generated listings: a suggestion as each key of a search is typed, and a change of
+ * titulo. The generated vocabulary is small, so every prefix matches a large share of the rows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class DepartamentoPrefixIndexBenchmark {
+
+    private static final int LIMIT = 10;
+    private static final String[] TYPED = { "p", "pa", "pal", "palermo c", "av santa f", "av santa fe 12",
+            "gorriti 45", "loft cab", "nunez", "semipiso recoleta con b" };
+
+    @Param({ "1000000" })
+    public int rows;
+
+    private DepartamentoPrefixIndex index;
+    private UUID[] ids;
+    private String[] direcciones;
+    private SplittableRandom random;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        random = new SplittableRandom(42);
+        DepartamentoDataGenerator generator = new DepartamentoDataGenerator(42, 0.7, DepartamentoDataGenerator.DEFAULT_UNTIL);
+        index = new DepartamentoPrefixIndex(rows);
+        ids = new UUID[rows];
+        direcciones = new String[rows];
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            row.setLength(0);
+            generator.appendCsvRow(row);
+            List<String> fields = fields(row);
+            ids[i] = UUID.fromString(fields.get(0));
+            direcciones[i] = fields.get(6);
+            index.upsert(ids[i], Boolean.parseBoolean(fields.get(7)), fields.get(1), direcciones[i]);
+        }
+    }
+
+    @Benchmark
+    public int[] suggest() {
+        next = (next + 1) % TYPED.length;
+        return index.suggest(TYPED[next], LIMIT);
+    }
+
+    @Benchmark
+    public int updateTitulo() {
+        int row = random.nextInt(rows);
+        index.upsert(ids[row], random.nextBoolean(), "Loft " + random.nextInt(1000) + " en Boedo", direcciones[row]);
+        return index.size();
+    }
+
+    // The generator writes CSV with quoted text fields
+    private static List<String> fields(CharSequence row) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < row.length(); i++) {
+            char c = row.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < row.length() && row.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if ((c == ',' || c == '\n') && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,80 @@
+package com.challenge.leban.jmh;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.challenge.leban.readmodel.DepartamentoSimilarityGrid;
+
+/**
+ * Similar listings over a million rows distributed like the generator's (log-normal areas, price per square meter
+ * and currency mix): the 10 nearest neighbours of a random row, and a price change that moves a row to another cell.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DepartamentoSimilarityGridBenchmark {
+
+    private static final int K = 10;
+
+    @Param({ "1000000" })
+    public int rows;
+
+    private DepartamentoSimilarityGrid grid;
+    private UUID[] ids;
+    private double[] metros;
+    private byte[] monedas;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+        random = new SplittableRandom(42);
+        grid = new DepartamentoSimilarityGrid(rows);
+        ids = new UUID[rows];
+        metros = new double[rows];
+        monedas = new byte[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong());
+            monedas[i] = (byte) (random.nextDouble() < 0.65 ? 1 : 0);
+            metros[i] = Math.round(Math.min(800, Math.max(18, 58 * Math.exp(gaussian() * 0.45))) * 10) / 10.0;
+            grid.upsert(ids[i], random.nextDouble() < 0.7, precio(i), metros[i], monedas[i]);
+        }
+    }
+
+    @Benchmark
+    public int[] nearest() {
+        return grid.nearest(ids[random.nextInt(rows)], K);
+    }
+
+    @Benchmark
+    public int updatePrecio() {
+        int row = random.nextInt(rows);
+        grid.upsert(ids[row], true, precio(row), metros[row], monedas[row]);
+        return grid.size();
+    }
+
+    // USD around 2100 per square meter, ARS about a thousand times that and spread wider
+    private double precio(int row) {
+        return monedas[row] == 1 ? metros[row] * 2_100 * Math.exp(gaussian() * 0.35)
+                : metros[row] * 2_100_000 * Math.exp(gaussian() * 0.5);
+    }
+
+    private double gaussian() {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
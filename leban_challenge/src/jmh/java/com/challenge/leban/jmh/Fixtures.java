@@ -0,0 +1,26 @@
+package com.challenge.leban.jmh;
+
+import java.math.BigDecimal;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.enums.Moneda;
+
+final class Fixtures {
+
+    private Fixtures() {
+        // Utility class
+    }
+
+    static DepartamentoDto departamentoDto(int i) {
+        return DepartamentoDto.builder()
+                .id(String.format("0190b7a2-6d5e-7c3a-9f1e-%012d", i))
+                .titulo("Departamento " + i)
+                .descripcion("Descripcion del departamento numero " + i)
+                .precio(BigDecimal.valueOf(50_000L + i * 10L, 0).setScale(2))
+                .moneda(i % 2 == 0 ? Moneda.ARS : Moneda.USD)
+                .metros_cuadrados(40f + i % 80)
+                .direccion("Calle " + i)
+                .disponible(i % 3 != 0)
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.challenge.leban.cache;
+
+import java.math.BigDecimal;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.enums.Moneda;
+
+/**
+ * Payload of the {@code departamento_changes} NOTIFY channel. {@code id} is null for bulk and rate changes;
+ * {@code cotizacion} is only set for the latter.
+ * {@code departamento} is the row as committed, null when it did not fit in a NOTIFY; its version travels apart
+ * because DepartamentoDto does not read it from JSON.
+ */
+record DepartamentoChangeNotification(String node, boolean bulk, String id, Boolean disponibleAntes,
+        BigDecimal precioAntes, Boolean disponible, BigDecimal precio, DepartamentoDto departamento, Long version,
+        Moneda cotizacion) {
+
+    DepartamentoChangeNotification withoutRow() {
+        return new DepartamentoChangeNotification(node, bulk, id, disponibleAntes, precioAntes, disponible, precio,
+                null, null, cotizacion);
+    }
+}
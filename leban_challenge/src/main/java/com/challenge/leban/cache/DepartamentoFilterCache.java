@@ -0,0 +1,148 @@
+package com.challenge.leban.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.dto.DepartamentoListVersion;
+import com.challenge.leban.event.CotizacionChangedEvent;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.event.DepartamentoRemoteChangedEvent;
+import com.challenge.leban.event.DepartamentosBulkChangedEvent;
+import com.challenge.leban.event.DepartamentosResyncEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Results of {@code filterDepartamentos} keyed by the normalized filter, and next to them the version of each
+ * filtered list, so a conditional GET answered from the cache does not query either. Result entries are weighed
+ * by row count; both are dropped together after commit only when the written row matches the filter before or
+ * after the change.
+ */
+@Log4j2
+@Component
+public class DepartamentoFilterCache {
+
+    private static final String CACHE_NAME = "departamentos.filter";
+    private static final String VERSIONS_CACHE_NAME = "departamentos.filter.version";
+
+    private final Cache<DepartamentoFilter, List<DepartamentoDto>> cache;
+    private final Cache<DepartamentoFilter, DepartamentoListVersion> versions;
+
+    // Bumped before every invalidation; a load that started under an older generation is not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    public DepartamentoFilterCache(MeterRegistry meterRegistry,
+            @Value("${leban.cache.filter.max-rows:100000}") long maxRows,
+            @Value("${leban.cache.filter.max-versions:10000}") long maxVersions,
+            @Value("${leban.cache.filter.ttl:60s}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((DepartamentoFilter filter, List<DepartamentoDto> rows) -> Math.max(1, rows.size()))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxVersions)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, VERSIONS_CACHE_NAME);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+        Gauge.builder("cache.miss.ratio", cache, c -> c.stats().missRate())
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    public List<DepartamentoDto> get(DepartamentoFilter filter, Supplier<List<DepartamentoDto>> loader) {
+        return get(cache, filter, () -> List.copyOf(loader.get()));
+    }
+
+    public DepartamentoListVersion getVersion(DepartamentoFilter filter, Supplier<DepartamentoListVersion> loader) {
+        return get(versions, filter, loader);
+    }
+
+    private <V> V get(Cache<DepartamentoFilter, V> target, DepartamentoFilter filter, Supplier<V> loader) {
+        V cached = target.getIfPresent(filter);
+        if (cached != null) {
+            return cached;
+        }
+        long observed = generation.get();
+        V loaded = loader.get();
+        target.asMap().compute(filter, (key, current) -> generation.get() == observed ? loaded : current);
+        return loaded;
+    }
+
+    public void invalidate(DepartamentoDto before, DepartamentoDto after) {
+        invalidate(filter -> (before != null && filter.matches(before)) || (after != null && filter.matches(after)));
+    }
+
+    public void invalidate(DepartamentoRemoteChangedEvent change) {
+        invalidate(filter ->
+                (change.precioAntes() != null && filter.matches(change.disponibleAntes(), change.precioAntes()))
+                        || (change.precio() != null && filter.matches(change.disponible(), change.precio())));
+    }
+
+    // Only filters in a currency depend on the rates
+    public void invalidateMoneda() {
+        invalidate(filter -> filter.moneda() != null);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+        versions.invalidateAll();
+    }
+
+    private void invalidate(Predicate<DepartamentoFilter> affected) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(affected);
+        versions.asMap().keySet().removeIf(affected);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartamentoChanged(DepartamentoChangedEvent event) {
+        invalidate(event.before(), event.after());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartamentosBulkChanged(DepartamentosBulkChangedEvent event) {
+        log.debug("Invalidando cache de filtros por {}", event.origen());
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCotizacionChanged(CotizacionChangedEvent event) {
+        log.debug("Invalidando filtros por moneda por cambio de cotizacion {}", event.moneda());
+        invalidateMoneda();
+    }
+
+    @EventListener
+    public void onDepartamentoRemoteChanged(DepartamentoRemoteChangedEvent event) {
+        invalidate(event);
+    }
+
+    @EventListener
+    public void onDepartamentosResync(DepartamentosResyncEvent event) {
+        log.debug("Invalidando cache de filtros por resync ({})", event.origen());
+        invalidateAll();
+    }
+}
@@ -0,0 +1,211 @@
+package com.challenge.leban.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.event.CotizacionChangedEvent;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.event.DepartamentoRemoteChangedEvent;
+import com.challenge.leban.event.DepartamentosBulkChangedEvent;
+import com.challenge.leban.event.DepartamentosResyncEvent;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Keeps in-JVM departamento caches coherent across replicas using PostgreSQL LISTEN/NOTIFY.
+ * NOTIFY is issued inside the writing transaction, so PostgreSQL delivers it only once that
+ * transaction commits. Each node listens on one dedicated connection outside the pool and asks
+ * for a full resync every time that connection is (re)established. Single-row notifications carry
+ * the committed row, so the listeners on the receiving nodes never query for it.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "leban.invalidation-bus.enabled", havingValue = "true", matchIfMissing = true)
+public class DepartamentoInvalidationBus implements SmartLifecycle {
+
+    static final String CHANNEL = "departamento_changes";
+    // PostgreSQL rejects NOTIFY payloads of 8000 bytes or more
+    static final int MAX_PAYLOAD_BYTES = 7999;
+
+    private final String node = UUID.randomUUID().toString();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IDepartamentoRepository departamentoRepository;
+    private final DataSourceProperties dataSourceProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final int pollTimeoutMillis;
+    private final long reconnectDelayMillis;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public DepartamentoInvalidationBus(JdbcTemplate jdbcTemplate, IDepartamentoRepository departamentoRepository,
+            DataSourceProperties dataSourceProperties, ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper,
+            @Value("${leban.invalidation-bus.poll-timeout-ms:5000}") int pollTimeoutMillis,
+            @Value("${leban.invalidation-bus.reconnect-delay-ms:2000}") long reconnectDelayMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.departamentoRepository = departamentoRepository;
+        this.dataSourceProperties = dataSourceProperties;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.pollTimeoutMillis = pollTimeoutMillis;
+        this.reconnectDelayMillis = reconnectDelayMillis;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onDepartamentoChanged(DepartamentoChangedEvent event) {
+        DepartamentoDto before = event.before();
+        DepartamentoDto after = event.after();
+        DepartamentoChangeNotification notification = new DepartamentoChangeNotification(node, false, after.getId(),
+                before != null ? before.isDisponible() : null, before != null ? before.getPrecio() : null,
+                after.isDisponible(), after.getPrecio(), after, after.getVersion(), null);
+        String payload = serialize(notification);
+        // Only text columns full of multi-byte or escaped characters get there; receivers then read the row
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            payload = serialize(notification.withoutRow());
+        }
+        notify(payload);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onDepartamentosBulkChanged(DepartamentosBulkChangedEvent event) {
+        notify(serialize(new DepartamentoChangeNotification(node, true, null, null, null, null, null, null, null,
+                null)));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onCotizacionChanged(CotizacionChangedEvent event) {
+        notify(serialize(new DepartamentoChangeNotification(node, false, null, null, null, null, null, null, null,
+                event.moneda())));
+    }
+
+    private String serialize(DepartamentoChangeNotification notification) {
+        try {
+            return objectMapper.writeValueAsString(notification);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la notificacion", e);
+        }
+    }
+
+    private void notify(String payload) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", resultSet -> null, CHANNEL, payload);
+    }
+
+    void handle(String payload) {
+        DepartamentoChangeNotification notification;
+        try {
+            notification = objectMapper.readValue(payload, DepartamentoChangeNotification.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Notificacion de cambio ignorada: {}", payload);
+            return;
+        }
+        if (node.equals(notification.node())) {
+            return;
+        }
+        if (notification.bulk()) {
+            eventPublisher.publishEvent(new DepartamentosResyncEvent("bulk remoto"));
+        } else if (notification.cotizacion() != null) {
+            // Published outside any transaction, so the listener above does not send it back
+            eventPublisher.publishEvent(new CotizacionChangedEvent(notification.cotizacion()));
+        } else {
+            eventPublisher.publishEvent(new DepartamentoRemoteChangedEvent(notification.id(),
+                    notification.disponibleAntes(), notification.precioAntes(),
+                    notification.disponible(), notification.precio(), departamento(notification)));
+        }
+    }
+
+    // Read once here when the row did not fit in the payload, so every listener gets it without its own query
+    private DepartamentoDto departamento(DepartamentoChangeNotification notification) {
+        DepartamentoDto departamento = notification.departamento();
+        if (departamento == null) {
+            return departamentoRepository.findById(UUID.fromString(notification.id()))
+                    .map(Departamento::getDTO)
+                    .orElse(null);
+        }
+        departamento.setVersion(notification.version());
+        return departamento;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Escuchando invalidaciones en el canal {} (nodo {})", CHANNEL, node);
+                // Anything may have changed while we were not listening
+                eventPublisher.publishEvent(new DepartamentosResyncEvent("conexion"));
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMillis);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Conexion de invalidaciones perdida, reintentando en {} ms", reconnectDelayMillis, e);
+                    sleep();
+                }
+            } catch (RuntimeException e) {
+                log.error("Error procesando invalidaciones", e);
+                sleep();
+            }
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(reconnectDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listener = Thread.ofPlatform().name("departamento-invalidation-bus").daemon().start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
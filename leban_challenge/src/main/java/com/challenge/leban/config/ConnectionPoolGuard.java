@@ -0,0 +1,80 @@
+package com.challenge.leban.config;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.challenge.leban.exception.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Caps in-flight API requests at the size of the connection pool. With virtual threads Tomcat no longer
+ * limits concurrency, so without this thousands of requests would queue inside Hikari and fail only after
+ * its connection timeout; here they wait a short, bounded time and are rejected with 503.
+ */
+@Component
+@ConditionalOnProperty(name = "leban.concurrency-guard.enabled", havingValue = "true")
+public class ConnectionPoolGuard implements AsyncHandlerInterceptor {
+
+    // Marks requests holding a permit; async dispatches of the same request reuse it
+    private static final String PERMIT_ATTRIBUTE = ConnectionPoolGuard.class.getName() + ".PERMIT";
+
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+
+    public ConnectionPoolGuard(MeterRegistry meterRegistry,
+            @Value("${leban.concurrency-guard.max-in-flight}") int maxInFlight,
+            @Value("${leban.concurrency-guard.acquire-timeout:2s}") Duration acquireTimeout) {
+        this.permits = new Semaphore(maxInFlight, true);
+        this.acquireTimeout = acquireTimeout;
+
+        Gauge.builder("leban.concurrency.guard.available", permits, Semaphore::availablePermits)
+                .register(meterRegistry);
+        Gauge.builder("leban.concurrency.guard.waiting", permits, Semaphore::getQueueLength)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws InterruptedException {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null || isEventStream(handler)) {
+            return true;
+        }
+        if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new ServiceUnavailableException("Servidor saturado, reintente mas tarde");
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    // Not called after the first dispatch of an async request, so streamed responses keep their permit
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.release();
+        }
+    }
+
+    // SSE subscribers stay open for minutes without touching the pool, so they must not hold a permit
+    private static boolean isEventStream(Object handler) {
+        return handler instanceof HandlerMethod method
+                && SseEmitter.class.isAssignableFrom(method.getMethod().getReturnType());
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+}
@@ -0,0 +1,27 @@
+package com.challenge.leban.config;
+
+import java.math.BigDecimal;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Conversion to pesos for criteria queries, with the rate read from {@code cotizacion} (which has no entity) in
+ * the same statement as the rest of the query. The subselect does not depend on the row, so PostgreSQL runs it
+ * once and the product is a constant bound for the {@code precio_ars} indexes.
+ */
+public class CotizacionFunctionContributor implements FunctionContributor {
+
+    public static final String TO_ARS = "to_ars";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<BigDecimal> bigDecimalType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry().resolve(StandardBasicTypes.BIG_DECIMAL);
+
+        functionContributions.getFunctionRegistry().registerPattern(TO_ARS,
+                "(?1 * (SELECT c.ars_por_unidad FROM cotizacion c WHERE c.moneda = ?2))", bigDecimalType);
+    }
+}
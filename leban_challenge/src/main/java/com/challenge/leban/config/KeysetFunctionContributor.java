@@ -0,0 +1,26 @@
+package com.challenge.leban.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Keyset position for criteria queries, which have no row-value comparison. {@code (a, b) > (?, ?)} is what
+ * lets PostgreSQL start the scan of a {@code (a, b)} index right after the cursor (an Index Cond), so a deep page
+ * costs the same as the first one; the equivalent {@code a > ? OR (a = ? AND b > ?)} is only a Filter over every
+ * row before the cursor.
+ */
+public class KeysetFunctionContributor implements FunctionContributor {
+
+    public static final String AFTER = "keyset_after";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Boolean> booleanType = functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.BOOLEAN);
+
+        functionContributions.getFunctionRegistry()
+                .registerPattern(AFTER, "((?1, ?2) > (?3, ?4))", booleanType);
+    }
+}
@@ -0,0 +1,30 @@
+package com.challenge.leban.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Full-text functions for criteria queries over the {@code busqueda} tsvector column. The match is rendered
+ * with the {@code @@} operator, which the GIN index serves, rather than through a plain function call that it
+ * does not. {@code websearch_to_tsquery} accepts free user input (quotes, {@code or}, {@code -}) without
+ * syntax errors.
+ */
+public class SearchFunctionContributor implements FunctionContributor {
+
+    public static final String MATCHES = "busqueda_matches";
+    public static final String RANK = "busqueda_rank";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        var basicTypes = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+        BasicType<Boolean> booleanType = basicTypes.resolve(StandardBasicTypes.BOOLEAN);
+        BasicType<Float> floatType = basicTypes.resolve(StandardBasicTypes.FLOAT);
+
+        functionContributions.getFunctionRegistry()
+                .registerPattern(MATCHES, "(?1 @@ websearch_to_tsquery('spanish', ?2))", booleanType);
+        functionContributions.getFunctionRegistry()
+                .registerPattern(RANK, "ts_rank(?1, websearch_to_tsquery('spanish', ?2))", floatType);
+    }
+}
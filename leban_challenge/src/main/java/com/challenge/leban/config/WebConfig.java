@@ -0,0 +1,21 @@
+package com.challenge.leban.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<ConnectionPoolGuard> connectionPoolGuard;
+
+    public WebConfig(ObjectProvider<ConnectionPoolGuard> connectionPoolGuard) {
+        this.connectionPoolGuard = connectionPoolGuard;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        connectionPoolGuard.ifAvailable(guard -> registry.addInterceptor(guard).addPathPatterns("/api/**"));
+    }
+}
@@ -0,0 +1,36 @@
+package com.challenge.leban.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.challenge.leban.dto.CotizacionDto;
+import com.challenge.leban.service.ICotizacionService;
+
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+
+@RestController
+@RequestMapping("/api/cotizaciones")
+@AllArgsConstructor
+public class CotizacionRESTController {
+
+    private ICotizacionService cotizacionService;
+
+    @GetMapping
+    public ResponseEntity<List<CotizacionDto>> getCotizaciones() {
+        return ResponseEntity.ok(cotizacionService.getAll());
+    }
+
+    @PutMapping("/{moneda}")
+    public ResponseEntity<CotizacionDto> updateCotizacion(@PathVariable String moneda,
+            @Valid @RequestBody CotizacionDto cotizacion) {
+        return ResponseEntity.ok(cotizacionService.update(moneda, cotizacion));
+    }
+}
@@ -1,19 +1,51 @@
 package com.challenge.leban.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.challenge.leban.dto.BatchResultDto;
+import com.challenge.leban.dto.BulkUpdateRequestDto;
+import com.challenge.leban.dto.BulkUpdateResultDto;
+import com.challenge.leban.dto.CopyImportResultDto;
+import com.challenge.leban.dto.CursorPageDto;
 import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.dto.DepartamentoListVersion;
+import com.challenge.leban.dto.DepartamentoSyncPageDto;
+import com.challenge.leban.dto.IngestStatusDto;
+import com.challenge.leban.exception.PreconditionFailedException;
+import com.challenge.leban.feed.DepartamentoChangeFeed;
+import com.challenge.leban.service.IDepartamentoBatchService;
+import com.challenge.leban.service.IDepartamentoBulkUpdateService;
+import com.challenge.leban.service.IDepartamentoCopyService;
+import com.challenge.leban.service.IDepartamentoIngestService;
 import com.challenge.leban.service.IDepartamentoService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
@@ -23,32 +55,225 @@ import lombok.AllArgsConstructor;
 @AllArgsConstructor
 public class DepartamentoRESTController {
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
     private IDepartamentoService departamentoService;
 
+    private IDepartamentoBatchService departamentoBatchService;
+
+    private IDepartamentoCopyService departamentoCopyService;
+
+    private IDepartamentoBulkUpdateService departamentoBulkUpdateService;
+
+    private IDepartamentoIngestService departamentoIngestService;
+
+    private DepartamentoChangeFeed departamentoChangeFeed;
+
+    private ObjectMapper objectMapper;
+
     @GetMapping
     public ResponseEntity<List<DepartamentoDto>> getAllDepartamentos(
             @RequestParam(required = false) Boolean disponible,
             @RequestParam(required = false) String precioMin,
-            @RequestParam(required = false) String precioMax) {
-        List<DepartamentoDto> departamentos = departamentoService.filterDepartamentos(disponible, precioMin, precioMax);
+            @RequestParam(required = false) String precioMax,
+            @RequestParam(required = false) String moneda,
+            @RequestParam(required = false) String q,
+            WebRequest request) {
+        // A text search narrows the filtered list, so the version of the whole filter still covers it
+        if (isNotModified(DepartamentoFilter.of(disponible, precioMin, precioMax, moneda), request)) {
+            return null;
+        }
+        List<DepartamentoDto> departamentos = q == null
+                ? departamentoService.filterDepartamentos(disponible, precioMin, precioMax, moneda)
+                : departamentoService.searchDepartamentos(q, disponible, precioMin, precioMax, moneda);
         return ResponseEntity.ok(departamentos);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPageDto<DepartamentoDto>> getDepartamentosPage(
+            @RequestParam(required = false) Boolean disponible,
+            @RequestParam(required = false) String precioMin,
+            @RequestParam(required = false) String precioMax,
+            @RequestParam(required = false) String moneda,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam int limit,
+            WebRequest request) {
+        if (isNotModified(DepartamentoFilter.of(disponible, precioMin, precioMax, moneda), request)) {
+            return null;
+        }
+        CursorPageDto<DepartamentoDto> page = q == null
+                ? departamentoService.filterDepartamentos(disponible, precioMin, precioMax, moneda, cursor, limit)
+                : departamentoService.searchDepartamentos(q, disponible, precioMin, precioMax, moneda, cursor, limit);
+        if (page.getNextCursor() == null) {
+            return ResponseEntity.ok(page);
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", page.getNextCursor())
+                .toUriString();
+        page.setNext(next);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(page);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamDepartamentos(
+            @RequestParam(required = false) Boolean disponible,
+            @RequestParam(required = false) String precioMin,
+            @RequestParam(required = false) String precioMax,
+            @RequestParam(required = false) String moneda) {
+        DepartamentoFilter filter = DepartamentoFilter.of(disponible, precioMin, precioMax, moneda);
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                departamentoService.streamDepartamentos(filter, departamento -> {
+                    try {
+                        writer.writeValue(generator, departamento);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<DepartamentoDto>> suggestDepartamentos(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(departamentoService.suggestDepartamentos(prefix, limit));
+    }
+
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<DepartamentoDto>> getSimilarDepartamentos(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "10") int k) {
+        return ResponseEntity.ok(departamentoService.findSimilar(id, k));
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) Boolean disponible,
+            @RequestParam(required = false) String precioMin,
+            @RequestParam(required = false) String precioMax,
+            @RequestParam(required = false) String moneda,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return departamentoChangeFeed.subscribe(DepartamentoFilter.of(disponible, precioMin, precioMax, moneda),
+                lastEventId);
+    }
+
+    @GetMapping(value = "/changes", params = "since", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<DepartamentoSyncPageDto> getChangesSince(
+            @RequestParam String since,
+            @RequestParam(defaultValue = "500") int limit) {
+        DepartamentoSyncPageDto page = departamentoService.getChangesSince(since, limit);
+        return ResponseEntity.ok(page);
+    }
+
     @PostMapping
     public ResponseEntity<DepartamentoDto> addDepartamento(
             @Valid @RequestBody DepartamentoDto departamentoDto) {
-        DepartamentoDto created = departamentoService.add(departamentoDto);
-        return ResponseEntity.accepted().body(created);
+        if (!departamentoIngestService.isAsync()) {
+            DepartamentoDto created = departamentoService.add(departamentoDto);
+            return ResponseEntity.accepted().eTag(etag(created)).body(created);
+        }
+        // Only queued: the body carries the future id and Location points at the status of the write
+        DepartamentoDto accepted = departamentoIngestService.submit(departamentoDto);
+        URI status = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/ingest/{id}")
+                .buildAndExpand(accepted.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(status).body(accepted);
+    }
+
+    @GetMapping("/ingest/{id}")
+    public ResponseEntity<IngestStatusDto> getIngestStatus(@PathVariable String id) {
+        return ResponseEntity.ok(departamentoIngestService.getStatus(id));
+    }
+
+    @PostMapping(value = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BatchResultDto> addDepartamentos(InputStream departamentos) {
+        BatchResultDto result = departamentoBatchService.addAll(departamentos);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/bulk-update")
+    public ResponseEntity<BulkUpdateResultDto> bulkUpdateDepartamentos(@RequestBody BulkUpdateRequestDto request) {
+        BulkUpdateResultDto result = departamentoBulkUpdateService.update(request);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<CopyImportResultDto> importDepartamentos(InputStream csv) {
+        CopyImportResultDto result = departamentoCopyService.importCsv(csv);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping(value = "/export", produces = TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportDepartamentos(
+            @RequestParam(required = false) Boolean disponible,
+            @RequestParam(required = false) String precioMin,
+            @RequestParam(required = false) String precioMax,
+            @RequestParam(required = false) String moneda) {
+        DepartamentoFilter filter = DepartamentoFilter.of(disponible, precioMin, precioMax, moneda);
+        StreamingResponseBody body = outputStream -> departamentoCopyService.exportCsv(filter, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"departamentos.csv\"")
+                .body(body);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<DepartamentoDto> updateDepartamento(
             @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody DepartamentoDto departamentoDto) {
 
-            DepartamentoDto updated = departamentoService.update(departamentoDto, id);
-            return ResponseEntity.ok(updated);
+            DepartamentoDto updated = departamentoService.update(departamentoDto, id, expectedVersion(ifMatch));
+            return ResponseEntity.ok().eTag(etag(updated)).body(updated);
+
+    }
+
+    @PatchMapping(value = "/{id}", consumes = { MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<DepartamentoDto> patchDepartamento(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody JsonNode patch) {
+        DepartamentoDto patched = departamentoService.patch(id, patch, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(etag(patched)).body(patched);
+    }
+
+    // Sets ETag/Last-Modified and answers 304 before any row is read when the client copy is still current
+    private boolean isNotModified(DepartamentoFilter filter, WebRequest request) {
+        DepartamentoListVersion version = departamentoService.getListVersion(filter);
+        return request.checkNotModified(version.etag(), version.lastModifiedMillis());
+    }
+
+    private static String etag(DepartamentoDto departamento) {
+        return "\"" + departamento.getVersion() + "\"";
+    }
 
+    // If-Match uses strong comparison: "*" accepts any version, a weak or unknown tag can never match
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Falls through to the precondition failure below
+            }
+        }
+        throw new PreconditionFailedException("If-Match no corresponde a ninguna version del departamento");
     }
 
 }
@@ -0,0 +1,18 @@
+package com.challenge.leban.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BatchItemErrorDto {
+
+    private int index;
+
+    private String message;
+
+}
@@ -0,0 +1,23 @@
+package com.challenge.leban.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BatchResultDto {
+
+    private int received;
+
+    private int inserted;
+
+    private List<BatchItemErrorDto> errors = new ArrayList<>();
+
+}
@@ -0,0 +1,39 @@
+package com.challenge.leban.dto;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.challenge.leban.enums.Moneda;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Selects rows either by {@code ids} or by {@code filter} (same terms as the listing query parameters) and
+ * applies a {@code disponible} value and/or a percentage price change per {@link Moneda}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class BulkUpdateRequestDto {
+
+    private List<String> ids;
+
+    private Filter filter;
+
+    private Boolean disponible;
+
+    // e.g. {"ARS": 12.5} raises ARS prices by 12.5%; negative values lower them
+    @Builder.Default
+    private Map<Moneda, BigDecimal> precioPorcentaje = new EnumMap<>(Moneda.class);
+
+    public record Filter(Boolean disponible, String precioMin, String precioMax) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.challenge.leban.dto;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.challenge.leban.enums.Moneda;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BulkUpdateResultDto {
+
+    // Rows selected by the ids or the filter
+    private long matched;
+
+    // Rows actually written: selected rows whose values did not change are left untouched
+    private long updated;
+
+    private long disponibleChanged;
+
+    private Map<Moneda, Long> precioChanged = new EnumMap<>(Moneda.class);
+
+}
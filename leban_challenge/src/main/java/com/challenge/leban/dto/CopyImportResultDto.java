@@ -0,0 +1,20 @@
+package com.challenge.leban.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class CopyImportResultDto {
+
+    private long staged;
+
+    private long inserted;
+
+    private long updated;
+
+}
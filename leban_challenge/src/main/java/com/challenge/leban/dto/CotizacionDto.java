@@ -0,0 +1,39 @@
+package com.challenge.leban.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.challenge.leban.enums.Moneda;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Exchange rate of a currency as pesos per unit; ARS is the base and always 1.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class CotizacionDto {
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Moneda moneda;
+
+    @NotNull(message = "La cotizacion es obligatoria")
+    @DecimalMin(value = "0.0", inclusive = false, message = "La cotizacion debe ser mayor a 0")
+    private BigDecimal arsPorUnidad;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss.SSS")
+    private LocalDateTime updatedAt;
+
+}
@@ -3,6 +3,7 @@ package com.challenge.leban.dto;
 import java.math.BigDecimal;
 
 import com.challenge.leban.enums.Moneda;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
@@ -45,6 +46,10 @@ public class DepartamentoDto {
 
     private boolean disponible;
 
+    // Exposed as the ETag of the row; clients send it back in If-Match, never in the body
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     public DepartamentoDto() {
         // No-args constructor
     }
@@ -54,7 +59,7 @@ public class DepartamentoDto {
         return "DepartamentoDto [id=" + id + ", titulo=" + titulo + ", descripcion=" + descripcion + ", precio="
                 + precio
                 + ", moneda=" + moneda + ", metros_cuadrados=" + metros_cuadrados + ", direccion=" + direccion
-                + ", disponible=" + disponible + "]";
+                + ", disponible=" + disponible + ", version=" + version + "]";
     }
 
 }
@@ -0,0 +1,73 @@
+package com.challenge.leban.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.exception.BusinessException;
+
+/**
+ * Filter of the listing endpoints. With {@code moneda} the price bounds are in that currency and apply to
+ * every departamento converted at the current rates; without it they compare {@code precio} as stored.
+ */
+public record DepartamentoFilter(Boolean disponible, BigDecimal precioMin, BigDecimal precioMax, Moneda moneda) {
+
+    public DepartamentoFilter(Boolean disponible, BigDecimal precioMin, BigDecimal precioMax) {
+        this(disponible, precioMin, precioMax, null);
+    }
+
+    public static DepartamentoFilter of(Boolean disponible, String precioMin, String precioMax) {
+        return of(disponible, precioMin, precioMax, null);
+    }
+
+    public static DepartamentoFilter of(Boolean disponible, String precioMin, String precioMax, String moneda) {
+        BigDecimal pMin = (precioMin != null && !precioMin.isEmpty()) ? new BigDecimal(precioMin) : null;
+        BigDecimal pMax = (precioMax != null && !precioMax.isEmpty()) ? new BigDecimal(precioMax) : null;
+
+        if (pMin != null && pMax != null && pMin.compareTo(pMax) > 0) {
+            throw new BusinessException("El precio minimo no puede ser mayor que precio maximo");
+        }
+
+        if(pMin != null && pMin.compareTo(BigDecimal.ZERO) < 0) {
+            throw new BusinessException("El precio minimo no puede ser menor que 0");
+        }
+        if(pMax != null && pMax.compareTo(BigDecimal.ZERO) < 0) {
+            throw new BusinessException("El precio maximo no puede ser menor que 0");
+        }
+
+        Moneda enMoneda = null;
+        if (moneda != null && !moneda.isEmpty()) {
+            try {
+                enMoneda = Moneda.valueOf(moneda);
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException("Moneda invalida: " + moneda);
+            }
+        }
+
+        // Normalized so that "100000" and "100000.00" end up as the same cache key
+        return new DepartamentoFilter(disponible,
+                pMin != null ? pMin.stripTrailingZeros() : null,
+                pMax != null ? pMax.stripTrailingZeros() : null,
+                enMoneda);
+    }
+
+    public boolean matches(DepartamentoDto dto) {
+        return matches(dto.isDisponible(), dto.getPrecio());
+    }
+
+    public boolean matches(boolean disponible, BigDecimal precio) {
+        if (this.disponible != null && this.disponible != disponible) {
+            return false;
+        }
+        // Converted prices depend on the rates, which are not at hand: callers use this to decide what to
+        // invalidate or notify, where a false positive is harmless
+        if (moneda != null) {
+            return true;
+        }
+        // Compare against the value as the database stores it, not as the client sent it
+        BigDecimal stored = precio.setScale(Departamento.PRECIO_SCALE, RoundingMode.HALF_UP);
+        return (precioMin == null || stored.compareTo(precioMin) >= 0)
+                && (precioMax == null || stored.compareTo(precioMax) <= 0);
+    }
+}
@@ -0,0 +1,24 @@
+package com.challenge.leban.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Validator of a filtered listing. The ETag changes whenever a row enters, leaves or is updated inside the
+ * filter; {@code lastModified} is the newest write on the whole table, because a row leaving the filter does
+ * not move the filter's own max(updated_at) and {@code If-Modified-Since} has no count to fall back on.
+ */
+public record DepartamentoListVersion(long count, LocalDateTime updatedAt, LocalDateTime lastModified) {
+
+    public String etag() {
+        long micros = updatedAt != null
+                ? updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + updatedAt.getNano() / 1_000
+                : 0;
+        return "\"" + count + "-" + Long.toHexString(micros) + "\"";
+    }
+
+    public long lastModifiedMillis() {
+        return lastModified != null ? lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
@@ -0,0 +1,10 @@
+package com.challenge.leban.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of a list sorted in a currency with its stored price in pesos, in (precio_ars, id) order.
+ */
+public record DepartamentoPrecioArsRow(BigDecimal precioArs, DepartamentoDto departamento) {
+
+}
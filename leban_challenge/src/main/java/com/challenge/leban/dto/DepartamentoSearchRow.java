@@ -0,0 +1,8 @@
+package com.challenge.leban.dto;
+
+/**
+ * One text search hit with its relevance, in (rank descending, id) order.
+ */
+public record DepartamentoSearchRow(float rank, DepartamentoDto departamento) {
+
+}
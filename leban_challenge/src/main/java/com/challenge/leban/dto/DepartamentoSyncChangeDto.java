@@ -0,0 +1,26 @@
+package com.challenge.leban.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DepartamentoSyncChangeDto {
+
+    private String id;
+
+    // Tombstone: the row was deleted and carries no departamento
+    private boolean eliminado;
+
+    private DepartamentoDto departamento;
+
+}
@@ -0,0 +1,25 @@
+package com.challenge.leban.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class DepartamentoSyncPageDto {
+
+    private List<DepartamentoSyncChangeDto> changes;
+
+    // Watermark to send as the next "since"; unchanged when there was nothing new
+    private String next;
+
+    private boolean hasMore;
+
+}
@@ -0,0 +1,11 @@
+package com.challenge.leban.dto;
+
+import java.util.UUID;
+
+/**
+ * One row of the delta-sync stream, in (changeXid, id) order, changeXid being the transaction that wrote it.
+ * {@code departamento} is null for a deletion.
+ */
+public record DepartamentoSyncRow(long changeXid, UUID id, DepartamentoDto departamento) {
+
+}
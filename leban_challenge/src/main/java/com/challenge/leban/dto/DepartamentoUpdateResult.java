@@ -0,0 +1,12 @@
+package com.challenge.leban.dto;
+
+/**
+ * Outcome of a conditional update of an existing departamento. {@code after} is null when the row was not
+ * updated because its version no longer matched; {@code before} then holds the current row.
+ */
+public record DepartamentoUpdateResult(DepartamentoDto before, DepartamentoDto after) {
+
+    public boolean isConflict() {
+        return after == null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.challenge.leban.dto;
+
+import com.challenge.leban.enums.EstadoIngesta;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestStatusDto {
+
+    private String id;
+
+    private EstadoIngesta estado;
+
+    private String mensaje;
+
+    // Present once the row is committed
+    private DepartamentoDto departamento;
+
+}
@@ -2,8 +2,10 @@ package com.challenge.leban.entity;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import com.challenge.leban.dto.DepartamentoDto;
@@ -17,24 +19,34 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
+// Schema and indexes are owned by the Flyway migrations in db/migration
 @Table(name = "departamento")
+// Entity updates (PATCH) write only the columns that changed, not the 500-character text ones every time
+@DynamicUpdate
 @Getter
 @Setter
 @AllArgsConstructor
 public class Departamento implements IMapper<DepartamentoDto> {
 
+    public static final int PRECIO_SCALE = 2;
+
+    // Native 16-byte uuid column; the API keeps exposing the id as its canonical string form
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuidV7
     @Column(name = "id", updatable = false, nullable = false)
-    private String id;
+    private UUID id;
     @Column(name = "titulo", nullable = false, length = 150)
     private String titulo;
     @Column(name = "descripcion", nullable = false, length = 500)
     private String descripcion;
-    @Column(name = "precio", nullable = false)
+    @Column(name = "precio", nullable = false, precision = 38, scale = PRECIO_SCALE)
     private BigDecimal precio;
     @Enumerated(EnumType.STRING)
+    @Column(name = "moneda", nullable = false)
     private Moneda moneda;
+    // precio in pesos at the current rate; filled by a database trigger, only ever read in queries
+    @Column(name = "precio_ars", insertable = false, updatable = false, precision = 38, scale = PRECIO_SCALE)
+    private BigDecimal precioArs;
     @Column(name = "metros_cuadrados")
     @JsonProperty("metros_cuadrados")
     private Float metros_cuadrados;
@@ -42,6 +54,9 @@ public class Departamento implements IMapper<DepartamentoDto> {
     private String direccion;
     @Column(name = "disponible", nullable = false)
     private boolean disponible;
+    // Generated tsvector over the text columns; mapped only so criteria queries can search it
+    @Column(name = "busqueda", insertable = false, updatable = false, columnDefinition = "tsvector")
+    private String busqueda;
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss.SSS")
@@ -50,6 +65,9 @@ public class Departamento implements IMapper<DepartamentoDto> {
     @Column(name = "updated_at", nullable = false)
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss.SSS")
     private LocalDateTime updatedAt;
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 
     public Departamento() {
         // No-args constructor
@@ -58,7 +76,7 @@ public class Departamento implements IMapper<DepartamentoDto> {
     @Override
     public DepartamentoDto getDTO() {
         return DepartamentoDto.builder()
-                .id(id)
+                .id(id == null ? null : id.toString())
                 .titulo(titulo)
                 .descripcion(descripcion)
                 .precio(precio)
@@ -66,6 +84,7 @@ public class Departamento implements IMapper<DepartamentoDto> {
                 .metros_cuadrados(metros_cuadrados)
                 .direccion(direccion)
                 .disponible(disponible)
+                .version(version)
                 .build();
     }
 
@@ -84,7 +103,8 @@ public class Departamento implements IMapper<DepartamentoDto> {
     public String toString() {
         return "Inmueble [id=" + id + ", titulo=" + titulo + ", descripcion=" + descripcion + ", precio=" + precio
                 + ", moneda=" + moneda + ", metros_cuadrados=" + metros_cuadrados + ", direccion=" + direccion
-                + ", disponible=" + disponible + ", createdAt=" + createdAt + ", updatedAt=" + updatedAt + "]";
+                + ", disponible=" + disponible + ", createdAt=" + createdAt + ", updatedAt=" + updatedAt
+                + ", version=" + version + "]";
     }
 
 }
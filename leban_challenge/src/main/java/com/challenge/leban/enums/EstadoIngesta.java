@@ -0,0 +1,7 @@
+package com.challenge.leban.enums;
+
+public enum EstadoIngesta {
+    PENDIENTE,
+    CREADO,
+    ERROR
+}
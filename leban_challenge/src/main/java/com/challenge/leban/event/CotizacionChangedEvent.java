@@ -0,0 +1,11 @@
+package com.challenge.leban.event;
+
+import com.challenge.leban.enums.Moneda;
+
+/**
+ * Published when the rate of a currency changes. No row changes as clients see it; only what the lists filtered in
+ * a currency contain, and in which order.
+ */
+public record CotizacionChangedEvent(Moneda moneda) {
+
+}
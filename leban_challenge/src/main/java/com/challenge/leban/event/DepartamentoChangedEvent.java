@@ -0,0 +1,10 @@
+package com.challenge.leban.event;
+
+import com.challenge.leban.dto.DepartamentoDto;
+
+/**
+ * Published inside the write transaction of a single departamento. {@code before} is null on creation.
+ */
+public record DepartamentoChangedEvent(DepartamentoDto before, DepartamentoDto after) {
+
+}
@@ -0,0 +1,16 @@
+package com.challenge.leban.event;
+
+import java.math.BigDecimal;
+
+import com.challenge.leban.dto.DepartamentoDto;
+
+/**
+ * A departamento changed on another node. Of the previous state only the attributes the filters look at travel
+ * with it; {@code disponibleAntes}/{@code precioAntes} are null on creation. {@code departamento} is the row as
+ * committed, read once by the invalidation bus when the notification could not carry it, and null when the row
+ * no longer exists.
+ */
+public record DepartamentoRemoteChangedEvent(String id, Boolean disponibleAntes, BigDecimal precioAntes,
+        Boolean disponible, BigDecimal precio, DepartamentoDto departamento) {
+
+}
@@ -0,0 +1,8 @@
+package com.challenge.leban.event;
+
+/**
+ * Published when a write touches an unknown or large set of rows (batch ingestion, CSV import, bulk update).
+ */
+public record DepartamentosBulkChangedEvent(String origen) {
+
+}
@@ -0,0 +1,9 @@
+package com.challenge.leban.event;
+
+/**
+ * Local copies of departamento data can no longer be trusted (bulk write on another node, or
+ * notifications possibly missed while the invalidation bus was disconnected) and must be rebuilt.
+ */
+public record DepartamentosResyncEvent(String origen) {
+
+}
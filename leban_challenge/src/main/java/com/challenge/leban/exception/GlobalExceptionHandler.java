@@ -2,6 +2,7 @@ package com.challenge.leban.exception;
 
 import com.challenge.leban.dto.ErrorResponseDto;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -48,8 +49,11 @@ public class GlobalExceptionHandler {
             request.getDescription(false).replace("uri=", "")
         );
 
-        HttpStatus httpStatus = HttpStatus.valueOf(ex.getStatusCode());
-        return new ResponseEntity<>(errorResponse, httpStatus);
+        // Preset, so the error is written as JSON even on endpoints whose clients only accept an event stream,
+        // NDJSON or CSV
+        return ResponseEntity.status(ex.getStatusCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorResponse);
     }
 
     @ExceptionHandler(Exception.class)
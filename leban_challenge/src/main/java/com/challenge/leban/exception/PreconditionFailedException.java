@@ -0,0 +1,35 @@
+package com.challenge.leban.exception;
+
+public class PreconditionFailedException extends CoreException {
+    
+    private final int statusCode;
+	private final String codeMessage;
+
+	public PreconditionFailedException() {
+		statusCode = 412;
+		codeMessage = "exception.preconditionFailed";
+	}
+
+	public PreconditionFailedException(String message) {
+		super(message);
+		statusCode = 412;
+		codeMessage = "exception.preconditionFailed";
+	}
+
+	public PreconditionFailedException(String message, String codeMessage, int statusCode) {
+		super(message);
+		this.statusCode = statusCode;
+		this.codeMessage = codeMessage;
+	}
+
+	@Override
+	public Integer getStatusCode() {
+		return statusCode;
+	}
+
+	@Override
+	public String getCodeMessage() {
+		return codeMessage;
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.challenge.leban.exception;
+
+public class ServiceUnavailableException extends CoreException {
+    
+    private final int statusCode;
+	private final String codeMessage;
+
+	public ServiceUnavailableException() {
+		statusCode = 503;
+		codeMessage = "exception.serviceUnavailable";
+	}
+
+	public ServiceUnavailableException(String message) {
+		super(message);
+		statusCode = 503;
+		codeMessage = "exception.serviceUnavailable";
+	}
+
+	public ServiceUnavailableException(String message, String codeMessage, int statusCode) {
+		super(message);
+		this.statusCode = statusCode;
+		this.codeMessage = codeMessage;
+	}
+
+	@Override
+	public Integer getStatusCode() {
+		return statusCode;
+	}
+
+	@Override
+	public String getCodeMessage() {
+		return codeMessage;
+	}
+
+}
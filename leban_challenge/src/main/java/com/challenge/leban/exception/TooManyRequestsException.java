@@ -0,0 +1,35 @@
+package com.challenge.leban.exception;
+
+public class TooManyRequestsException extends CoreException {
+    
+    private final int statusCode;
+	private final String codeMessage;
+
+	public TooManyRequestsException() {
+		statusCode = 429;
+		codeMessage = "exception.tooManyRequests";
+	}
+
+	public TooManyRequestsException(String message) {
+		super(message);
+		statusCode = 429;
+		codeMessage = "exception.tooManyRequests";
+	}
+
+	public TooManyRequestsException(String message, String codeMessage, int statusCode) {
+		super(message);
+		this.statusCode = statusCode;
+		this.codeMessage = codeMessage;
+	}
+
+	@Override
+	public Integer getStatusCode() {
+		return statusCode;
+	}
+
+	@Override
+	public String getCodeMessage() {
+		return codeMessage;
+	}
+
+}
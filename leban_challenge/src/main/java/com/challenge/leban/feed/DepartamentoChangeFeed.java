@@ -0,0 +1,284 @@
+package com.challenge.leban.feed;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.event.DepartamentoRemoteChangedEvent;
+import com.challenge.leban.event.DepartamentosBulkChangedEvent;
+import com.challenge.leban.event.DepartamentosResyncEvent;
+import com.challenge.leban.exception.BusinessException;
+import com.challenge.leban.exception.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Server-Sent Events feed of committed departamento changes, made on this node or, through the invalidation bus,
+ * on the others. Writers only append to a bounded replay buffer and flag the subscribers; each subscriber is then
+ * caught up by a short-lived virtual thread that reads the buffer from its own position. An idle subscriber holds
+ * no thread, and a slow one only falls behind: once the buffer overwrites its position it gets a {@code resync}
+ * event and continues from the head.
+ * Event ids are {@code <epoch>-<sequence>}, so a Last-Event-ID from before a restart also ends in a resync.
+ */
+@Log4j2
+@Component
+public class DepartamentoChangeFeed {
+
+    static final String CREATED = "created";
+    static final String UPDATED = "updated";
+    static final String RESYNC = "resync";
+
+    private static final int MAX_EVENTS_PER_READ = 256;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Change[] buffer;
+    private long head;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeats;
+    private final int maxSubscribers;
+    private final Duration timeout;
+
+    public DepartamentoChangeFeed(MeterRegistry meterRegistry,
+            @Value("${leban.changes.replay-size:4096}") int replaySize,
+            @Value("${leban.changes.max-subscribers:10000}") int maxSubscribers,
+            @Value("${leban.changes.timeout:30m}") Duration timeout,
+            @Value("${leban.changes.heartbeat:15s}") Duration heartbeat) {
+        this.buffer = new Change[replaySize];
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("departamento-changes-heartbeat").daemon().factory());
+        // Comments keep proxies from closing idle streams and reveal clients that went away
+        heartbeats.scheduleAtFixedRate(() -> subscribers.forEach(subscriber -> {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }), heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("leban.changes.subscribers", subscribers, Set::size).register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(DepartamentoFilter filter, String lastEventId) {
+        // Changes are matched here without the rates, so a currency filter would let every change through
+        if (filter.moneda() != null) {
+            throw new BusinessException("El feed de cambios no admite filtrar por moneda");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceUnavailableException("Demasiados suscriptores al feed de cambios, reintente mas tarde");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, filter);
+        synchronized (this) {
+            Long resumeFrom = resumePosition(lastEventId);
+            subscriber.position = resumeFrom != null ? resumeFrom : head;
+            subscriber.resyncDue = lastEventId != null && resumeFrom == null;
+        }
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        schedule(subscriber);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartamentoChanged(DepartamentoChangedEvent event) {
+        append(new Change(0, event.before() == null ? CREATED : UPDATED, event.before(), event.after()));
+    }
+
+    // Bulk writes carry no rows: subscribers are told to reload whatever they show
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartamentosBulkChanged(DepartamentosBulkChangedEvent event) {
+        append(new Change(0, RESYNC, null, null));
+    }
+
+    // Of the previous state only the filter attributes travel; a row deleted since has nothing to show. Every node
+    // gets every remote change, mostly with nobody subscribed: then the change is dropped, and a client resuming
+    // from before it gets a resync instead
+    @EventListener
+    public void onDepartamentoRemoteChanged(DepartamentoRemoteChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            appendResyncOnce();
+            return;
+        }
+        DepartamentoDto after = event.departamento();
+        if (after == null) {
+            return;
+        }
+        DepartamentoDto before = event.disponibleAntes() == null ? null : DepartamentoDto.builder()
+                .id(event.id())
+                .disponible(event.disponibleAntes())
+                .precio(event.precioAntes())
+                .build();
+        append(new Change(0, before == null ? CREATED : UPDATED, before, after));
+    }
+
+    // A bulk write on another node, or notifications possibly missed while the bus was reconnecting
+    @EventListener
+    public void onDepartamentosResync(DepartamentosResyncEvent event) {
+        append(new Change(0, RESYNC, null, null));
+    }
+
+    private void append(Change change) {
+        synchronized (this) {
+            head++;
+            buffer[(int) (head % buffer.length)] = new Change(head, change.type(), change.before(), change.after());
+        }
+        subscribers.forEach(this::schedule);
+    }
+
+    // A burst of dropped changes leaves a single resync rather than pushing the whole replay buffer out
+    private synchronized void appendResyncOnce() {
+        Change last = buffer[(int) (head % buffer.length)];
+        if (last == null || !RESYNC.equals(last.type())) {
+            append(new Change(0, RESYNC, null, null));
+        }
+    }
+
+    // Null when the id is absent, from another epoch or already overwritten
+    private Long resumePosition(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(epoch + "-")) {
+            return null;
+        }
+        try {
+            long sequence = Long.parseLong(lastEventId.substring(epoch.length() + 1));
+            return sequence <= head && sequence >= head - buffer.length ? sequence : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Null when the position was overwritten
+    private synchronized List<Change> read(long position) {
+        if (position < head - buffer.length) {
+            return null;
+        }
+        int count = (int) Math.min(head - position, MAX_EVENTS_PER_READ);
+        List<Change> changes = new ArrayList<>(count);
+        for (long sequence = position + 1; sequence <= position + count; sequence++) {
+            changes.add(buffer[(int) (sequence % buffer.length)]);
+        }
+        return changes;
+    }
+
+    synchronized long head() {
+        return head;
+    }
+
+    // At most one sender per subscriber at a time
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> deliver(subscriber));
+        }
+    }
+
+    private void deliver(Subscriber subscriber) {
+        try {
+            while (true) {
+                if (subscriber.resyncDue) {
+                    subscriber.resyncDue = false;
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(eventId(subscriber.position))
+                            .name(RESYNC)
+                            .data("{}"));
+                }
+                List<Change> changes = read(subscriber.position);
+                if (changes == null) {
+                    subscriber.position = head();
+                    subscriber.resyncDue = true;
+                    continue;
+                }
+                if (changes.isEmpty()) {
+                    break;
+                }
+                for (Change change : changes) {
+                    if (change.matches(subscriber.filter)) {
+                        subscriber.emitter.send(SseEmitter.event()
+                                .id(eventId(change.sequence()))
+                                .name(change.type())
+                                .data(change.after() != null ? change.after() : "{}"));
+                    }
+                    subscriber.position = change.sequence();
+                }
+            }
+            if (subscriber.heartbeatDue) {
+                subscriber.heartbeatDue = false;
+                subscriber.emitter.send(SseEmitter.event().comment("ping"));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the emitter already completed
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        // A change appended after the last read would otherwise wait for the next one
+        if (subscriber.position < head() || subscriber.resyncDue) {
+            schedule(subscriber);
+        }
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        heartbeats.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        senders.shutdown();
+    }
+
+    private record Change(long sequence, String type, DepartamentoDto before, DepartamentoDto after) {
+
+        // A row leaving the filter is reported too, so clients can drop it
+        boolean matches(DepartamentoFilter filter) {
+            return RESYNC.equals(type)
+                    || (before != null && filter.matches(before))
+                    || (after != null && filter.matches(after));
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final DepartamentoFilter filter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long position;
+        private volatile boolean resyncDue;
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(SseEmitter emitter, DepartamentoFilter filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.challenge.leban.readmodel;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.UUID;
+
+/**
+ * The three filter attributes of every departamento in primitive columns indexed by an ordinal, plus a copy
+ * of the prices sorted by (precio, id) with the ordinal of each entry. A price range is a binary search on the
+ * sorted column; {@code disponible} is a bit test per candidate. Prices are scaled to whole cents. About 45
+ * bytes per row, independent of the text columns. Not thread-safe.
+ * <p>
+ * The sorted column is never shifted by a write: rows added or moved since the last compaction go to a small
+ * sorted overlay, and their old entry stays behind as a tombstone (the row's generation no longer matches the
+ * run). Reads merge the runs. {@link #startCompaction()} freezes the overlay so that {@link Compaction#run()}
+ * can merge it into a new sorted column without holding the caller's lock; {@link #finishCompaction} swaps it in.
+ */
+public class DepartamentoColumns {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_OVERLAY_CAPACITY = 64;
+    // Overlay size at which a compaction is due; an overlay write copies at most this many entries
+    static final int COMPACTION_THRESHOLD = 4096;
+
+    // By ordinal
+    private long[] idMsb;
+    private long[] idLsb;
+    private long[] precio;
+    private byte[] moneda;
+    private final BitSet disponible = new BitSet();
+    // Generation of the run holding the live entry of the row; generations only grow
+    private int[] generation;
+
+    // In (precio, id) order: the sorted column, the overlay frozen by a compaction in progress (null when none)
+    // and the overlay taking the writes
+    private Run sorted;
+    private Run frozen;
+    private Run overlay;
+
+    // Open addressing id -> ordinal + 1, zero is empty
+    private int[] slots;
+
+    private int size;
+
+    public DepartamentoColumns(int expectedRows) {
+        int capacity = Math.max(INITIAL_CAPACITY, expectedRows);
+        idMsb = new long[capacity];
+        idLsb = new long[capacity];
+        precio = new long[capacity];
+        moneda = new byte[capacity];
+        generation = new int[capacity];
+        sorted = new Run(capacity, 0, true);
+        overlay = new Run(INITIAL_OVERLAY_CAPACITY, 1, false);
+        slots = new int[tableSize(capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends a row known to sort after every row already present; used to load rows read in (precio, id)
+     * order, before any {@link #upsert}, without searching.
+     */
+    public void appendSorted(UUID id, boolean disponible, long precio, byte moneda) {
+        int ordinal = newOrdinal(id, disponible, precio, moneda);
+        generation[ordinal] = sorted.generation;
+        sorted.append(precio, ordinal);
+    }
+
+    public void upsert(UUID id, boolean disponible, long precio, byte moneda) {
+        int ordinal = ordinalOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (ordinal < 0) {
+            ordinal = newOrdinal(id, disponible, precio, moneda);
+            generation[ordinal] = overlay.generation;
+            overlay.insert(idMsb, idLsb, precio, ordinal);
+            return;
+        }
+        if (this.precio[ordinal] != precio) {
+            move(ordinal, precio);
+        }
+        this.disponible.set(ordinal, disponible);
+        this.moneda[ordinal] = moneda;
+    }
+
+    /**
+     * Ordinals of up to {@code limit} rows with a precio between the two bounds (inclusive) and, when
+     * {@code after} is given, after ({@code afterPrecio}, {@code after}), in (precio, id) order, that have the
+     * given availability (any when null).
+     */
+    public int[] select(Boolean disponible, long precioMin, long precioMax, long afterPrecio, UUID after, int limit) {
+        Run[] runs = frozen != null ? new Run[] { sorted, frozen, overlay } : new Run[] { sorted, overlay };
+        int[] positions = new int[runs.length];
+        int[] ends = new int[runs.length];
+        for (int run = 0; run < runs.length; run++) {
+            // The smallest id in unsigned order
+            positions[run] = runs[run].lowerBound(idMsb, idLsb, precioMin, 0, 0);
+            if (after != null) {
+                positions[run] = Math.max(positions[run], runs[run].positionAfter(idMsb, idLsb, afterPrecio, after));
+            }
+            ends[run] = precioMax == Long.MAX_VALUE ? runs[run].size : runs[run].lowerBound(idMsb, idLsb, precioMax + 1, 0, 0);
+        }
+
+        int[] matches = new int[Math.min(limit, INITIAL_CAPACITY)];
+        int count = 0;
+        while (count < limit) {
+            int next = -1;
+            for (int run = 0; run < runs.length; run++) {
+                while (positions[run] < ends[run] && !runs[run].isLive(generation, positions[run])) {
+                    positions[run]++;
+                }
+                if (positions[run] < ends[run]
+                        && (next < 0 || runs[run].compare(idMsb, idLsb, positions[run], runs[next], positions[next]) < 0)) {
+                    next = run;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            int ordinal = runs[next].ordinal[positions[next]++];
+            if (disponible == null || this.disponible.get(ordinal) == disponible) {
+                if (count == matches.length) {
+                    matches = Arrays.copyOf(matches, (int) Math.min(limit, matches.length * 2L));
+                }
+                matches[count++] = ordinal;
+            }
+        }
+        return count == matches.length ? matches : Arrays.copyOf(matches, count);
+    }
+
+    public UUID id(int ordinal) {
+        return new UUID(idMsb[ordinal], idLsb[ordinal]);
+    }
+
+    public long precio(int ordinal) {
+        return precio[ordinal];
+    }
+
+    public byte moneda(int ordinal) {
+        return moneda[ordinal];
+    }
+
+    public boolean disponible(int ordinal) {
+        return disponible.get(ordinal);
+    }
+
+    public boolean needsCompaction() {
+        return frozen == null && overlay.size >= COMPACTION_THRESHOLD;
+    }
+
+    /**
+     * Freezes the overlay and returns the merge of it into the sorted column, to {@link Compaction#run() run}
+     * without the lock that guards these columns. Writes meanwhile go to a fresh overlay.
+     */
+    public Compaction startCompaction() {
+        if (frozen != null) {
+            throw new IllegalStateException("Ya hay una compactacion en curso");
+        }
+        frozen = overlay;
+        overlay = new Run(INITIAL_OVERLAY_CAPACITY, frozen.generation + 1, false);
+        return new Compaction(sorted, frozen, generation, idMsb, idLsb);
+    }
+
+    // Ignored when these columns are no longer the ones the compaction started from
+    public void finishCompaction(Compaction compaction) {
+        if (compaction.frozen != frozen || compaction.merged == null) {
+            return;
+        }
+        sorted = compaction.merged;
+        frozen = null;
+    }
+
+    // Single-threaded callers
+    public void compact() {
+        Compaction compaction = startCompaction();
+        compaction.run();
+        finishCompaction(compaction);
+    }
+
+    private int newOrdinal(UUID id, boolean disponible, long precio, byte moneda) {
+        if (size == idMsb.length) {
+            grow();
+        }
+        int ordinal = size++;
+        idMsb[ordinal] = id.getMostSignificantBits();
+        idLsb[ordinal] = id.getLeastSignificantBits();
+        this.precio[ordinal] = precio;
+        this.moneda[ordinal] = moneda;
+        this.disponible.set(ordinal, disponible);
+        slots[freeSlot(idMsb[ordinal], idLsb[ordinal])] = ordinal + 1;
+        return ordinal;
+    }
+
+    // The entry in the sorted or frozen run becomes a tombstone; one in the overlay is replaced
+    private void move(int ordinal, long newPrecio) {
+        if (generation[ordinal] == overlay.generation) {
+            overlay.remove(idMsb, idLsb, precio[ordinal], ordinal);
+        } else {
+            generation[ordinal] = overlay.generation;
+        }
+        precio[ordinal] = newPrecio;
+        overlay.insert(idMsb, idLsb, newPrecio, ordinal);
+    }
+
+    // Ids compare as unsigned bytes, like PostgreSQL orders uuid (UUID.compareTo is signed)
+    private static int compare(long leftPrecio, long leftMsb, long leftLsb, long precio, long msb, long lsb) {
+        int byPrecio = Long.compare(leftPrecio, precio);
+        if (byPrecio != 0) {
+            return byPrecio;
+        }
+        int byMsb = Long.compareUnsigned(leftMsb, msb);
+        return byMsb != 0 ? byMsb : Long.compareUnsigned(leftLsb, lsb);
+    }
+
+    private int ordinalOf(long msb, long lsb) {
+        int mask = slots.length - 1;
+        for (int slot = hash(msb, lsb) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int ordinal = slots[slot] - 1;
+            if (idMsb[ordinal] == msb && idLsb[ordinal] == lsb) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    private int freeSlot(long msb, long lsb) {
+        int mask = slots.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Amortized over the rows added; a compaction in progress keeps reading the previous arrays
+    private void grow() {
+        int capacity = idMsb.length * 2;
+        idMsb = Arrays.copyOf(idMsb, capacity);
+        idLsb = Arrays.copyOf(idLsb, capacity);
+        precio = Arrays.copyOf(precio, capacity);
+        moneda = Arrays.copyOf(moneda, capacity);
+        generation = Arrays.copyOf(generation, capacity);
+        slots = new int[tableSize(capacity)];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            slots[freeSlot(idMsb[ordinal], idLsb[ordinal])] = ordinal + 1;
+        }
+    }
+
+    // At most half full
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long mixed = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    /**
+     * Merge of a frozen overlay into the sorted column, dropping tombstones. Reads only entries that no longer
+     * change and the generation of each row: a row moved while it runs has a newer generation than the merged
+     * run, so its entry is a tombstone there whether or not the merge saw the move.
+     */
+    public static final class Compaction {
+
+        private final Run sorted;
+        private final Run frozen;
+        private final int[] generation;
+        private final long[] idMsb;
+        private final long[] idLsb;
+        private Run merged;
+
+        private Compaction(Run sorted, Run frozen, int[] generation, long[] idMsb, long[] idLsb) {
+            this.sorted = sorted;
+            this.frozen = frozen;
+            this.generation = generation;
+            this.idMsb = idMsb;
+            this.idLsb = idLsb;
+        }
+
+        public void run() {
+            Run run = new Run(Math.max(1, sorted.size + frozen.size), frozen.generation, true);
+            int left = 0;
+            int right = 0;
+            while (true) {
+                while (left < sorted.size && !sorted.isLive(generation, left)) {
+                    left++;
+                }
+                while (right < frozen.size && !frozen.isLive(generation, right)) {
+                    right++;
+                }
+                if (left == sorted.size && right == frozen.size) {
+                    break;
+                }
+                if (right == frozen.size
+                        || (left < sorted.size && sorted.compare(idMsb, idLsb, left, frozen, right) < 0)) {
+                    run.append(sorted.precio[left], sorted.ordinal[left++]);
+                } else {
+                    run.append(frozen.precio[right], frozen.ordinal[right++]);
+                }
+            }
+            merged = run;
+        }
+    }
+
+    // Entries in (precio, id) order; an entry is live when the row's generation is that of the run (or older,
+    // for the sorted column, which holds every generation merged into it)
+    private static final class Run {
+
+        private long[] precio;
+        private int[] ordinal;
+        private int size;
+        private final int generation;
+        private final boolean cumulative;
+
+        private Run(int capacity, int generation, boolean cumulative) {
+            this.precio = new long[capacity];
+            this.ordinal = new int[capacity];
+            this.generation = generation;
+            this.cumulative = cumulative;
+        }
+
+        private boolean isLive(int[] generations, int position) {
+            int current = generations[ordinal[position]];
+            return cumulative ? current <= generation : current == generation;
+        }
+
+        private void append(long precio, int ordinal) {
+            if (size == this.precio.length) {
+                grow();
+            }
+            this.precio[size] = precio;
+            this.ordinal[size++] = ordinal;
+        }
+
+        private void insert(long[] idMsb, long[] idLsb, long precio, int ordinal) {
+            if (size == this.precio.length) {
+                grow();
+            }
+            int position = lowerBound(idMsb, idLsb, precio, idMsb[ordinal], idLsb[ordinal]);
+            System.arraycopy(this.precio, position, this.precio, position + 1, size - position);
+            System.arraycopy(this.ordinal, position, this.ordinal, position + 1, size - position);
+            this.precio[position] = precio;
+            this.ordinal[position] = ordinal;
+            size++;
+        }
+
+        private void remove(long[] idMsb, long[] idLsb, long precio, int ordinal) {
+            int position = lowerBound(idMsb, idLsb, precio, idMsb[ordinal], idLsb[ordinal]);
+            System.arraycopy(this.precio, position + 1, this.precio, position, size - 1 - position);
+            System.arraycopy(this.ordinal, position + 1, this.ordinal, position, size - 1 - position);
+            size--;
+        }
+
+        private int lowerBound(long[] idMsb, long[] idLsb, long precio, long msb, long lsb) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int entry = ordinal[middle];
+                if (DepartamentoColumns.compare(this.precio[middle], idMsb[entry], idLsb[entry], precio, msb, lsb) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        // First position strictly after the key
+        private int positionAfter(long[] idMsb, long[] idLsb, long precio, UUID id) {
+            long msb = id.getMostSignificantBits();
+            long lsb = id.getLeastSignificantBits();
+            int position = lowerBound(idMsb, idLsb, precio, msb, lsb);
+            if (position < size && this.precio[position] == precio
+                    && idMsb[ordinal[position]] == msb && idLsb[ordinal[position]] == lsb) {
+                position++;
+            }
+            return position;
+        }
+
+        private int compare(long[] idMsb, long[] idLsb, int position, Run other, int otherPosition) {
+            int entry = ordinal[position];
+            int otherEntry = other.ordinal[otherPosition];
+            return DepartamentoColumns.compare(precio[position], idMsb[entry], idLsb[entry],
+                    other.precio[otherPosition], idMsb[otherEntry], idLsb[otherEntry]);
+        }
+
+        private void grow() {
+            precio = Arrays.copyOf(precio, precio.length * 2);
+            ordinal = Arrays.copyOf(ordinal, ordinal.length * 2);
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.challenge.leban.readmodel;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * The words of titulo and direccion of every departamento, accent-folded and lowercased, for type-ahead. Each
+ * distinct word is a term stored once; the term ids are kept in a sorted array, so the terms starting with a prefix
+ * are a contiguous range found by binary search. Every term has the ordinals of its rows in ascending order, and
+ * every row keeps its term ids so a change only touches the terms that differ. Terms left without rows stay until
+ * the next load. Not thread-safe.
+ */
+public class DepartamentoPrefixIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int[] NO_ORDINALS = new int[0];
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // In too many rows to narrow a suggestion down; single letters are not indexed either
+    private static final Set<String> STOPWORDS = Set.of("al", "con", "de", "del", "el", "en", "entre", "la", "las",
+            "los", "para", "por", "un", "una");
+
+    // By term id
+    private String[] terms = new String[INITIAL_CAPACITY];
+    private OrdinalList[] postings = new OrdinalList[INITIAL_CAPACITY];
+    private int termCount;
+    // Term ids in term order
+    private int[] sortedTerms = new int[INITIAL_CAPACITY];
+
+    // By ordinal
+    private long[] idMsb;
+    private long[] idLsb;
+    private int[][] rowTerms;
+    private final BitSet disponible = new BitSet();
+
+    // Open addressing id -> ordinal + 1, zero is empty
+    private int[] slots;
+
+    private int size;
+
+    public DepartamentoPrefixIndex(int expectedRows) {
+        int capacity = Math.max(INITIAL_CAPACITY, expectedRows);
+        idMsb = new long[capacity];
+        idLsb = new long[capacity];
+        rowTerms = new int[capacity][];
+        slots = new int[tableSize(capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int termCount() {
+        return termCount;
+    }
+
+    public void upsert(UUID id, boolean disponible, String titulo, String direccion) {
+        int[] newTerms = termIds(titulo, direccion);
+        int ordinal = ordinalOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (ordinal < 0) {
+            ordinal = newOrdinal(id);
+            for (int term : newTerms) {
+                postings[term].add(ordinal);
+            }
+        } else {
+            int[] oldTerms = rowTerms[ordinal];
+            for (int term : oldTerms) {
+                if (!contains(newTerms, newTerms.length, term)) {
+                    postings[term].remove(ordinal);
+                }
+            }
+            for (int term : newTerms) {
+                if (!contains(oldTerms, oldTerms.length, term)) {
+                    postings[term].add(ordinal);
+                }
+            }
+        }
+        rowTerms[ordinal] = newTerms;
+        this.disponible.set(ordinal, disponible);
+    }
+
+    /**
+     * Ordinals of up to {@code limit} rows having a word that starts with the last word of {@code text} and every
+     * other word of it, available rows first. Within each group rows come in term order, then in ordinal order.
+     */
+    public int[] suggest(String text, int limit) {
+        List<String> words = words(text);
+        if (words.isEmpty()) {
+            return NO_ORDINALS;
+        }
+        String prefix = words.get(words.size() - 1);
+        int[] required = new int[words.size() - 1];
+        int requiredCount = 0;
+        for (String word : words.subList(0, words.size() - 1)) {
+            if (!isIndexed(word)) {
+                continue;
+            }
+            int term = termOf(word);
+            if (term < 0) {
+                return NO_ORDINALS;
+            }
+            if (!contains(required, requiredCount, term)) {
+                required[requiredCount++] = term;
+            }
+        }
+
+        int from = lowerBound(prefix);
+        int to = prefixEnd(prefix, from);
+        // Walk whichever is shorter: the rows of the rarest complete word, or those of every term in the range
+        int driver = -1;
+        long driverRows = Long.MAX_VALUE;
+        for (int i = 0; i < requiredCount; i++) {
+            if (postings[required[i]].size < driverRows) {
+                driver = required[i];
+                driverRows = postings[driver].size;
+            }
+        }
+        long rangeRows = 0;
+        for (int position = from; position < to && rangeRows < driverRows; position++) {
+            rangeRows += postings[sortedTerms[position]].size;
+        }
+
+        Suggestions suggestions = new Suggestions(limit);
+        if (rangeRows < driverRows) {
+            for (int position = from; position < to && !suggestions.isFull(); position++) {
+                OrdinalList rows = postings[sortedTerms[position]];
+                for (int i = 0; i < rows.size && !suggestions.isFull(); i++) {
+                    int ordinal = rows.values[i];
+                    if (hasAll(ordinal, required, requiredCount)) {
+                        suggestions.offer(ordinal, disponible.get(ordinal));
+                    }
+                }
+            }
+        } else {
+            OrdinalList rows = postings[driver];
+            for (int i = 0; i < rows.size && !suggestions.isFull(); i++) {
+                int ordinal = rows.values[i];
+                if (hasAll(ordinal, required, requiredCount) && hasPrefix(ordinal, prefix)) {
+                    suggestions.offer(ordinal, disponible.get(ordinal));
+                }
+            }
+        }
+        return suggestions.toArray();
+    }
+
+    public UUID id(int ordinal) {
+        return new UUID(idMsb[ordinal], idLsb[ordinal]);
+    }
+
+    public boolean disponible(int ordinal) {
+        return disponible.get(ordinal);
+    }
+
+    /**
+     * Accent-folded, lowercased words of the text in order; "Av. Núñez 1200" gives [av, nunez, 1200].
+     */
+    public static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        for (String word : SEPARATORS.split(folded)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static boolean isIndexed(String word) {
+        return word.length() > 1 && !STOPWORDS.contains(word);
+    }
+
+    // Distinct term ids of the indexed words, adding the terms not seen before
+    private int[] termIds(String titulo, String direccion) {
+        List<String> words = new ArrayList<>(words(titulo));
+        words.addAll(words(direccion));
+        int[] ids = new int[words.size()];
+        int count = 0;
+        for (String word : words) {
+            if (!isIndexed(word)) {
+                continue;
+            }
+            int term = termOf(word);
+            if (term < 0) {
+                term = newTerm(word);
+            }
+            if (!contains(ids, count, term)) {
+                ids[count++] = term;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private int termOf(String word) {
+        int position = lowerBound(word);
+        return position < termCount && terms[sortedTerms[position]].equals(word) ? sortedTerms[position] : -1;
+    }
+
+    private int newTerm(String word) {
+        if (termCount == terms.length) {
+            terms = Arrays.copyOf(terms, termCount * 2);
+            postings = Arrays.copyOf(postings, termCount * 2);
+            sortedTerms = Arrays.copyOf(sortedTerms, termCount * 2);
+        }
+        int term = termCount;
+        terms[term] = word;
+        postings[term] = new OrdinalList();
+        int position = lowerBound(word);
+        System.arraycopy(sortedTerms, position, sortedTerms, position + 1, termCount - position);
+        sortedTerms[position] = term;
+        termCount++;
+        return term;
+    }
+
+    // First position whose term is not before the word
+    private int lowerBound(String word) {
+        int low = 0;
+        int high = termCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (terms[sortedTerms[middle]].compareTo(word) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // The terms starting with the prefix are the ones right after its lower bound
+    private int prefixEnd(String prefix, int from) {
+        int low = from;
+        int high = termCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (terms[sortedTerms[middle]].startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean hasAll(int ordinal, int[] required, int requiredCount) {
+        int[] own = rowTerms[ordinal];
+        for (int i = 0; i < requiredCount; i++) {
+            if (!contains(own, own.length, required[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasPrefix(int ordinal, String prefix) {
+        for (int term : rowTerms[ordinal]) {
+            if (terms[term].startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int newOrdinal(UUID id) {
+        if (size == idMsb.length) {
+            grow();
+        }
+        int ordinal = size++;
+        idMsb[ordinal] = id.getMostSignificantBits();
+        idLsb[ordinal] = id.getLeastSignificantBits();
+        slots[freeSlot(idMsb[ordinal], idLsb[ordinal])] = ordinal + 1;
+        return ordinal;
+    }
+
+    private int ordinalOf(long msb, long lsb) {
+        int mask = slots.length - 1;
+        for (int slot = hash(msb, lsb) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int ordinal = slots[slot] - 1;
+            if (idMsb[ordinal] == msb && idLsb[ordinal] == lsb) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    private int freeSlot(long msb, long lsb) {
+        int mask = slots.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = idMsb.length * 2;
+        idMsb = Arrays.copyOf(idMsb, capacity);
+        idLsb = Arrays.copyOf(idLsb, capacity);
+        rowTerms = Arrays.copyOf(rowTerms, capacity);
+        slots = new int[tableSize(capacity)];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            slots[freeSlot(idMsb[ordinal], idLsb[ordinal])] = ordinal + 1;
+        }
+    }
+
+    // At most half full
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long mixed = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    // Sorted ordinals of the rows of one term; rows are mostly appended, since new rows get the highest ordinal
+    private static final class OrdinalList {
+
+        private int[] values = NO_ORDINALS;
+        private int size;
+
+        void add(int ordinal) {
+            int position = Arrays.binarySearch(values, 0, size, ordinal);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(4, size * 2));
+            }
+            System.arraycopy(values, position, values, position + 1, size - position);
+            values[position] = ordinal;
+            size++;
+        }
+
+        void remove(int ordinal) {
+            int position = Arrays.binarySearch(values, 0, size, ordinal);
+            if (position >= 0) {
+                System.arraycopy(values, position + 1, values, position, size - position - 1);
+                size--;
+            }
+        }
+    }
+
+    // Takes available rows until the limit; unavailable ones are kept aside to fill what is left at the end
+    private static final class Suggestions {
+
+        private final int[] available;
+        private final int[] unavailable;
+        private int availableCount;
+        private int unavailableCount;
+
+        Suggestions(int limit) {
+            available = new int[limit];
+            unavailable = new int[limit];
+        }
+
+        boolean isFull() {
+            return availableCount == available.length;
+        }
+
+        // A row reached through several terms of the range is offered more than once
+        void offer(int ordinal, boolean disponible) {
+            if (disponible) {
+                if (!contains(available, availableCount, ordinal)) {
+                    available[availableCount++] = ordinal;
+                }
+            } else if (unavailableCount < unavailable.length && !contains(unavailable, unavailableCount, ordinal)) {
+                unavailable[unavailableCount++] = ordinal;
+            }
+        }
+
+        int[] toArray() {
+            int count = Math.min(available.length, availableCount + unavailableCount);
+            int[] ordinals = Arrays.copyOf(available, count);
+            System.arraycopy(unavailable, 0, ordinals, availableCount, count - availableCount);
+            return ordinals;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.challenge.leban.readmodel;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.event.DepartamentoRemoteChangedEvent;
+import com.challenge.leban.event.DepartamentosBulkChangedEvent;
+import com.challenge.leban.event.DepartamentosResyncEvent;
+import com.challenge.leban.util.DepartamentoCursor;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Optional in-JVM read model for {@code filterDepartamentos} ({@code leban.read-model.enabled}). Loaded from
+ * the table in the background at startup and kept current from committed single-row writes; bulk writes and
+ * resyncs reload it. While a load is running {@link #isReady()} is false and callers use the database.
+ * It only selects ids: the rows themselves are still read from the database by primary key.
+ */
+@Log4j2
+@Component
+public class DepartamentoReadModel implements SmartLifecycle {
+
+    private static final Moneda[] MONEDAS = Moneda.values();
+    private static final String LOAD_SQL = "SELECT id, precio, moneda, disponible FROM departamento ORDER BY precio, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int fetchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private DepartamentoColumns columns = new DepartamentoColumns(0);
+    // Writes seen while a reload is reading the table, replayed onto the new columns; null when not reloading
+    private List<DepartamentoDto> changedDuringReload;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("departamento-read-model-loader").daemon().factory());
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    private final AtomicBoolean compactionPending = new AtomicBoolean();
+    private volatile boolean ready;
+    private volatile boolean running;
+
+    public DepartamentoReadModel(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+            @Value("${leban.read-model.enabled:false}") boolean enabled,
+            @Value("${leban.stream.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+
+        Gauge.builder("leban.read-model.rows", this, DepartamentoReadModel::size).register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ids of up to {@code limit} rows matching the filter, in (precio, id) order and after the cursor when given.
+     */
+    public List<UUID> select(DepartamentoFilter filter, DepartamentoCursor after, int limit) {
+        lock.readLock().lock();
+        try {
+            long precioMin = filter.precioMin() != null ? scale(filter.precioMin(), RoundingMode.CEILING) : Long.MIN_VALUE;
+            long precioMax = filter.precioMax() != null ? scale(filter.precioMax(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+            if (precioMin > precioMax) {
+                return List.of();
+            }
+            int[] ordinals = columns.select(filter.disponible(), precioMin, precioMax,
+                    after != null ? scale(after.precio(), RoundingMode.HALF_UP) : 0, after != null ? after.id() : null, limit);
+            List<UUID> ids = new ArrayList<>(ordinals.length);
+            for (int ordinal : ordinals) {
+                ids.add(columns.id(ordinal));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ahead of the filter cache invalidation, so a list reloaded right after it already sees the change
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartamentoChanged(DepartamentoChangedEvent event) {
+        if (enabled) {
+            apply(event.after());
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartamentosBulkChanged(DepartamentosBulkChangedEvent event) {
+        requestReload();
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onDepartamentoRemoteChanged(DepartamentoRemoteChangedEvent event) {
+        if (enabled && event.departamento() != null) {
+            apply(event.departamento());
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onDepartamentosResync(DepartamentosResyncEvent event) {
+        requestReload();
+    }
+
+    private void apply(DepartamentoDto departamento) {
+        lock.writeLock().lock();
+        try {
+            upsert(columns, departamento);
+            if (changedDuringReload != null) {
+                changedDuringReload.add(departamento);
+            }
+            if (columns.needsCompaction()) {
+                requestCompaction();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // On the loader thread, so it never overlaps a reload; requests while one is queued collapse into it
+    private void requestCompaction() {
+        if (running && compactionPending.compareAndSet(false, true)) {
+            loader.execute(() -> {
+                compactionPending.set(false);
+                compact();
+            });
+        }
+    }
+
+    // The merge runs without the lock: readers and writers only wait for the two swaps
+    void compact() {
+        DepartamentoColumns compacted;
+        DepartamentoColumns.Compaction compaction;
+        lock.writeLock().lock();
+        try {
+            compacted = columns;
+            if (!compacted.needsCompaction()) {
+                return;
+            }
+            compaction = compacted.startCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compaction.run();
+        lock.writeLock().lock();
+        try {
+            compacted.finishCompaction(compaction);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Callers use the database until the reload is in; requests while one is queued collapse into it
+    private void requestReload() {
+        if (!enabled || !running) {
+            return;
+        }
+        ready = false;
+        if (reloadPending.compareAndSet(false, true)) {
+            loader.execute(() -> {
+                reloadPending.set(false);
+                reload();
+            });
+        }
+    }
+
+    void reload() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            changedDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        DepartamentoColumns loaded = new DepartamentoColumns(size());
+        try {
+            // Read in index order, so the sorted column is built by appending
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(LOAD_SQL);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, resultSet -> {
+                loaded.appendSorted(UUID.fromString(resultSet.getString("id")), resultSet.getBoolean("disponible"),
+                        scale(resultSet.getBigDecimal("precio"), RoundingMode.HALF_UP),
+                        monedaCode(Moneda.valueOf(resultSet.getString("moneda"))));
+            });
+        } catch (RuntimeException e) {
+            log.error("No se pudo cargar el modelo de lectura", e);
+            lock.writeLock().lock();
+            try {
+                changedDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            changedDuringReload.forEach(departamento -> upsert(loaded, departamento));
+            changedDuringReload = null;
+            columns = loaded;
+            ready = true;
+            if (loaded.needsCompaction()) {
+                requestCompaction();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Modelo de lectura cargado: {} filas en {} ms", loaded.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void upsert(DepartamentoColumns columns, DepartamentoDto departamento) {
+        columns.upsert(UUID.fromString(departamento.getId()), departamento.isDisponible(),
+                scale(departamento.getPrecio(), RoundingMode.HALF_UP), monedaCode(departamento.getMoneda()));
+    }
+
+    // Whole cents, saturating outside the long range
+    static long scale(BigDecimal precio, RoundingMode rounding) {
+        BigDecimal scaled = precio.setScale(Departamento.PRECIO_SCALE, rounding).movePointRight(Departamento.PRECIO_SCALE);
+        if (scaled.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        return scaled.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) <= 0 ? Long.MIN_VALUE : scaled.longValue();
+    }
+
+    static byte monedaCode(Moneda moneda) {
+        return (byte) moneda.ordinal();
+    }
+
+    static Moneda moneda(byte code) {
+        return MONEDAS[code];
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        requestReload();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        loader.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
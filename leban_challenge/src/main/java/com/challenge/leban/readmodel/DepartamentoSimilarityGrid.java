@@ -0,0 +1,363 @@
+package com.challenge.leban.readmodel;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Every departamento as a point (ln precio, ln metros_cuadrados), so that distance measures relative differences
+ * (10% more expensive is as far as 10% larger) whatever the currency. Available rows are bucketed in a uniform grid
+ * per moneda, with cells in an open-addressing table keyed by (moneda, cell); the nearest neighbours of a row are
+ * searched in rings of cells around its own, stopping once no cell further out can be closer than the k-th found.
+ * Rows that are not available keep their point, so they can still be the origin of a search. Not thread-safe.
+ */
+public class DepartamentoSimilarityGrid {
+
+    // Cell side in log units: about 1% of price or area
+    static final double CELL = 0.01;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int[] NO_ORDINALS = new int[0];
+    private static final int COORDINATE_MASK = 0xFFFFFF;
+
+    // By ordinal
+    private long[] idMsb;
+    private long[] idLsb;
+    private double[] x;
+    private double[] y;
+    private byte[] moneda;
+    // Index of the cell holding the row, -1 when it is not in the grid
+    private int[] cellOf;
+
+    // Open addressing id -> ordinal + 1, zero is empty
+    private int[] slots;
+
+    // Open addressing cell key -> cell index + 1, zero is empty; cells are never removed until the next load
+    private long[] cellKeys;
+    private int[] cellSlots;
+    private int[][] cellRows = new int[INITIAL_CAPACITY][];
+    // Copies of the coordinates next to the ordinals, so a scan reads the cell sequentially
+    private double[][] cellX = new double[INITIAL_CAPACITY][];
+    private double[][] cellY = new double[INITIAL_CAPACITY][];
+    private int[] cellSizes = new int[INITIAL_CAPACITY];
+    private int[] cellsPerMoneda = new int[0];
+    private int cellCount;
+
+    private int size;
+
+    public DepartamentoSimilarityGrid(int expectedRows) {
+        int capacity = Math.max(INITIAL_CAPACITY, expectedRows);
+        idMsb = new long[capacity];
+        idLsb = new long[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        moneda = new byte[capacity];
+        cellOf = new int[capacity];
+        slots = new int[tableSize(capacity)];
+        cellKeys = new long[tableSize(INITIAL_CAPACITY)];
+        cellSlots = new int[cellKeys.length];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int cellCount() {
+        return cellCount;
+    }
+
+    // Prices and areas that are not positive (or NaN, for a missing area) have no point and never match
+    public void upsert(UUID id, boolean disponible, double precio, double metrosCuadrados, byte moneda) {
+        int ordinal = ordinalOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (ordinal < 0) {
+            ordinal = newOrdinal(id);
+        } else if (cellOf[ordinal] >= 0) {
+            removeFromCell(ordinal);
+        }
+        boolean hasPoint = precio > 0 && metrosCuadrados > 0;
+        x[ordinal] = hasPoint ? Math.log(precio) : Double.NaN;
+        y[ordinal] = hasPoint ? Math.log(metrosCuadrados) : Double.NaN;
+        this.moneda[ordinal] = moneda;
+        if (disponible && hasPoint) {
+            addToCell(ordinal);
+        }
+    }
+
+    /**
+     * Ordinals of up to {@code k} available rows of the same moneda closest to the given row, nearest first (ties
+     * by ordinal), without the row itself; null when the row is unknown.
+     */
+    public int[] nearest(UUID id, int k) {
+        int origin = ordinalOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (origin < 0) {
+            return null;
+        }
+        if (Double.isNaN(x[origin])) {
+            return NO_ORDINALS;
+        }
+        Neighbours neighbours = new Neighbours(k, origin);
+        byte code = moneda[origin];
+        int originX = cell(x[origin]);
+        int originY = cell(y[origin]);
+        int cells = code < cellsPerMoneda.length ? cellsPerMoneda[code] : 0;
+        int visited = 0;
+        int ring = 0;
+        // Every point of ring r is at least (r - 1) cells away from the origin, which lies inside ring 0
+        while (!(neighbours.isFull() && (ring - 1) * CELL > neighbours.farthest())) {
+            if (visited > cells) {
+                // The rings have looked up more cells than exist: scan the remaining ones directly
+                scanOutside(neighbours, code, originX, originY, ring - 1);
+                break;
+            }
+            if (ring == 0) {
+                scan(neighbours, cellIndex(key(code, originX, originY)));
+                visited++;
+            } else {
+                for (int offset = -ring; offset < ring; offset++) {
+                    scan(neighbours, cellIndex(key(code, originX + offset, originY - ring)));
+                    scan(neighbours, cellIndex(key(code, originX + ring, originY + offset)));
+                    scan(neighbours, cellIndex(key(code, originX - offset, originY + ring)));
+                    scan(neighbours, cellIndex(key(code, originX - ring, originY - offset)));
+                }
+                visited += 8 * ring;
+            }
+            ring++;
+        }
+        return neighbours.toArray();
+    }
+
+    public UUID id(int ordinal) {
+        return new UUID(idMsb[ordinal], idLsb[ordinal]);
+    }
+
+    static int cell(double coordinate) {
+        return (int) Math.floor(coordinate / CELL);
+    }
+
+    private void scan(Neighbours neighbours, int cell) {
+        if (cell < 0) {
+            return;
+        }
+        double originX = x[neighbours.origin];
+        double originY = y[neighbours.origin];
+        int[] rows = cellRows[cell];
+        double[] xs = cellX[cell];
+        double[] ys = cellY[cell];
+        for (int i = 0; i < cellSizes[cell]; i++) {
+            double dx = xs[i] - originX;
+            double dy = ys[i] - originY;
+            neighbours.offer(rows[i], Math.sqrt(dx * dx + dy * dy));
+        }
+    }
+
+    // Cells of the moneda beyond the given ring that may still hold a closer row
+    private void scanOutside(Neighbours neighbours, byte code, int originX, int originY, int ring) {
+        for (int slot = 0; slot < cellKeys.length; slot++) {
+            if (cellSlots[slot] == 0 || (byte) (cellKeys[slot] >>> 48) != code) {
+                continue;
+            }
+            int cellX = signed(cellKeys[slot] >>> 24);
+            int cellY = signed(cellKeys[slot]);
+            int distance = Math.max(Math.abs(cellX - originX), Math.abs(cellY - originY));
+            if (distance > ring && !(neighbours.isFull() && (distance - 1) * CELL > neighbours.farthest())) {
+                scan(neighbours, cellSlots[slot] - 1);
+            }
+        }
+    }
+
+    private void addToCell(int ordinal) {
+        long key = key(moneda[ordinal], cell(x[ordinal]), cell(y[ordinal]));
+        int cell = cellIndex(key);
+        if (cell < 0) {
+            cell = newCell(key, moneda[ordinal]);
+        }
+        int position = cellSizes[cell]++;
+        if (position == cellRows[cell].length) {
+            cellRows[cell] = Arrays.copyOf(cellRows[cell], position * 2);
+            cellX[cell] = Arrays.copyOf(cellX[cell], position * 2);
+            cellY[cell] = Arrays.copyOf(cellY[cell], position * 2);
+        }
+        cellRows[cell][position] = ordinal;
+        cellX[cell][position] = x[ordinal];
+        cellY[cell][position] = y[ordinal];
+        cellOf[ordinal] = cell;
+    }
+
+    // Cells are small, so a linear search and a swap with the last row are enough
+    private void removeFromCell(int ordinal) {
+        int cell = cellOf[ordinal];
+        int[] rows = cellRows[cell];
+        for (int i = 0; i < cellSizes[cell]; i++) {
+            if (rows[i] == ordinal) {
+                int last = --cellSizes[cell];
+                rows[i] = rows[last];
+                cellX[cell][i] = cellX[cell][last];
+                cellY[cell][i] = cellY[cell][last];
+                break;
+            }
+        }
+        cellOf[ordinal] = -1;
+    }
+
+    private static long key(byte moneda, int cellX, int cellY) {
+        return ((long) moneda << 48) | ((long) (cellX & COORDINATE_MASK) << 24) | (cellY & COORDINATE_MASK);
+    }
+
+    // Sign-extends a 24-bit cell coordinate
+    private static int signed(long bits) {
+        return ((int) bits & COORDINATE_MASK) << 8 >> 8;
+    }
+
+    private int cellIndex(long key) {
+        int mask = cellKeys.length - 1;
+        for (int slot = hash(key) & mask; cellSlots[slot] != 0; slot = (slot + 1) & mask) {
+            if (cellKeys[slot] == key) {
+                return cellSlots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private int newCell(long key, byte code) {
+        if (cellCount == cellRows.length) {
+            cellRows = Arrays.copyOf(cellRows, cellCount * 2);
+            cellX = Arrays.copyOf(cellX, cellCount * 2);
+            cellY = Arrays.copyOf(cellY, cellCount * 2);
+            cellSizes = Arrays.copyOf(cellSizes, cellCount * 2);
+        }
+        if (cellCount * 2 >= cellKeys.length) {
+            long[] oldKeys = cellKeys;
+            int[] oldSlots = cellSlots;
+            cellKeys = new long[oldKeys.length * 2];
+            cellSlots = new int[oldKeys.length * 2];
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldSlots[slot] != 0) {
+                    int free = freeCellSlot(oldKeys[slot]);
+                    cellKeys[free] = oldKeys[slot];
+                    cellSlots[free] = oldSlots[slot];
+                }
+            }
+        }
+        int cell = cellCount++;
+        cellRows[cell] = new int[4];
+        cellX[cell] = new double[4];
+        cellY[cell] = new double[4];
+        int free = freeCellSlot(key);
+        cellKeys[free] = key;
+        cellSlots[free] = cell + 1;
+        if (code >= cellsPerMoneda.length) {
+            cellsPerMoneda = Arrays.copyOf(cellsPerMoneda, code + 1);
+        }
+        cellsPerMoneda[code]++;
+        return cell;
+    }
+
+    private int freeCellSlot(long key) {
+        int mask = cellKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (cellSlots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int newOrdinal(UUID id) {
+        if (size == idMsb.length) {
+            grow();
+        }
+        int ordinal = size++;
+        idMsb[ordinal] = id.getMostSignificantBits();
+        idLsb[ordinal] = id.getLeastSignificantBits();
+        cellOf[ordinal] = -1;
+        slots[freeSlot(idMsb[ordinal], idLsb[ordinal])] = ordinal + 1;
+        return ordinal;
+    }
+
+    private int ordinalOf(long msb, long lsb) {
+        int mask = slots.length - 1;
+        for (int slot = hash(msb ^ lsb) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int ordinal = slots[slot] - 1;
+            if (idMsb[ordinal] == msb && idLsb[ordinal] == lsb) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    private int freeSlot(long msb, long lsb) {
+        int mask = slots.length - 1;
+        int slot = hash(msb ^ lsb) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = idMsb.length * 2;
+        idMsb = Arrays.copyOf(idMsb, capacity);
+        idLsb = Arrays.copyOf(idLsb, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        moneda = Arrays.copyOf(moneda, capacity);
+        cellOf = Arrays.copyOf(cellOf, capacity);
+        slots = new int[tableSize(capacity)];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            slots[freeSlot(idMsb[ordinal], idLsb[ordinal])] = ordinal + 1;
+        }
+    }
+
+    // At most half full
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private static int hash(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    // The k closest rows seen so far, kept sorted by (distance, ordinal); k is small
+    private static final class Neighbours {
+
+        private final int origin;
+        private final int[] ordinals;
+        private final double[] distances;
+        private int count;
+
+        Neighbours(int k, int origin) {
+            this.origin = origin;
+            ordinals = new int[k];
+            distances = new double[k];
+        }
+
+        boolean isFull() {
+            return count == ordinals.length;
+        }
+
+        double farthest() {
+            return distances[count - 1];
+        }
+
+        void offer(int ordinal, double distance) {
+            if (ordinal == origin || (isFull() && !closer(distance, ordinal, count - 1))) {
+                return;
+            }
+            int position = isFull() ? count - 1 : count++;
+            while (position > 0 && closer(distance, ordinal, position - 1)) {
+                ordinals[position] = ordinals[position - 1];
+                distances[position] = distances[position - 1];
+                position--;
+            }
+            ordinals[position] = ordinal;
+            distances[position] = distance;
+        }
+
+        private boolean closer(double distance, int ordinal, int position) {
+            return distance < distances[position] || (distance == distances[position] && ordinal < ordinals[position]);
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ordinals, count);
+        }
+    }
+}
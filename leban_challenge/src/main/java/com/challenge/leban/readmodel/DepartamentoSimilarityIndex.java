@@ -0,0 +1,233 @@
+package com.challenge.leban.readmodel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.event.DepartamentoRemoteChangedEvent;
+import com.challenge.leban.event.DepartamentosBulkChangedEvent;
+import com.challenge.leban.event.DepartamentosResyncEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * In-JVM grid over (precio, metros_cuadrados) for {@code /api/departamentos/{id}/similar}
+ * ({@code leban.similar.enabled}). Loaded and maintained like {@link DepartamentoSuggestIndex}: in the background
+ * at startup, from committed single-row writes, and rebuilt on bulk writes and resyncs while the previous grid keeps
+ * answering. It only selects ids.
+ */
+@Log4j2
+@Component
+public class DepartamentoSimilarityIndex implements SmartLifecycle {
+
+    private static final String COLUMNS = "SELECT id, precio, moneda, metros_cuadrados, disponible FROM departamento";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int fetchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private DepartamentoSimilarityGrid grid = new DepartamentoSimilarityGrid(0);
+    // Writes seen while a reload is reading the table, replayed onto the new grid; null when not reloading
+    private List<DepartamentoDto> changedDuringReload;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("departamento-similarity-loader").daemon().factory());
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    private volatile boolean ready;
+    private volatile boolean running;
+
+    public DepartamentoSimilarityIndex(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+            @Value("${leban.similar.enabled:true}") boolean enabled,
+            @Value("${leban.stream.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+
+        Gauge.builder("leban.similar.cells", this, DepartamentoSimilarityIndex::cellCount).register(meterRegistry);
+    }
+
+    // False until the first load is in
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ids of up to {@code k} available departamentos in the same moneda nearest in precio and metros_cuadrados to
+     * the given one, nearest first; null when the departamento is not known.
+     */
+    public List<UUID> nearest(UUID id, int k) {
+        lock.readLock().lock();
+        try {
+            int[] ordinals = grid.nearest(id, k);
+            if (ordinals == null) {
+                return null;
+            }
+            List<UUID> ids = new ArrayList<>(ordinals.length);
+            for (int ordinal : ordinals) {
+                ids.add(grid.id(ordinal));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return grid.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int cellCount() {
+        lock.readLock().lock();
+        try {
+            return grid.cellCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartamentoChanged(DepartamentoChangedEvent event) {
+        DepartamentoDto before = event.before();
+        DepartamentoDto after = event.after();
+        // Text-only updates leave the point where it was; rows written outside the API may have no area
+        if (enabled && (before == null || before.isDisponible() != after.isDisponible()
+                || before.getMoneda() != after.getMoneda()
+                || before.getPrecio().compareTo(after.getPrecio()) != 0
+                || !Objects.equals(before.getMetros_cuadrados(), after.getMetros_cuadrados()))) {
+            apply(after);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartamentosBulkChanged(DepartamentosBulkChangedEvent event) {
+        requestReload();
+    }
+
+    @EventListener
+    public void onDepartamentoRemoteChanged(DepartamentoRemoteChangedEvent event) {
+        if (enabled && event.departamento() != null) {
+            apply(event.departamento());
+        }
+    }
+
+    @EventListener
+    public void onDepartamentosResync(DepartamentosResyncEvent event) {
+        requestReload();
+    }
+
+    private void apply(DepartamentoDto departamento) {
+        lock.writeLock().lock();
+        try {
+            upsert(grid, departamento);
+            if (changedDuringReload != null) {
+                changedDuringReload.add(departamento);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Requests while one is queued collapse into it
+    private void requestReload() {
+        if (!enabled || !running) {
+            return;
+        }
+        if (reloadPending.compareAndSet(false, true)) {
+            loader.execute(() -> {
+                reloadPending.set(false);
+                reload();
+            });
+        }
+    }
+
+    void reload() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            changedDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        DepartamentoSimilarityGrid loaded = new DepartamentoSimilarityGrid(size());
+        try {
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(COLUMNS);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, resultSet -> {
+                Float metrosCuadrados = resultSet.getObject("metros_cuadrados", Float.class);
+                loaded.upsert(UUID.fromString(resultSet.getString("id")), resultSet.getBoolean("disponible"),
+                        resultSet.getDouble("precio"), metrosCuadrados != null ? metrosCuadrados : Double.NaN,
+                        DepartamentoReadModel.monedaCode(Moneda.valueOf(resultSet.getString("moneda"))));
+            });
+        } catch (RuntimeException e) {
+            log.error("No se pudo cargar el indice de similares", e);
+            lock.writeLock().lock();
+            try {
+                changedDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            changedDuringReload.forEach(departamento -> upsert(loaded, departamento));
+            changedDuringReload = null;
+            grid = loaded;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indice de similares cargado: {} filas, {} celdas en {} ms", loaded.size(), loaded.cellCount(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // A row without area has no point: it leaves the grid and has no similar ones
+    private static void upsert(DepartamentoSimilarityGrid grid, DepartamentoDto departamento) {
+        Float metrosCuadrados = departamento.getMetros_cuadrados();
+        grid.upsert(UUID.fromString(departamento.getId()), departamento.isDisponible(),
+                departamento.getPrecio().doubleValue(), metrosCuadrados != null ? metrosCuadrados : Double.NaN,
+                DepartamentoReadModel.monedaCode(departamento.getMoneda()));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        requestReload();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        loader.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
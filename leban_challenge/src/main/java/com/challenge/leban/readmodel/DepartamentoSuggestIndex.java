@@ -0,0 +1,222 @@
+package com.challenge.leban.readmodel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.event.DepartamentoRemoteChangedEvent;
+import com.challenge.leban.event.DepartamentosBulkChangedEvent;
+import com.challenge.leban.event.DepartamentosResyncEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * In-JVM prefix index over titulo and direccion for {@code /api/departamentos/suggest}
+ * ({@code leban.suggest.enabled}). Loaded from the table in the background at startup and kept current from
+ * committed single-row writes; bulk writes and resyncs rebuild it while the previous one keeps answering, since a
+ * suggestion a moment out of date is harmless. Like the read model it only selects ids.
+ */
+@Log4j2
+@Component
+public class DepartamentoSuggestIndex implements SmartLifecycle {
+
+    private static final String LOAD_SQL = "SELECT id, titulo, direccion, disponible FROM departamento";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int fetchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private DepartamentoPrefixIndex index = new DepartamentoPrefixIndex(0);
+    // Writes seen while a reload is reading the table, replayed onto the new index; null when not reloading
+    private List<DepartamentoDto> changedDuringReload;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("departamento-suggest-loader").daemon().factory());
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    private volatile boolean ready;
+    private volatile boolean running;
+
+    public DepartamentoSuggestIndex(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+            @Value("${leban.suggest.enabled:true}") boolean enabled,
+            @Value("${leban.stream.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+
+        Gauge.builder("leban.suggest.terms", this, DepartamentoSuggestIndex::termCount).register(meterRegistry);
+    }
+
+    // False until the first load is in
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ids of up to {@code limit} departamentos matching the typed text, available ones first.
+     */
+    public List<UUID> suggest(String text, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] ordinals = index.suggest(text, limit);
+            List<UUID> ids = new ArrayList<>(ordinals.length);
+            for (int ordinal : ordinals) {
+                ids.add(index.id(ordinal));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int termCount() {
+        lock.readLock().lock();
+        try {
+            return index.termCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartamentoChanged(DepartamentoChangedEvent event) {
+        DepartamentoDto before = event.before();
+        DepartamentoDto after = event.after();
+        // Most updates touch neither text nor availability
+        if (enabled && (before == null || before.isDisponible() != after.isDisponible()
+                || !Objects.equals(before.getTitulo(), after.getTitulo())
+                || !Objects.equals(before.getDireccion(), after.getDireccion()))) {
+            apply(after);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartamentosBulkChanged(DepartamentosBulkChangedEvent event) {
+        requestReload();
+    }
+
+    @EventListener
+    public void onDepartamentoRemoteChanged(DepartamentoRemoteChangedEvent event) {
+        if (enabled && event.departamento() != null) {
+            apply(event.departamento());
+        }
+    }
+
+    @EventListener
+    public void onDepartamentosResync(DepartamentosResyncEvent event) {
+        requestReload();
+    }
+
+    private void apply(DepartamentoDto departamento) {
+        lock.writeLock().lock();
+        try {
+            upsert(index, departamento);
+            if (changedDuringReload != null) {
+                changedDuringReload.add(departamento);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Requests while one is queued collapse into it
+    private void requestReload() {
+        if (!enabled || !running) {
+            return;
+        }
+        if (reloadPending.compareAndSet(false, true)) {
+            loader.execute(() -> {
+                reloadPending.set(false);
+                reload();
+            });
+        }
+    }
+
+    void reload() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            changedDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        DepartamentoPrefixIndex loaded = new DepartamentoPrefixIndex(size());
+        try {
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(LOAD_SQL);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, resultSet -> {
+                loaded.upsert(UUID.fromString(resultSet.getString("id")), resultSet.getBoolean("disponible"),
+                        resultSet.getString("titulo"), resultSet.getString("direccion"));
+            });
+        } catch (RuntimeException e) {
+            log.error("No se pudo cargar el indice de sugerencias", e);
+            lock.writeLock().lock();
+            try {
+                changedDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            changedDuringReload.forEach(departamento -> upsert(loaded, departamento));
+            changedDuringReload = null;
+            index = loaded;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indice de sugerencias cargado: {} filas, {} terminos en {} ms", loaded.size(), loaded.termCount(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void upsert(DepartamentoPrefixIndex index, DepartamentoDto departamento) {
+        index.upsert(UUID.fromString(departamento.getId()), departamento.isDisponible(), departamento.getTitulo(),
+                departamento.getDireccion());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        requestReload();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        loader.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -1,14 +1,29 @@
 package com.challenge.leban.repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.UUID;
 
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 import org.springframework.data.jpa.domain.Specification;
 
+import com.challenge.leban.config.CotizacionFunctionContributor;
+import com.challenge.leban.config.KeysetFunctionContributor;
+import com.challenge.leban.config.SearchFunctionContributor;
+import com.challenge.leban.dto.DepartamentoFilter;
 import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.util.DepartamentoCursor;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
 
 public class DepartamentoSpecifications {
 
     private static final String PRECIO_FIELD = "precio";
+    private static final String PRECIO_ARS_FIELD = "precioArs";
+    private static final String ID_FIELD = "id";
+    private static final String BUSQUEDA_FIELD = "busqueda";
 
     private DepartamentoSpecifications() {
         // Utility class
@@ -41,6 +56,25 @@ public class DepartamentoSpecifications {
         };
     }
 
+    // precioMin in the given currency, converted to pesos by the query itself
+    public static Specification<Departamento> precioArsGreaterThanOrEqualTo(BigDecimal precioMin, Moneda moneda) {
+        return (root, query, criteriaBuilder) -> {
+            if (precioMin == null) {
+                return criteriaBuilder.conjunction();
+            }
+            return criteriaBuilder.greaterThanOrEqualTo(root.get(PRECIO_ARS_FIELD), toArs(criteriaBuilder, precioMin, moneda));
+        };
+    }
+
+    public static Specification<Departamento> precioArsLessThanOrEqualTo(BigDecimal precioMax, Moneda moneda) {
+        return (root, query, criteriaBuilder) -> {
+            if (precioMax == null) {
+                return criteriaBuilder.conjunction();
+            }
+            return criteriaBuilder.lessThanOrEqualTo(root.get(PRECIO_ARS_FIELD), toArs(criteriaBuilder, precioMax, moneda));
+        };
+    }
+
     public static Specification<Departamento> precioRange(BigDecimal precioMin, BigDecimal precioMax) {
         return (root, query, criteriaBuilder) -> {
             if (precioMin == null || precioMax == null) {
@@ -52,4 +86,65 @@ public class DepartamentoSpecifications {
             return criteriaBuilder.between(root.get(PRECIO_FIELD), precioMin, precioMax);
         };
     }
-}
\ No newline at end of file
+
+    public static Specification<Departamento> matches(DepartamentoFilter filter) {
+        return hasDisponible(filter.disponible())
+                .and(precioGreaterThanOrEqualTo(filter.precioMin()))
+                .and(precioLessThanOrEqualTo(filter.precioMax()));
+    }
+
+    /**
+     * Like {@link #matches(DepartamentoFilter)} for a filter in a currency, on the prices normalized to pesos.
+     * The bounds are converted with the rate the same statement reads, so they always agree with the
+     * {@code precio_ars} it compares them to.
+     */
+    public static Specification<Departamento> matchesInMoneda(DepartamentoFilter filter) {
+        return hasDisponible(filter.disponible())
+                .and(precioArsGreaterThanOrEqualTo(filter.precioMin(), filter.moneda()))
+                .and(precioArsLessThanOrEqualTo(filter.precioMax(), filter.moneda()));
+    }
+
+    private static Expression<BigDecimal> toArs(CriteriaBuilder criteriaBuilder, BigDecimal precio, Moneda moneda) {
+        HibernateCriteriaBuilder builder = (HibernateCriteriaBuilder) criteriaBuilder;
+        return builder.function(CotizacionFunctionContributor.TO_ARS, BigDecimal.class, builder.value(precio),
+                builder.value(moneda.name()));
+    }
+
+    // Full-text match on the generated busqueda column, served by its GIN index
+    public static Specification<Departamento> matchesText(String q) {
+        return (root, query, criteriaBuilder) -> {
+            if (q == null) {
+                return criteriaBuilder.conjunction();
+            }
+            return criteriaBuilder.isTrue(criteriaBuilder.function(SearchFunctionContributor.MATCHES, Boolean.class,
+                    root.get(BUSQUEDA_FIELD), ((HibernateCriteriaBuilder) criteriaBuilder).value(q)));
+        };
+    }
+
+    public static Specification<Departamento> idIn(Collection<UUID> ids) {
+        return (root, query, criteriaBuilder) -> root.get(ID_FIELD).in(ids);
+    }
+
+    // Keyset position over (precio, id)
+    public static Specification<Departamento> afterCursor(DepartamentoCursor cursor) {
+        return afterCursor(PRECIO_FIELD, cursor);
+    }
+
+    // Keyset position over (precio_ars, id), for pages sorted in a currency
+    public static Specification<Departamento> afterPrecioArsCursor(DepartamentoCursor cursor) {
+        return afterCursor(PRECIO_ARS_FIELD, cursor);
+    }
+
+    // Row-value comparison, so the scan of the (precio, id) or (precio_ars, id) index starts right after the cursor
+    private static Specification<Departamento> afterCursor(String precioField, DepartamentoCursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            if (cursor == null) {
+                return criteriaBuilder.conjunction();
+            }
+            HibernateCriteriaBuilder builder = (HibernateCriteriaBuilder) criteriaBuilder;
+            return builder.isTrue(builder.function(KeysetFunctionContributor.AFTER, Boolean.class,
+                    root.get(precioField), root.get(ID_FIELD), builder.value(cursor.precio()),
+                    builder.value(cursor.id())));
+        };
+    }
+}
@@ -1,11 +1,13 @@
 package com.challenge.leban.repository;
 
+import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import com.challenge.leban.entity.Departamento;
 
-public interface IDepartamentoRepository extends JpaRepository<Departamento, String>, JpaSpecificationExecutor<Departamento> {
+public interface IDepartamentoRepository extends JpaRepository<Departamento, UUID>, JpaSpecificationExecutor<Departamento>,
+        IDepartamentoRepositoryCustom {
 
 }
@@ -0,0 +1,57 @@
+package com.challenge.leban.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.DepartamentoListVersion;
+import com.challenge.leban.dto.DepartamentoPrecioArsRow;
+import com.challenge.leban.dto.DepartamentoSearchRow;
+import com.challenge.leban.dto.DepartamentoSyncRow;
+import com.challenge.leban.dto.DepartamentoUpdateResult;
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.util.DepartamentoSearchCursor;
+import com.challenge.leban.util.DepartamentoSyncToken;
+
+public interface IDepartamentoRepositoryCustom {
+
+    Stream<Departamento> streamAll(Specification<Departamento> spec);
+
+    List<DepartamentoDto> findAllDtos(Specification<Departamento> spec);
+
+    List<DepartamentoDto> findAllDtos(Specification<Departamento> spec, Sort sort, int limit);
+
+    /**
+     * Rows matching the specification in (precio_ars, id) order, each with the precio_ars it was sorted by, so
+     * the next keyset position is the stored value rather than one recomputed from a rate read elsewhere.
+     */
+    List<DepartamentoPrecioArsRow> findAllInPesos(Specification<Departamento> spec, int limit);
+
+    /**
+     * Rows matching the specification and the text {@code q}, most relevant first (ties by id), after the
+     * cursor when given.
+     */
+    List<DepartamentoSearchRow> search(Specification<Departamento> spec, String q, DepartamentoSearchCursor after,
+            int limit);
+
+    DepartamentoListVersion findListVersion(Specification<Departamento> spec);
+
+    /**
+     * Overwrites the row in a single statement, only if its version is {@code expectedVersion} (any version when
+     * null). Empty when the row does not exist.
+     */
+    Optional<DepartamentoUpdateResult> updateIfVersion(UUID id, DepartamentoDto data, Long expectedVersion);
+
+    /**
+     * Rows and deletions after the (changeXid, id) watermark, in commit order, from the beginning when
+     * {@code after} is null. Changes from transactions that may still be followed by an older open one are held
+     * back.
+     */
+    List<DepartamentoSyncRow> findChangesAfter(DepartamentoSyncToken after, int limit);
+
+}
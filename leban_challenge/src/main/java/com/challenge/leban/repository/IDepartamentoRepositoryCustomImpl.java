@@ -0,0 +1,328 @@
+package com.challenge.leban.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaExpression;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.challenge.leban.config.SearchFunctionContributor;
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.DepartamentoListVersion;
+import com.challenge.leban.dto.DepartamentoPrecioArsRow;
+import com.challenge.leban.dto.DepartamentoSearchRow;
+import com.challenge.leban.dto.DepartamentoSyncRow;
+import com.challenge.leban.dto.DepartamentoUpdateResult;
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.util.DepartamentoSearchCursor;
+import com.challenge.leban.util.DepartamentoSyncToken;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+public class IDepartamentoRepositoryCustomImpl implements IDepartamentoRepositoryCustom {
+
+    // The CTE locks and returns the current row, so the previous values come back in the same round trip.
+    // The version check is on the updated table itself, which PostgreSQL re-evaluates against the latest
+    // committed row when a concurrent writer got there first. updated_at is bound from the application clock,
+    // like @UpdateTimestamp on the entity paths, so ETags and Last-Modified compare stamps from a single clock.
+    private static final String CONDITIONAL_UPDATE = """
+            WITH current_row AS (
+                SELECT titulo, descripcion, precio, moneda, metros_cuadrados, direccion, disponible, version
+                FROM departamento
+                WHERE id = :id
+                FOR UPDATE
+            ), updated AS (
+                UPDATE departamento d SET
+                    titulo = :titulo,
+                    descripcion = :descripcion,
+                    precio = :precio,
+                    moneda = :moneda,
+                    metros_cuadrados = :metrosCuadrados,
+                    direccion = :direccion,
+                    disponible = :disponible,
+                    version = d.version + 1,
+                    updated_at = :updatedAt
+                WHERE d.id = :id %s
+                RETURNING d.version
+            )
+            SELECT c.titulo, c.descripcion, c.precio, c.moneda, c.metros_cuadrados, c.direccion, c.disponible,
+                    c.version, u.version AS new_version
+            FROM current_row c LEFT JOIN updated u ON true""";
+
+    // Each branch is a range scan in (change_xid, id) order on its own index; only the small merged result is
+    // sorted. The horizon comes from the snapshot of this same statement: everything written by a transaction
+    // older than the oldest one still running is already visible, and nothing can be committed behind it later.
+    private static final String CHANGES_AFTER = """
+            WITH horizon AS (
+                SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint AS xid
+            )
+            SELECT * FROM (
+                (SELECT d.id, d.change_xid, false AS eliminado, d.titulo, d.descripcion, d.precio, d.moneda,
+                        d.metros_cuadrados, d.direccion, d.disponible, d.version
+                FROM departamento d
+                WHERE d.change_xid < (SELECT xid FROM horizon) %1$s
+                ORDER BY d.change_xid, d.id
+                LIMIT :limit)
+                UNION ALL
+                (SELECT t.id, t.change_xid, true, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL
+                FROM departamento_tombstone t
+                WHERE t.change_xid < (SELECT xid FROM horizon) %2$s
+                ORDER BY t.change_xid, t.id
+                LIMIT :limit)
+            ) c
+            ORDER BY change_xid, id
+            LIMIT :limit""";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${leban.stream.fetch-size:500}")
+    private int fetchSize;
+
+    @Override
+    public Stream<Departamento> streamAll(Specification<Departamento> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Departamento> query = criteriaBuilder.createQuery(Departamento.class);
+        Root<Departamento> root = query.from(Departamento.class);
+        query.select(root).where(spec.toPredicate(root, query, criteriaBuilder));
+
+        // Rows are detached as soon as they are handed out so the persistence context never grows
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(departamento -> {
+                    entityManager.detach(departamento);
+                    return departamento;
+                });
+    }
+
+    @Override
+    public List<DepartamentoDto> findAllDtos(Specification<Departamento> spec) {
+        return createDtoQuery(spec, Sort.unsorted()).getResultList();
+    }
+
+    @Override
+    public List<DepartamentoDto> findAllDtos(Specification<Departamento> spec, Sort sort, int limit) {
+        return createDtoQuery(spec, sort).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<DepartamentoPrecioArsRow> findAllInPesos(Specification<Departamento> spec, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Departamento> root = query.from(Departamento.class);
+        List<Selection<?>> selections = dtoSelections(root);
+        selections.add(root.get("precioArs").alias("precio_ars"));
+        query.multiselect(selections)
+                .where(spec.toPredicate(root, query, criteriaBuilder))
+                .orderBy(criteriaBuilder.asc(root.get("precioArs")), criteriaBuilder.asc(root.get("id")));
+
+        List<Tuple> rows = entityManager.createQuery(query).setMaxResults(limit).getResultList();
+        List<DepartamentoPrecioArsRow> page = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            page.add(new DepartamentoPrecioArsRow(row.get("precio_ars", BigDecimal.class), toDto(row)));
+        }
+        return page;
+    }
+
+    // The rank is computed once per matching row, in the same query as the filters; the keyset skips what the
+    // previous pages returned instead of an OFFSET
+    @Override
+    public List<DepartamentoSearchRow> search(Specification<Departamento> spec, String q, DepartamentoSearchCursor after,
+            int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Departamento> root = query.from(Departamento.class);
+        Expression<Float> rank = criteriaBuilder.function(SearchFunctionContributor.RANK, Float.class,
+                root.get("busqueda"), ((HibernateCriteriaBuilder) criteriaBuilder).value(q));
+        List<Selection<?>> selections = dtoSelections(root);
+        selections.add(rank.alias("rank"));
+        query.multiselect(selections);
+        Predicate where = spec.toPredicate(root, query, criteriaBuilder);
+        if (after != null) {
+            where = criteriaBuilder.and(where, criteriaBuilder.or(
+                    criteriaBuilder.lessThan(rank, after.rank()),
+                    criteriaBuilder.and(
+                            criteriaBuilder.equal(rank, after.rank()),
+                            criteriaBuilder.greaterThan(root.get("id"), after.id()))));
+        }
+        query.where(where).orderBy(criteriaBuilder.desc(rank), criteriaBuilder.asc(root.get("id")));
+
+        List<Tuple> rows = entityManager.createQuery(query).setMaxResults(limit).getResultList();
+        List<DepartamentoSearchRow> hits = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            hits.add(new DepartamentoSearchRow(row.get("rank", Float.class), toDto(row)));
+        }
+        return hits;
+    }
+
+    // Both aggregates are answered from indexes covering the filter columns and updated_at, without heap rows
+    @Override
+    public DepartamentoListVersion findListVersion(Specification<Departamento> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Departamento> root = query.from(Departamento.class);
+        query.multiselect(criteriaBuilder.count(root), criteriaBuilder.greatest(root.<LocalDateTime>get("updatedAt")));
+        if (spec != null) {
+            query.where(spec.toPredicate(root, query, criteriaBuilder));
+        }
+        Tuple filtered = entityManager.createQuery(query).getSingleResult();
+
+        LocalDateTime lastModified = entityManager
+                .createQuery("select max(d.updatedAt) from Departamento d", LocalDateTime.class)
+                .getSingleResult();
+        return new DepartamentoListVersion(filtered.get(0, Long.class), filtered.get(1, LocalDateTime.class),
+                lastModified);
+    }
+
+    @Override
+    public Optional<DepartamentoUpdateResult> updateIfVersion(UUID id, DepartamentoDto data, Long expectedVersion) {
+        String sql = CONDITIONAL_UPDATE.formatted(expectedVersion == null ? "" : "AND d.version = :version");
+        var query = entityManager.createNativeQuery(sql, Tuple.class)
+                .setParameter("id", id)
+                .setParameter("titulo", data.getTitulo())
+                .setParameter("descripcion", data.getDescripcion())
+                .setParameter("precio", data.getPrecio())
+                .setParameter("moneda", data.getMoneda().name())
+                .setParameter("metrosCuadrados", data.getMetros_cuadrados())
+                .setParameter("direccion", data.getDireccion())
+                .setParameter("disponible", data.isDisponible())
+                .setParameter("updatedAt", LocalDateTime.now());
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+        @SuppressWarnings("unchecked")
+        List<Tuple> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Tuple row = rows.get(0);
+        DepartamentoDto before = toDto(id, row);
+        Long newVersion = row.get("new_version", Long.class);
+        if (newVersion == null) {
+            return Optional.of(new DepartamentoUpdateResult(before, null));
+        }
+        DepartamentoDto after = DepartamentoDto.builder()
+                .id(id.toString())
+                .titulo(data.getTitulo())
+                .descripcion(data.getDescripcion())
+                .precio(data.getPrecio())
+                .moneda(data.getMoneda())
+                .metros_cuadrados(data.getMetros_cuadrados())
+                .direccion(data.getDireccion())
+                .disponible(data.isDisponible())
+                .version(newVersion)
+                .build();
+        return Optional.of(new DepartamentoUpdateResult(before, after));
+    }
+
+    @Override
+    public List<DepartamentoSyncRow> findChangesAfter(DepartamentoSyncToken after, int limit) {
+        String sql = after == null
+                ? CHANGES_AFTER.formatted("", "")
+                : CHANGES_AFTER.formatted("AND (d.change_xid, d.id) > (:changeXid, :id)",
+                        "AND (t.change_xid, t.id) > (:changeXid, :id)");
+        var query = entityManager.createNativeQuery(sql, Tuple.class)
+                .setParameter("limit", limit);
+        if (after != null) {
+            query.setParameter("changeXid", after.changeXid()).setParameter("id", after.id());
+        }
+        @SuppressWarnings("unchecked")
+        List<Tuple> rows = query.getResultList();
+        List<DepartamentoSyncRow> changes = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            UUID id = row.get("id", UUID.class);
+            changes.add(new DepartamentoSyncRow(row.get("change_xid", Long.class), id,
+                    row.get("eliminado", Boolean.class) ? null : toDto(id, row)));
+        }
+        return changes;
+    }
+
+    // The DTO columns of a tuple query, by alias; callers append the columns they page by
+    private static List<Selection<?>> dtoSelections(Root<Departamento> root) {
+        return new ArrayList<>(List.of(
+                ((JpaExpression<?>) root.get("id")).cast(String.class).alias("id"),
+                root.get("titulo").alias("titulo"),
+                root.get("descripcion").alias("descripcion"),
+                root.get("precio").alias("precio"),
+                root.get("moneda").alias("moneda"),
+                root.get("metros_cuadrados").alias("metros_cuadrados"),
+                root.get("direccion").alias("direccion"),
+                root.get("disponible").alias("disponible"),
+                root.get("version").alias("version")));
+    }
+
+    private static DepartamentoDto toDto(Tuple row) {
+        return DepartamentoDto.builder()
+                .id(row.get("id", String.class))
+                .titulo(row.get("titulo", String.class))
+                .descripcion(row.get("descripcion", String.class))
+                .precio(row.get("precio", BigDecimal.class))
+                .moneda(row.get("moneda", Moneda.class))
+                .metros_cuadrados(row.get("metros_cuadrados", Float.class))
+                .direccion(row.get("direccion", String.class))
+                .disponible(row.get("disponible", Boolean.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+
+    private static DepartamentoDto toDto(UUID id, Tuple row) {
+        return DepartamentoDto.builder()
+                .id(id.toString())
+                .titulo(row.get("titulo", String.class))
+                .descripcion(row.get("descripcion", String.class))
+                .precio(row.get("precio", BigDecimal.class))
+                .moneda(Moneda.valueOf(row.get("moneda", String.class)))
+                .metros_cuadrados(row.get("metros_cuadrados", Float.class))
+                .direccion(row.get("direccion", String.class))
+                .disponible(row.get("disponible", Boolean.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+
+    // Builds the DTO straight from the result set: no managed entity, no dirty-checking snapshot
+    private TypedQuery<DepartamentoDto> createDtoQuery(Specification<Departamento> spec, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DepartamentoDto> query = criteriaBuilder.createQuery(DepartamentoDto.class);
+        Root<Departamento> root = query.from(Departamento.class);
+        // The DTO keeps the id as text; cast in SQL rather than converting each UUID in Java
+        query.select(criteriaBuilder.construct(DepartamentoDto.class,
+                ((JpaExpression<?>) root.get("id")).cast(String.class),
+                root.get("titulo"),
+                root.get("descripcion"),
+                root.get("precio"),
+                root.get("moneda"),
+                root.get("metros_cuadrados"),
+                root.get("direccion"),
+                root.get("disponible"),
+                root.get("version")));
+        if (spec != null) {
+            query.where(spec.toPredicate(root, query, criteriaBuilder));
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+        return entityManager.createQuery(query);
+    }
+}
@@ -0,0 +1,47 @@
+package com.challenge.leban.runner;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.challenge.leban.service.IDepartamentoGeneratorService;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Fills {@code departamento} with synthetic data when started with the {@code generator} profile, e.g.
+ * {@code java -jar leban.jar --spring.profiles.active=generator --leban.generator.rows=10000000}.
+ */
+@Log4j2
+@Component
+@Profile("generator")
+public class DepartamentoGeneratorRunner implements ApplicationRunner {
+
+    private final IDepartamentoGeneratorService generatorService;
+    private final long rows;
+    private final long seed;
+    private final double disponibleRatio;
+    private final boolean truncate;
+
+    public DepartamentoGeneratorRunner(IDepartamentoGeneratorService generatorService,
+            @Value("${leban.generator.rows}") long rows,
+            @Value("${leban.generator.seed}") long seed,
+            @Value("${leban.generator.disponible-ratio}") double disponibleRatio,
+            @Value("${leban.generator.truncate}") boolean truncate) {
+        this.generatorService = generatorService;
+        this.rows = rows;
+        this.seed = seed;
+        this.disponibleRatio = disponibleRatio;
+        this.truncate = truncate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        long inserted = generatorService.generate(rows, seed, disponibleRatio, truncate);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Generador: {} filas en {} ms (seed {}, disponible {})", inserted, millis, seed, disponibleRatio);
+    }
+}
@@ -0,0 +1,103 @@
+package com.challenge.leban.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.challenge.leban.dto.CotizacionDto;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.event.CotizacionChangedEvent;
+import com.challenge.leban.exception.BusinessException;
+
+import lombok.extern.log4j.Log4j2;
+
+@Log4j2
+@Service
+public class CotizacionServiceImpl implements ICotizacionService {
+
+    private static final int ARS_POR_UNIDAD_SCALE = 6;
+
+    // Exclusive against the shared lock the precio_ars trigger takes (V9) for the same currency, until commit:
+    // writes that may have read the old rate finish before the rate changes, later ones wait and read the new one
+    private static final String LOCK_RATE = "SELECT pg_advisory_xact_lock(hashtext('cotizacion:' || :moneda))";
+
+    private static final String UPDATE_RATE = """
+            UPDATE cotizacion SET ars_por_unidad = :arsPorUnidad, updated_at = localtimestamp
+            WHERE moneda = :moneda
+            RETURNING moneda, ars_por_unidad, updated_at""";
+
+    // Set-based, and rows whose value does not move are not rewritten. Neither version nor updated_at change:
+    // the row as clients see it is the same
+    private static final String RECOMPUTE = """
+            UPDATE departamento SET precio_ars = round(precio * :arsPorUnidad, 2)
+            WHERE moneda = :moneda AND precio_ars IS DISTINCT FROM round(precio * :arsPorUnidad, 2)""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CotizacionServiceImpl(NamedParameterJdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CotizacionDto> getAll() {
+        return jdbcTemplate.query("SELECT moneda, ars_por_unidad, updated_at FROM cotizacion ORDER BY moneda",
+                (resultSet, rowNum) -> toDto(Moneda.valueOf(resultSet.getString("moneda")),
+                        resultSet.getBigDecimal("ars_por_unidad"),
+                        resultSet.getTimestamp("updated_at").toLocalDateTime()));
+    }
+
+    @Override
+    @Transactional
+    public CotizacionDto update(String moneda, CotizacionDto dto) {
+        Moneda target = parseMoneda(moneda);
+        if (target == Moneda.ARS) {
+            throw new BusinessException("ARS es la moneda base y su cotizacion es siempre 1");
+        }
+        BigDecimal arsPorUnidad = dto.getArsPorUnidad();
+        if (arsPorUnidad == null || arsPorUnidad.signum() <= 0) {
+            throw new BusinessException("La cotizacion debe ser mayor a 0");
+        }
+        if (arsPorUnidad.stripTrailingZeros().scale() > ARS_POR_UNIDAD_SCALE) {
+            throw new BusinessException("La cotizacion admite hasta " + ARS_POR_UNIDAD_SCALE + " decimales");
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("moneda", target.name())
+                .addValue("arsPorUnidad", arsPorUnidad);
+
+        jdbcTemplate.query(LOCK_RATE, params, resultSet -> { });
+        CotizacionDto updated = jdbcTemplate.queryForObject(UPDATE_RATE, params,
+                (resultSet, rowNum) -> toDto(target, resultSet.getBigDecimal("ars_por_unidad"),
+                        resultSet.getTimestamp("updated_at").toLocalDateTime()));
+        int recomputed = jdbcTemplate.update(RECOMPUTE, params);
+
+        log.info("Cotizacion {} = {} ARS; {} precios normalizados recalculados", target, arsPorUnidad, recomputed);
+        // Lists filtered in a currency may have changed even though no row did
+        eventPublisher.publishEvent(new CotizacionChangedEvent(target));
+        return updated;
+    }
+
+    private static Moneda parseMoneda(String moneda) {
+        try {
+            return Moneda.valueOf(moneda);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Moneda invalida: " + moneda);
+        }
+    }
+
+    private static CotizacionDto toDto(Moneda moneda, BigDecimal arsPorUnidad, LocalDateTime updatedAt) {
+        return CotizacionDto.builder()
+                .moneda(moneda)
+                .arsPorUnidad(arsPorUnidad)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
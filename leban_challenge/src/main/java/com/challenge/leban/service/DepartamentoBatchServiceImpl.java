@@ -0,0 +1,149 @@
+package com.challenge.leban.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.challenge.leban.dto.BatchItemErrorDto;
+import com.challenge.leban.dto.BatchResultDto;
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.event.DepartamentosBulkChangedEvent;
+import com.challenge.leban.exception.BusinessException;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.log4j.Log4j2;
+
+@Log4j2
+@Service
+public class DepartamentoBatchServiceImpl implements IDepartamentoBatchService {
+
+    private final IDepartamentoRepository departamentoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader departamentoReader;
+    private final int chunkSize;
+
+    public DepartamentoBatchServiceImpl(IDepartamentoRepository repository, ApplicationEventPublisher eventPublisher,
+            Validator validator, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+            @Value("${leban.batch.chunk-size:1000}") int chunkSize) {
+        this.departamentoRepository = repository;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.departamentoReader = objectMapper.readerFor(DepartamentoDto.class);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public BatchResultDto addAll(InputStream departamentos) {
+        BatchResultDto result = new BatchResultDto();
+        try {
+            read(departamentos, result);
+        } finally {
+            announce(result);
+        }
+
+        log.info("Carga masiva: {} recibidos, {} insertados, {} con error",
+                result.getReceived(), result.getInserted(), result.getErrors().size());
+        return result;
+    }
+
+    private void read(InputStream departamentos, BatchResultDto result) {
+        List<Departamento> chunk = new ArrayList<>(chunkSize);
+        int chunkStart = 0;
+
+        // readValues walks a top-level JSON array or a sequence of NDJSON documents alike
+        try (MappingIterator<DepartamentoDto> items = departamentoReader.readValues(departamentos)) {
+            while (items.hasNextValue()) {
+                int index = result.getReceived();
+                result.setReceived(index + 1);
+
+                DepartamentoDto dto;
+                try {
+                    dto = items.nextValue();
+                } catch (JsonMappingException e) {
+                    // The iterator skips the rest of the offending document and carries on with the next one
+                    result.getErrors().add(new BatchItemErrorDto(index, "JSON invalido: " + e.getOriginalMessage()));
+                    continue;
+                }
+
+                String violations = validate(dto);
+                if (violations != null) {
+                    result.getErrors().add(new BatchItemErrorDto(index, violations));
+                    continue;
+                }
+
+                if (chunk.isEmpty()) {
+                    chunkStart = index;
+                }
+                Departamento departamento = new Departamento();
+                departamento.setData(dto);
+                chunk.add(departamento);
+                if (chunk.size() == chunkSize) {
+                    flush(chunk, chunkStart, result);
+                }
+            }
+        } catch (JsonParseException e) {
+            // A syntax error leaves the parser in an unknown position: stop reading, keep what was committed
+            result.getErrors().add(new BatchItemErrorDto(result.getReceived(), "JSON invalido: " + e.getOriginalMessage()));
+        } catch (IOException e) {
+            throw new BusinessException("No se pudo leer el cuerpo de la peticion");
+        }
+        flush(chunk, chunkStart, result);
+    }
+
+    // One event for the whole feed rather than per chunk: each one flushes the filter cache, resyncs every node
+    // and reloads the in-memory indexes. It runs in its own transaction so the invalidation bus, which notifies
+    // before commit, still sees it; caches may lag the committed chunks until the feed ends.
+    private void announce(BatchResultDto result) {
+        if (result.getInserted() > 0) {
+            transactionTemplate.executeWithoutResult(
+                    status -> eventPublisher.publishEvent(new DepartamentosBulkChangedEvent("batch")));
+        }
+    }
+
+    private String validate(DepartamentoDto dto) {
+        Set<ConstraintViolation<DepartamentoDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", ", "Errores de validación: ", ""));
+    }
+
+    private void flush(List<Departamento> chunk, int chunkStart, BatchResultDto result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            // One transaction per chunk: Hibernate groups the inserts in JDBC batches of hibernate.jdbc.batch_size
+            transactionTemplate.executeWithoutResult(status -> departamentoRepository.saveAll(chunk));
+            result.setInserted(result.getInserted() + chunk.size());
+        } catch (RuntimeException e) {
+            log.error("Error al insertar el bloque que comienza en el elemento {}", chunkStart, e);
+            result.getErrors().add(new BatchItemErrorDto(chunkStart,
+                    "No se pudo insertar el bloque de " + chunk.size() + " elementos que comienza en este indice"));
+        }
+        chunk.clear();
+    }
+}
@@ -0,0 +1,178 @@
+package com.challenge.leban.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.challenge.leban.dto.BulkUpdateRequestDto;
+import com.challenge.leban.dto.BulkUpdateResultDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.event.DepartamentosBulkChangedEvent;
+import com.challenge.leban.exception.BusinessException;
+import com.challenge.leban.util.UuidV7;
+
+import lombok.extern.log4j.Log4j2;
+
+@Log4j2
+@Service
+public class DepartamentoBulkUpdateServiceImpl implements IDepartamentoBulkUpdateService {
+
+    static final int MAX_IDS = 10_000;
+
+    private static final BigDecimal MIN_PORCENTAJE = new BigDecimal("-100");
+
+    // One statement: the CTE locks the selected rows and keeps their previous values, the UPDATE only writes
+    // rows whose values really change, and the final SELECT turns the RETURNING rows into counts.
+    private static final String UPDATE = """
+            WITH target AS (
+                SELECT id, disponible, precio FROM departamento WHERE %1$s FOR UPDATE
+            ), changed AS (
+                UPDATE departamento d SET
+                    disponible = %2$s,
+                    precio = %3$s,
+                    version = d.version + 1,
+                    updated_at = :updatedAt
+                FROM target t
+                WHERE d.id = t.id AND (d.disponible <> %2$s OR d.precio <> %3$s)
+                RETURNING d.moneda, d.disponible <> t.disponible AS disponible_changed,
+                        d.precio <> t.precio AS precio_changed
+            )
+            SELECT (SELECT count(*) FROM target) AS matched, count(*) AS updated,
+                    count(*) FILTER (WHERE disponible_changed) AS disponible_changed%4$s
+            FROM changed""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public DepartamentoBulkUpdateServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public BulkUpdateResultDto update(BulkUpdateRequestDto request) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String where = selection(request, params);
+        Map<Moneda, BigDecimal> porcentajes = porcentajes(request);
+        if (request.getDisponible() == null && porcentajes.isEmpty()) {
+            throw new BusinessException("Debe indicar disponible o precioPorcentaje");
+        }
+
+        String disponible = "d.disponible";
+        if (request.getDisponible() != null) {
+            disponible = ":disponible";
+            params.addValue("disponible", request.getDisponible());
+        }
+        String precio = "d.precio";
+        if (!porcentajes.isEmpty()) {
+            StringBuilder cases = new StringBuilder("CASE d.moneda");
+            porcentajes.forEach((moneda, porcentaje) -> {
+                // Prices are validated as > 0, so a cut never rounds a listing down to zero
+                cases.append(" WHEN '").append(moneda.name()).append("' THEN greatest(round(d.precio * :factor")
+                        .append(moneda.name()).append(", 2), 0.01)");
+                params.addValue("factor" + moneda.name(), BigDecimal.ONE.add(porcentaje.movePointLeft(2)));
+            });
+            precio = cases.append(" ELSE d.precio END").toString();
+        }
+        String counts = porcentajes.keySet().stream()
+                .map(moneda -> ", count(*) FILTER (WHERE precio_changed AND moneda = '" + moneda.name()
+                        + "') AS precio_changed_" + moneda.name())
+                .collect(Collectors.joining());
+        // Stamped from the application clock, like @UpdateTimestamp on the entity paths
+        params.addValue("updatedAt", LocalDateTime.now());
+
+        BulkUpdateResultDto result = jdbcTemplate.queryForObject(UPDATE.formatted(where, disponible, precio, counts),
+                params, (resultSet, rowNum) -> {
+                    BulkUpdateResultDto row = new BulkUpdateResultDto();
+                    row.setMatched(resultSet.getLong("matched"));
+                    row.setUpdated(resultSet.getLong("updated"));
+                    row.setDisponibleChanged(resultSet.getLong("disponible_changed"));
+                    for (Moneda moneda : porcentajes.keySet()) {
+                        row.getPrecioChanged().put(moneda, resultSet.getLong("precio_changed_" + moneda.name()));
+                    }
+                    return row;
+                });
+
+        log.info("Actualizacion masiva: {} seleccionados, {} actualizados", result.getMatched(), result.getUpdated());
+        if (result.getUpdated() > 0) {
+            // A single event: caches are dropped once per request, not once per row
+            eventPublisher.publishEvent(new DepartamentosBulkChangedEvent("bulk-update"));
+        }
+        return result;
+    }
+
+    private String selection(BulkUpdateRequestDto request, MapSqlParameterSource params) {
+        List<String> ids = request.getIds();
+        boolean byIds = ids != null && !ids.isEmpty();
+        if (byIds == (request.getFilter() != null)) {
+            throw new BusinessException("Debe indicar ids o filter, pero no ambos");
+        }
+        if (byIds) {
+            if (ids.size() > MAX_IDS) {
+                throw new BusinessException("No se pueden actualizar mas de " + MAX_IDS + " ids por peticion");
+            }
+            // Bound as one array literal instead of one parameter per id
+            List<String> uuids = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                UUID uuid = UuidV7.parseOrNull(id);
+                if (uuid == null) {
+                    throw new BusinessException("Id invalido: " + id);
+                }
+                uuids.add(uuid.toString());
+            }
+            params.addValue("ids", "{" + String.join(",", uuids) + "}");
+            return "id = ANY(CAST(:ids AS uuid[]))";
+        }
+
+        BulkUpdateRequestDto.Filter requested = request.getFilter();
+        DepartamentoFilter filter = DepartamentoFilter.of(requested.disponible(), requested.precioMin(),
+                requested.precioMax());
+        List<String> conditions = new ArrayList<>();
+        if (filter.disponible() != null) {
+            conditions.add("disponible = :filterDisponible");
+            params.addValue("filterDisponible", filter.disponible());
+        }
+        if (filter.precioMin() != null) {
+            conditions.add("precio >= :precioMin");
+            params.addValue("precioMin", filter.precioMin());
+        }
+        if (filter.precioMax() != null) {
+            conditions.add("precio <= :precioMax");
+            params.addValue("precioMax", filter.precioMax());
+        }
+        return conditions.isEmpty() ? "true" : String.join(" AND ", conditions);
+    }
+
+    private Map<Moneda, BigDecimal> porcentajes(BulkUpdateRequestDto request) {
+        Map<Moneda, BigDecimal> porcentajes = new EnumMap<>(Moneda.class);
+        if (request.getPrecioPorcentaje() == null) {
+            return porcentajes;
+        }
+        request.getPrecioPorcentaje().forEach((moneda, porcentaje) -> {
+            if (moneda == null || porcentaje == null) {
+                throw new BusinessException("precioPorcentaje requiere una moneda y un porcentaje");
+            }
+            if (porcentaje.compareTo(MIN_PORCENTAJE) <= 0) {
+                throw new BusinessException("El porcentaje de precio debe ser mayor a -100");
+            }
+            if (porcentaje.signum() != 0) {
+                porcentajes.put(moneda, porcentaje);
+            }
+        });
+        return porcentajes;
+    }
+}
@@ -0,0 +1,213 @@
+package com.challenge.leban.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.challenge.leban.dto.CopyImportResultDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.event.DepartamentosBulkChangedEvent;
+import com.challenge.leban.exception.BusinessException;
+
+import lombok.extern.log4j.Log4j2;
+
+@Log4j2
+@Service
+public class DepartamentoCopyServiceImpl implements IDepartamentoCopyService {
+
+    static final String COLUMNS = "id, titulo, descripcion, precio, moneda, metros_cuadrados, direccion, disponible";
+
+    private static final int MAX_REPORTED_ROWS = 20;
+
+    // Text columns are unbounded so an oversized value is reported with its row instead of aborting the COPY;
+    // fila numbers the data rows (header excluded) in file order.
+    private static final String CREATE_STAGING = """
+            CREATE TEMP TABLE departamento_staging (
+                fila integer GENERATED ALWAYS AS IDENTITY,
+                id text,
+                titulo text,
+                descripcion text,
+                precio numeric(38,2),
+                moneda text,
+                metros_cuadrados real,
+                direccion text,
+                disponible boolean
+            ) ON COMMIT DROP""";
+
+    private static final String COPY_IN = "COPY departamento_staging (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv, HEADER true)";
+
+    // Same rules and messages as the bean validation of DepartamentoDto, which COPY bypasses. An empty unquoted
+    // CSV field arrives as NULL, a quoted one as ''.
+    private static final String INVALID_ROWS = """
+            SELECT fila, errores, count(*) OVER () AS total
+            FROM (
+                SELECT fila, concat_ws(', ',
+                    CASE WHEN coalesce(btrim(descripcion), '') = '' THEN 'descripcion: La descripción es obligatoria'
+                        WHEN char_length(descripcion) > 500
+                        THEN 'descripcion: La descripción no puede exceder los 500 caracteres' END,
+                    CASE WHEN coalesce(btrim(direccion), '') = '' THEN 'direccion: La dirección es obligatoria'
+                        WHEN char_length(direccion) > 500
+                        THEN 'direccion: La dirección no puede exceder los 500 caracteres' END,
+                    CASE WHEN nullif(id, '') !~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$'
+                        THEN 'id: El id debe ser un UUID' END,
+                    CASE WHEN metros_cuadrados IS NULL THEN 'metros_cuadrados: Los metros cuadrados son obligatorios'
+                        WHEN metros_cuadrados <= 0
+                        THEN 'metros_cuadrados: Los metros cuadrados deben ser mayores a 0' END,
+                    CASE WHEN nullif(moneda, '') IS NULL THEN 'moneda: La moneda es obligatoria'
+                        WHEN moneda NOT IN ('USD', 'ARS') THEN 'moneda: La moneda debe ser USD o ARS' END,
+                    CASE WHEN precio IS NULL THEN 'precio: El precio es obligatorio'
+                        WHEN precio <= 0 THEN 'precio: El precio debe ser mayor a 0' END,
+                    CASE WHEN coalesce(btrim(titulo), '') = '' THEN 'titulo: El título es obligatorio'
+                        WHEN char_length(titulo) > 150 THEN 'titulo: El título no puede exceder los 150 caracteres' END
+                ) AS errores
+                FROM departamento_staging
+            ) validated
+            WHERE errores <> ''
+            ORDER BY fila
+            LIMIT ?""";
+
+    // xmax = 0 only for freshly inserted tuples, which tells inserts and updates apart in one statement. The
+    // timestamps are bound from the application clock, like @CreationTimestamp and @UpdateTimestamp.
+    private static final String MERGE = """
+            WITH merged AS (
+                INSERT INTO departamento (id, titulo, descripcion, precio, moneda, metros_cuadrados, direccion,
+                        disponible, created_at, updated_at)
+                SELECT coalesce(nullif(id, '')::uuid, uuid_generate_v7()), titulo, descripcion, precio, moneda,
+                        metros_cuadrados, direccion, coalesce(disponible, false), ?, ?
+                FROM departamento_staging
+                ON CONFLICT (id) DO UPDATE SET
+                    titulo = EXCLUDED.titulo,
+                    descripcion = EXCLUDED.descripcion,
+                    precio = EXCLUDED.precio,
+                    moneda = EXCLUDED.moneda,
+                    metros_cuadrados = EXCLUDED.metros_cuadrados,
+                    direccion = EXCLUDED.direccion,
+                    disponible = EXCLUDED.disponible,
+                    version = departamento.version + 1,
+                    updated_at = EXCLUDED.updated_at
+                RETURNING (xmax = 0) AS inserted
+            )
+            SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) FROM merged""";
+
+    private final DataSource dataSource;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public DepartamentoCopyServiceImpl(DataSource dataSource, ApplicationEventPublisher eventPublisher) {
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public CopyImportResultDto importCsv(InputStream csv) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING);
+            long staged = copyManager(connection).copyIn(COPY_IN, csv);
+            rejectInvalidRows(connection);
+
+            try (PreparedStatement merge = connection.prepareStatement(MERGE)) {
+                LocalDateTime now = LocalDateTime.now();
+                merge.setObject(1, now);
+                merge.setObject(2, now);
+                ResultSet resultSet = merge.executeQuery();
+                resultSet.next();
+                CopyImportResultDto result = new CopyImportResultDto(staged, resultSet.getLong(1), resultSet.getLong(2));
+                log.info("Importacion CSV: {} filas leidas, {} insertadas, {} actualizadas",
+                        result.getStaged(), result.getInserted(), result.getUpdated());
+                eventPublisher.publishEvent(new DepartamentosBulkChangedEvent("import"));
+                return result;
+            }
+        } catch (SQLException e) {
+            throw new BusinessException("No se pudo importar el CSV: " + e.getMessage());
+        } catch (IOException e) {
+            throw new BusinessException("No se pudo leer el cuerpo de la peticion");
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // The whole import is one transaction: any invalid row rejects the file before the merge touches departamento
+    private void rejectInvalidRows(Connection connection) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement(INVALID_ROWS)) {
+            query.setInt(1, MAX_REPORTED_ROWS);
+            ResultSet resultSet = query.executeQuery();
+            List<String> errors = new ArrayList<>();
+            long total = 0;
+            while (resultSet.next()) {
+                errors.add("fila " + resultSet.getInt("fila") + ": " + resultSet.getString("errores"));
+                total = resultSet.getLong("total");
+            }
+            if (!errors.isEmpty()) {
+                String more = total > errors.size() ? "; y " + (total - errors.size()) + " filas mas" : "";
+                throw new BusinessException("El CSV tiene " + total + " filas invalidas: "
+                        + String.join("; ", errors) + more);
+            }
+        }
+    }
+
+    @Override
+    public void exportCsv(DepartamentoFilter filter, OutputStream out) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            copyManager(connection).copyOut(exportQuery(filter), out);
+        } catch (SQLException e) {
+            throw new BusinessException("No se pudo exportar el CSV: " + e.getMessage());
+        } catch (IOException e) {
+            throw new IllegalStateException("Error al escribir la exportacion CSV", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // COPY does not accept bind parameters; the filter only holds a Boolean, validated BigDecimals and a Moneda
+    // constant, which render as plain SQL literals. In a currency the bounds are converted with the rate the same
+    // statement reads, as the listing does.
+    static String exportQuery(DepartamentoFilter filter) {
+        String precio = filter.moneda() == null ? "precio" : "precio_ars";
+        List<String> conditions = new ArrayList<>();
+        if (filter.disponible() != null) {
+            conditions.add("disponible = " + filter.disponible());
+        }
+        if (filter.precioMin() != null) {
+            conditions.add(precio + " >= " + bound(filter.precioMin(), filter.moneda()));
+        }
+        if (filter.precioMax() != null) {
+            conditions.add(precio + " <= " + bound(filter.precioMax(), filter.moneda()));
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        return "COPY (SELECT " + COLUMNS + " FROM departamento" + where + " ORDER BY " + precio + ", id)"
+                + " TO STDOUT WITH (FORMAT csv, HEADER true)";
+    }
+
+    private static String bound(BigDecimal value, Moneda moneda) {
+        if (moneda == null) {
+            return value.toPlainString();
+        }
+        return "(" + value.toPlainString() + " * (SELECT c.ars_por_unidad FROM cotizacion c WHERE c.moneda = '"
+                + moneda.name() + "'))";
+    }
+
+    private CopyManager copyManager(Connection connection) throws SQLException {
+        return connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+}
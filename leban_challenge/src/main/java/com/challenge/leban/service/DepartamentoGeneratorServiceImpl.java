@@ -0,0 +1,89 @@
+package com.challenge.leban.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.challenge.leban.event.DepartamentosBulkChangedEvent;
+import com.challenge.leban.exception.BusinessException;
+import com.challenge.leban.util.DepartamentoDataGenerator;
+
+import lombok.extern.log4j.Log4j2;
+
+@Log4j2
+@Service
+public class DepartamentoGeneratorServiceImpl implements IDepartamentoGeneratorService {
+
+    private static final String COPY_IN = "COPY departamento (" + DepartamentoDataGenerator.CSV_COLUMNS
+            + ") FROM STDIN WITH (FORMAT csv)";
+
+    // Rows buffered before each write to the COPY stream
+    private static final int CHUNK_ROWS = 4_096;
+    private static final long LOG_EVERY = 1_000_000;
+
+    private final DataSource dataSource;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public DepartamentoGeneratorServiceImpl(DataSource dataSource, ApplicationEventPublisher eventPublisher) {
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public long generate(long rows, long seed, double disponibleRatio, boolean truncate) {
+        if (rows < 0 || disponibleRatio < 0 || disponibleRatio > 1) {
+            throw new BusinessException("Parametros de generacion invalidos");
+        }
+        DepartamentoDataGenerator generator = new DepartamentoDataGenerator(seed, disponibleRatio,
+                DepartamentoDataGenerator.DEFAULT_UNTIL);
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (truncate) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("TRUNCATE departamento");
+                }
+            }
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_IN);
+            try {
+                StringBuilder chunk = new StringBuilder(CHUNK_ROWS * 512);
+                for (long row = 1; row <= rows; row++) {
+                    generator.appendCsvRow(chunk);
+                    if (row % CHUNK_ROWS == 0 || row == rows) {
+                        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+                        copyIn.writeToCopy(bytes, 0, bytes.length);
+                        chunk.setLength(0);
+                    }
+                    if (row % LOG_EVERY == 0) {
+                        log.info("Generador: {} de {} filas", row, rows);
+                    }
+                }
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE departamento");
+            }
+            eventPublisher.publishEvent(new DepartamentosBulkChangedEvent("generator"));
+            return rows;
+        } catch (SQLException e) {
+            throw new BusinessException("No se pudieron generar los datos: " + e.getMessage());
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
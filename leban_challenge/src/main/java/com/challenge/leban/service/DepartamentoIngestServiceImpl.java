@@ -0,0 +1,234 @@
+package com.challenge.leban.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.IngestStatusDto;
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.enums.EstadoIngesta;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.exception.NotFoundException;
+import com.challenge.leban.exception.ServiceUnavailableException;
+import com.challenge.leban.exception.TooManyRequestsException;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.challenge.leban.util.UuidV7;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Write-behind path for single POSTs. Requests only enqueue into a bounded queue and get the id the row will
+ * have; one writer thread drains the queue in micro-batches (up to {@code batch-size} items, or whatever
+ * arrived within {@code max-delay} of the first one) and inserts each batch in one transaction. A full
+ * queue is rejected with 429 instead of letting request latency follow the database. On shutdown the
+ * queue stops accepting (503) and is written out before the datasource closes.
+ */
+@Log4j2
+@Service
+public class DepartamentoIngestServiceImpl implements IDepartamentoIngestService, SmartLifecycle {
+
+    private static final long IDLE_POLL_MILLIS = 200;
+
+    private final IDepartamentoRepository departamentoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean async;
+    private final BlockingQueue<DepartamentoDto> queue;
+    private final int batchSize;
+    private final Duration maxDelay;
+    private final Duration shutdownTimeout;
+    private final Counter rejected;
+
+    // Queued items stay here until written, so a pending status is never evicted; finished ones expire
+    private final Map<UUID, IngestStatusDto> pending = new ConcurrentHashMap<>();
+    private final Cache<UUID, IngestStatusDto> finished;
+
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Thread writer;
+
+    public DepartamentoIngestServiceImpl(IDepartamentoRepository repository, ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${leban.ingest.async:true}") boolean async,
+            @Value("${leban.ingest.queue-capacity:10000}") int queueCapacity,
+            @Value("${leban.ingest.batch-size:500}") int batchSize,
+            @Value("${leban.ingest.max-delay:50ms}") Duration maxDelay,
+            @Value("${leban.ingest.status-ttl:10m}") Duration statusTtl,
+            @Value("${leban.ingest.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.departamentoRepository = repository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.async = async;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.shutdownTimeout = shutdownTimeout;
+        this.finished = Caffeine.newBuilder()
+                .expireAfterWrite(statusTtl)
+                .maximumSize(Math.max(10_000L, queueCapacity * 10L))
+                .build();
+
+        Gauge.builder("leban.ingest.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        this.rejected = Counter.builder("leban.ingest.rejected").register(meterRegistry);
+    }
+
+    @Override
+    public boolean isAsync() {
+        return async;
+    }
+
+    @Override
+    public DepartamentoDto submit(DepartamentoDto dto) {
+        if (!accepting) {
+            throw new ServiceUnavailableException("La carga asincronica no esta disponible, reintente mas tarde");
+        }
+        UUID id = UuidV7.randomUuid();
+        dto.setId(id.toString());
+        dto.setVersion(null);
+        pending.put(id, IngestStatusDto.builder().id(dto.getId()).estado(EstadoIngesta.PENDIENTE).build());
+        if (!queue.offer(dto)) {
+            pending.remove(id);
+            rejected.increment();
+            throw new TooManyRequestsException("Cola de escritura llena, reintente mas tarde");
+        }
+        return dto;
+    }
+
+    @Override
+    public IngestStatusDto getStatus(String id) {
+        UUID uuid = UuidV7.parseOrNull(id);
+        IngestStatusDto status = uuid == null ? null : pending.get(uuid);
+        if (status == null && uuid != null) {
+            status = finished.getIfPresent(uuid);
+        }
+        if (status == null) {
+            throw new NotFoundException("Carga no encontrada o expirada");
+        }
+        return status;
+    }
+
+    private void drain() {
+        List<DepartamentoDto> batch = new ArrayList<>(batchSize);
+        // After stop() the loop keeps going until the queue is empty
+        while (running || !queue.isEmpty()) {
+            try {
+                DepartamentoDto first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelay.toNanos();
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    DepartamentoDto next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Escritor de la cola interrumpido con {} elementos pendientes", queue.size());
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<DepartamentoDto> batch) {
+        List<Departamento> departamentos = new ArrayList<>(batch.size());
+        for (DepartamentoDto dto : batch) {
+            Departamento departamento = new Departamento();
+            departamento.setData(dto);
+            departamento.setId(UUID.fromString(dto.getId()));
+            departamentos.add(departamento);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                departamentoRepository.saveAll(departamentos);
+                departamentos.forEach(departamento ->
+                        eventPublisher.publishEvent(new DepartamentoChangedEvent(null, departamento.getDTO())));
+            });
+            departamentos.forEach(departamento -> complete(departamento.getId(), IngestStatusDto.builder()
+                    .estado(EstadoIngesta.CREADO)
+                    .departamento(departamento.getDTO())));
+        } catch (RuntimeException e) {
+            log.error("No se pudo insertar un bloque de {} departamentos encolados", batch.size(), e);
+            departamentos.forEach(departamento -> complete(departamento.getId(), IngestStatusDto.builder()
+                    .estado(EstadoIngesta.ERROR)
+                    .mensaje("No se pudo guardar el departamento")));
+        }
+    }
+
+    private void complete(UUID id, IngestStatusDto.IngestStatusDtoBuilder status) {
+        finished.put(id, status.id(id.toString()).build());
+        pending.remove(id);
+    }
+
+    int queueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (async) {
+            writer = Thread.ofPlatform().name("departamento-ingest-writer").start(this::drain);
+            accepting = true;
+        }
+    }
+
+    @Override
+    public void stop() {
+        accepting = false;
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("La cola de escritura no se vacio en {}; quedan {} elementos sin guardar", shutdownTimeout,
+                    queue.size());
+            writer.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Starts before and stops after the web server, so requests still in flight can enqueue and get written
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
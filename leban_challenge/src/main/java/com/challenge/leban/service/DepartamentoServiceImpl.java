@@ -1,73 +1,451 @@
 package com.challenge.leban.service;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.challenge.leban.exception.BusinessException;
 import com.challenge.leban.exception.NotFoundException;
+import com.challenge.leban.exception.PreconditionFailedException;
+import com.challenge.leban.exception.ServiceUnavailableException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.challenge.leban.cache.DepartamentoFilterCache;
+import com.challenge.leban.dto.CotizacionDto;
+import com.challenge.leban.dto.CursorPageDto;
 import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.dto.DepartamentoListVersion;
+import com.challenge.leban.dto.DepartamentoPrecioArsRow;
+import com.challenge.leban.dto.DepartamentoSearchRow;
+import com.challenge.leban.dto.DepartamentoSyncChangeDto;
+import com.challenge.leban.dto.DepartamentoSyncPageDto;
+import com.challenge.leban.dto.DepartamentoSyncRow;
+import com.challenge.leban.dto.DepartamentoUpdateResult;
 import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.readmodel.DepartamentoReadModel;
+import com.challenge.leban.readmodel.DepartamentoSimilarityIndex;
+import com.challenge.leban.readmodel.DepartamentoSuggestIndex;
 import com.challenge.leban.repository.DepartamentoSpecifications;
 import com.challenge.leban.repository.IDepartamentoRepository;
+import com.challenge.leban.util.DepartamentoCursor;
+import com.challenge.leban.util.DepartamentoSearchCursor;
+import com.challenge.leban.util.DepartamentoSyncToken;
+import com.challenge.leban.util.UuidV7;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import jakarta.validation.Validator;
 import lombok.extern.log4j.Log4j2;
 
 @Log4j2
 @Service
 public class DepartamentoServiceImpl implements IDepartamentoService {
 
+    private static final int MAX_PAGE_LIMIT = 500;
+    private static final Sort KEYSET_SORT = Sort.by("precio", "id");
+    private static final Sort PRECIO_ARS_SORT = Sort.by("precioArs", "id");
+    private static final int HYDRATE_CHUNK_SIZE = 1000;
+    private static final int MAX_SEARCH_LENGTH = 200;
+    private static final int MAX_SUGGEST_LIMIT = 50;
+    private static final int MAX_SIMILAR = 100;
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("titulo", "descripcion", "precio", "moneda",
+            "metros_cuadrados", "direccion", "disponible");
+
     private IDepartamentoRepository departamentoRepository;
 
-    public DepartamentoServiceImpl(IDepartamentoRepository repository) {
+    private DepartamentoFilterCache filterCache;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private Validator validator;
+
+    private ObjectMapper objectMapper;
+
+    private DepartamentoReadModel readModel;
+
+    private ICotizacionService cotizacionService;
+
+    private DepartamentoSuggestIndex suggestIndex;
+
+    private DepartamentoSimilarityIndex similarityIndex;
+
+    public DepartamentoServiceImpl(IDepartamentoRepository repository, DepartamentoFilterCache filterCache,
+            ApplicationEventPublisher eventPublisher, Validator validator, ObjectMapper objectMapper,
+            DepartamentoReadModel readModel, ICotizacionService cotizacionService,
+            DepartamentoSuggestIndex suggestIndex, DepartamentoSimilarityIndex similarityIndex) {
         this.departamentoRepository = repository;
+        this.filterCache = filterCache;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.readModel = readModel;
+        this.cotizacionService = cotizacionService;
+        this.suggestIndex = suggestIndex;
+        this.similarityIndex = similarityIndex;
     }
 
     @Override
+    @Transactional
     public DepartamentoDto add(DepartamentoDto dto) {
         Departamento departamento = new Departamento();
         departamento.setData(dto);
         departamentoRepository.save(departamento);
-        return departamento.getDTO();
+        DepartamentoDto created = departamento.getDTO();
+        eventPublisher.publishEvent(new DepartamentoChangedEvent(null, created));
+        return created;
     }
 
     @Override
+    @Transactional
     public DepartamentoDto update(DepartamentoDto dto, String id) {
-                Departamento departamento = departamentoRepository.findById(id)
+        return update(dto, id, null);
+    }
+
+    // One conditional UPDATE that also returns the previous row, instead of findById + save
+    @Override
+    @Transactional
+    public DepartamentoDto update(DepartamentoDto dto, String id, Long expectedVersion) {
+        DepartamentoUpdateResult result = departamentoRepository.updateIfVersion(parseId(id), dto, expectedVersion)
                 .orElseThrow(() -> new NotFoundException("Departamento no encontrado"));
-        departamento.setData(dto);
-        departamentoRepository.save(departamento);
-        return departamento.getDTO();
+        if (result.isConflict()) {
+            throw versionConflict(result.before().getVersion());
+        }
+        eventPublisher.publishEvent(new DepartamentoChangedEvent(result.before(), result.after()));
+        return result.after();
+    }
+
+    // Loads the entity so that @DynamicUpdate can limit the UPDATE to the columns the patch actually changed
+    @Override
+    @Transactional
+    public DepartamentoDto patch(String id, JsonNode patch, Long expectedVersion) {
+        if (patch == null || !patch.isObject()) {
+            throw new BusinessException("El cuerpo debe ser un objeto JSON (merge patch)");
+        }
+        Departamento departamento = departamentoRepository.findById(parseId(id))
+                .orElseThrow(() -> new NotFoundException("Departamento no encontrado"));
+        if (expectedVersion != null && !expectedVersion.equals(departamento.getVersion())) {
+            throw versionConflict(departamento.getVersion());
+        }
+        DepartamentoDto before = departamento.getDTO();
+        departamento.setData(applyMergePatch(departamento.getDTO(), (ObjectNode) patch));
+        try {
+            departamentoRepository.saveAndFlush(departamento);
+        } catch (OptimisticLockingFailureException e) {
+            throw versionConflict(null);
+        }
+        DepartamentoDto patched = departamento.getDTO();
+        // An unchanged row is not written, so the version stays and there is nothing to invalidate
+        if (!patched.getVersion().equals(before.getVersion())) {
+            eventPublisher.publishEvent(new DepartamentoChangedEvent(before, patched));
+        }
+        return patched;
+    }
+
+    @Override
+    public List<DepartamentoDto> filterDepartamentos(Boolean disponible, String precioMin, String precioMax,
+            String moneda) {
+        DepartamentoFilter filter = DepartamentoFilter.of(disponible, precioMin, precioMax, moneda);
+
+        if (filter.moneda() != null) {
+            // Sorted by the converted price, the order a client asking for a currency expects
+            return filterCache.get(filter, () -> departamentoRepository.findAllDtos(
+                    DepartamentoSpecifications.matchesInMoneda(filter), PRECIO_ARS_SORT, Integer.MAX_VALUE));
+        }
+        return filterCache.get(filter, () -> readModel.isReady()
+                ? hydrate(readModel.select(filter, null, Integer.MAX_VALUE))
+                : departamentoRepository.findAllDtos(DepartamentoSpecifications.matches(filter)));
+    }
+
+    @Override
+    public CursorPageDto<DepartamentoDto> filterDepartamentos(Boolean disponible, String precioMin, String precioMax,
+            String moneda, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new BusinessException("El limite debe estar entre 1 y " + MAX_PAGE_LIMIT);
+        }
+        DepartamentoFilter filter = DepartamentoFilter.of(disponible, precioMin, precioMax, moneda);
+        DepartamentoCursor after = DepartamentoCursor.decode(cursor);
+
+        if (filter.moneda() != null) {
+            return filterDepartamentosInMoneda(filter, after, limit);
+        }
+        // One extra row tells us whether there is a next page without a count query
+        List<DepartamentoDto> rows;
+        if (readModel.isReady()) {
+            rows = hydrate(readModel.select(filter, after, limit + 1));
+        } else {
+            Specification<Departamento> spec = DepartamentoSpecifications.matches(filter)
+                    .and(DepartamentoSpecifications.afterCursor(after));
+            rows = departamentoRepository.findAllDtos(spec, KEYSET_SORT, limit + 1);
+        }
+
+        if (rows.size() <= limit) {
+            return CursorPageDto.<DepartamentoDto>builder().items(rows).build();
+        }
+        List<DepartamentoDto> items = rows.subList(0, limit);
+        return CursorPageDto.<DepartamentoDto>builder()
+                .items(items)
+                .nextCursor(DepartamentoCursor.of(items.get(limit - 1)).encode())
+                .build();
+    }
+
+    // The keyset is (precio_ars, id): the order is the same in every currency, only the bounds convert. Bounds,
+    // order and cursor all come from the same statement, so a rate change between pages cannot skip or repeat rows
+    private CursorPageDto<DepartamentoDto> filterDepartamentosInMoneda(DepartamentoFilter filter,
+            DepartamentoCursor after, int limit) {
+        Specification<Departamento> spec = DepartamentoSpecifications.matchesInMoneda(filter)
+                .and(DepartamentoSpecifications.afterPrecioArsCursor(after));
+        List<DepartamentoPrecioArsRow> rows = departamentoRepository.findAllInPesos(spec, limit + 1);
+
+        if (rows.size() <= limit) {
+            return CursorPageDto.<DepartamentoDto>builder()
+                    .items(rows.stream().map(DepartamentoPrecioArsRow::departamento).toList())
+                    .build();
+        }
+        List<DepartamentoPrecioArsRow> page = rows.subList(0, limit);
+        DepartamentoPrecioArsRow last = page.get(limit - 1);
+        return CursorPageDto.<DepartamentoDto>builder()
+                .items(page.stream().map(DepartamentoPrecioArsRow::departamento).toList())
+                .nextCursor(new DepartamentoCursor(last.precioArs(), UUID.fromString(last.departamento().getId()))
+                        .encode())
+                .build();
+    }
+
+    @Override
+    public List<DepartamentoDto> searchDepartamentos(String q, Boolean disponible, String precioMin,
+            String precioMax, String moneda) {
+        String text = searchText(q);
+        DepartamentoFilter filter = DepartamentoFilter.of(disponible, precioMin, precioMax, moneda);
+        return departamentoRepository.search(searchSpecification(filter, text), text, null, Integer.MAX_VALUE)
+                .stream()
+                .map(DepartamentoSearchRow::departamento)
+                .toList();
+    }
+
+    @Override
+    public CursorPageDto<DepartamentoDto> searchDepartamentos(String q, Boolean disponible, String precioMin,
+            String precioMax, String moneda, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new BusinessException("El limite debe estar entre 1 y " + MAX_PAGE_LIMIT);
+        }
+        String text = searchText(q);
+        DepartamentoFilter filter = DepartamentoFilter.of(disponible, precioMin, precioMax, moneda);
+        DepartamentoSearchCursor after = DepartamentoSearchCursor.decode(cursor);
+
+        List<DepartamentoSearchRow> rows = departamentoRepository.search(searchSpecification(filter, text), text,
+                after, limit + 1);
+        if (rows.size() <= limit) {
+            return CursorPageDto.<DepartamentoDto>builder()
+                    .items(rows.stream().map(DepartamentoSearchRow::departamento).toList())
+                    .build();
+        }
+        List<DepartamentoSearchRow> page = rows.subList(0, limit);
+        DepartamentoSearchRow last = page.get(limit - 1);
+        return CursorPageDto.<DepartamentoDto>builder()
+                .items(page.stream().map(DepartamentoSearchRow::departamento).toList())
+                .nextCursor(new DepartamentoSearchCursor(last.rank(), UUID.fromString(last.departamento().getId()))
+                        .encode())
+                .build();
     }
 
+    // The index picks the ids in memory; the rows are read by primary key so they are current
     @Override
-    public List<DepartamentoDto> filterDepartamentos(Boolean disponible, String precioMin, String precioMax) {
-        BigDecimal pMin = (precioMin != null && !precioMin.isEmpty()) ? new BigDecimal(precioMin) : null;
-        BigDecimal pMax = (precioMax != null && !precioMax.isEmpty()) ? new BigDecimal(precioMax) : null;
+    public List<DepartamentoDto> suggestDepartamentos(String prefix, int limit) {
+        if (limit < 1 || limit > MAX_SUGGEST_LIMIT) {
+            throw new BusinessException("El limite debe estar entre 1 y " + MAX_SUGGEST_LIMIT);
+        }
+        if (prefix == null || prefix.isBlank()) {
+            throw new BusinessException("El prefijo no puede estar vacio");
+        }
+        if (prefix.length() > MAX_SEARCH_LENGTH) {
+            throw new BusinessException("El prefijo no puede superar " + MAX_SEARCH_LENGTH + " caracteres");
+        }
+        if (!suggestIndex.isReady()) {
+            throw new ServiceUnavailableException("Las sugerencias no estan disponibles, reintente mas tarde");
+        }
+        return hydrate(suggestIndex.suggest(prefix, limit));
+    }
 
-        if (pMin != null && pMax != null && pMin.compareTo(pMax) > 0) {
-            throw new BusinessException("El precio minimo no puede ser mayor que precio maximo");
+    @Override
+    public List<DepartamentoDto> findSimilar(String id, int k) {
+        if (k < 1 || k > MAX_SIMILAR) {
+            throw new BusinessException("k debe estar entre 1 y " + MAX_SIMILAR);
+        }
+        UUID uuid = parseId(id);
+        if (!similarityIndex.isReady()) {
+            throw new ServiceUnavailableException("Los similares no estan disponibles, reintente mas tarde");
         }
+        List<UUID> ids = similarityIndex.nearest(uuid, k);
+        if (ids == null) {
+            throw new NotFoundException("Departamento no encontrado");
+        }
+        return hydrate(ids);
+    }
+
+    // Cached with the filter results and dropped with them, so a conditional GET on a cached list queries nothing
+    @Override
+    public DepartamentoListVersion getListVersion(DepartamentoFilter filter) {
+        return filterCache.getVersion(filter, () -> loadListVersion(filter));
+    }
 
-        if(pMin != null && pMin.compareTo(BigDecimal.ZERO) < 0) {
-            throw new BusinessException("El precio minimo no puede ser menor que 0");
+    private DepartamentoListVersion loadListVersion(DepartamentoFilter filter) {
+        if (filter.moneda() == null) {
+            return departamentoRepository.findListVersion(DepartamentoSpecifications.matches(filter));
         }
-        if(pMax != null && pMax.compareTo(BigDecimal.ZERO) < 0) {
-            throw new BusinessException("El precio maximo no puede ser menor que 0");
+        List<CotizacionDto> cotizaciones = cotizacionService.getAll();
+        DepartamentoListVersion version = departamentoRepository.findListVersion(
+                DepartamentoSpecifications.matchesInMoneda(filter));
+        // A rate change refilters and reorders the list without writing any row, so it has to move the version
+        LocalDateTime rateChange = cotizaciones.stream()
+                .map(CotizacionDto::getUpdatedAt)
+                .max(LocalDateTime::compareTo)
+                .orElse(null);
+        return new DepartamentoListVersion(version.count(), latest(version.updatedAt(), rateChange),
+                latest(version.lastModified(), rateChange));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamDepartamentos(DepartamentoFilter filter, Consumer<DepartamentoDto> consumer) {
+        Specification<Departamento> spec = filter.moneda() == null ? DepartamentoSpecifications.matches(filter)
+                : DepartamentoSpecifications.matchesInMoneda(filter);
+        try (Stream<Departamento> departamentos = departamentoRepository.streamAll(spec)) {
+            departamentos.map(Departamento::getDTO).forEach(consumer);
         }
+    }
 
-        Specification<Departamento> spec = DepartamentoSpecifications.hasDisponible(disponible)
-                .and(DepartamentoSpecifications.precioGreaterThanOrEqualTo(pMin))
-                .and(DepartamentoSpecifications.precioLessThanOrEqualTo(pMax));
+    @Override
+    @Transactional(readOnly = true)
+    public DepartamentoSyncPageDto getChangesSince(String since, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new BusinessException("El limite debe estar entre 1 y " + MAX_PAGE_LIMIT);
+        }
+        DepartamentoSyncToken after = DepartamentoSyncToken.decode(since);
+        List<DepartamentoSyncRow> rows = departamentoRepository.findChangesAfter(after, limit + 1);
 
-        return departamentoRepository.findAll(spec)
-                .stream().map(Departamento::getDTO).toList();
+        boolean hasMore = rows.size() > limit;
+        List<DepartamentoSyncRow> page = hasMore ? rows.subList(0, limit) : rows;
+        DepartamentoSyncToken next = page.isEmpty() ? after
+                : new DepartamentoSyncToken(page.get(page.size() - 1).changeXid(), page.get(page.size() - 1).id());
+        return DepartamentoSyncPageDto.builder()
+                .changes(page.stream()
+                        .map(row -> DepartamentoSyncChangeDto.builder()
+                                .id(row.id().toString())
+                                .eliminado(row.departamento() == null)
+                                .departamento(row.departamento())
+                                .build())
+                        .toList())
+                .next(next != null ? next.encode() : "")
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // The filters and the text match go into the same WHERE, so the planner can start from whichever index is
+    // more selective
+    private Specification<Departamento> searchSpecification(DepartamentoFilter filter, String text) {
+        Specification<Departamento> spec = filter.moneda() == null ? DepartamentoSpecifications.matches(filter)
+                : DepartamentoSpecifications.matchesInMoneda(filter);
+        return spec.and(DepartamentoSpecifications.matchesText(text));
+    }
+
+    private static String searchText(String q) {
+        if (q == null || q.isBlank()) {
+            throw new BusinessException("El texto de busqueda no puede estar vacio");
+        }
+        String text = q.strip();
+        if (text.length() > MAX_SEARCH_LENGTH) {
+            throw new BusinessException("El texto de busqueda no puede superar " + MAX_SEARCH_LENGTH + " caracteres");
+        }
+        return text;
     }
 
     @Override
     public List<DepartamentoDto> getAll() {
-        return departamentoRepository.findAll().stream().map(Departamento::getDTO).toList();
+        return departamentoRepository.findAllDtos(null);
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null || b == null) {
+            return a == null ? b : a;
+        }
+        return a.isAfter(b) ? a : b;
+    }
+
+    // Reads the rows the read model selected by primary key, keeping its order; a row deleted since is skipped
+    private List<DepartamentoDto> hydrate(List<UUID> ids) {
+        List<DepartamentoDto> rows = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += HYDRATE_CHUNK_SIZE) {
+            List<UUID> chunk = ids.subList(from, Math.min(ids.size(), from + HYDRATE_CHUNK_SIZE));
+            Map<String, DepartamentoDto> byId = new HashMap<>(chunk.size() * 2);
+            departamentoRepository.findAllDtos(DepartamentoSpecifications.idIn(chunk))
+                    .forEach(dto -> byId.put(dto.getId(), dto));
+            for (UUID id : chunk) {
+                DepartamentoDto dto = byId.get(id.toString());
+                if (dto != null) {
+                    rows.add(dto);
+                }
+            }
+        }
+        return rows;
+    }
+
+    // Every field is required, so a merge-patch null (remove) is rejected rather than clearing the column
+    private DepartamentoDto applyMergePatch(DepartamentoDto target, ObjectNode patch) {
+        List<String> fields = new ArrayList<>();
+        patch.fieldNames().forEachRemaining(fields::add);
+        for (String field : fields) {
+            if (!PATCHABLE_FIELDS.contains(field)) {
+                throw new BusinessException("Campo no modificable: " + field);
+            }
+            if (patch.get(field).isNull()) {
+                throw new BusinessException("El campo " + field + " no puede ser nulo");
+            }
+        }
+        try {
+            objectMapper.readerForUpdating(target).readValue(patch);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException("JSON invalido: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new BusinessException("JSON invalido: " + e.getMessage());
+        }
+        String violations = fields.stream()
+                .flatMap(field -> validator.validateProperty(target, field).stream())
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+        if (!violations.isEmpty()) {
+            throw new BusinessException("Errores de validación: " + violations);
+        }
+        return target;
+    }
+
+    private PreconditionFailedException versionConflict(Long currentVersion) {
+        return new PreconditionFailedException("El departamento fue modificado por otra operacion"
+                + (currentVersion != null ? " (version actual " + currentVersion + ")" : ""));
+    }
+
+    // A path id that is not a UUID cannot match any row
+    private UUID parseId(String id) {
+        UUID uuid = UuidV7.parseOrNull(id);
+        if (uuid == null) {
+            throw new NotFoundException("Departamento no encontrado");
+        }
+        return uuid;
     }
 }
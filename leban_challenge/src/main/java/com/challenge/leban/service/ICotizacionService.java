@@ -0,0 +1,17 @@
+package com.challenge.leban.service;
+
+import java.util.List;
+
+import com.challenge.leban.dto.CotizacionDto;
+
+public interface ICotizacionService {
+
+    List<CotizacionDto> getAll();
+
+    /**
+     * Replaces the rate of a currency and recomputes the normalized price of its departamentos in the same
+     * transaction.
+     */
+    CotizacionDto update(String moneda, CotizacionDto dto);
+
+}
@@ -0,0 +1,11 @@
+package com.challenge.leban.service;
+
+import java.io.InputStream;
+
+import com.challenge.leban.dto.BatchResultDto;
+
+public interface IDepartamentoBatchService {
+
+    BatchResultDto addAll(InputStream departamentos);
+
+}
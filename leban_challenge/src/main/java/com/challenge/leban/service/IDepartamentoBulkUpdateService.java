@@ -0,0 +1,10 @@
+package com.challenge.leban.service;
+
+import com.challenge.leban.dto.BulkUpdateRequestDto;
+import com.challenge.leban.dto.BulkUpdateResultDto;
+
+public interface IDepartamentoBulkUpdateService {
+
+    BulkUpdateResultDto update(BulkUpdateRequestDto request);
+
+}
@@ -0,0 +1,15 @@
+package com.challenge.leban.service;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.challenge.leban.dto.CopyImportResultDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+
+public interface IDepartamentoCopyService {
+
+    CopyImportResultDto importCsv(InputStream csv);
+
+    void exportCsv(DepartamentoFilter filter, OutputStream out);
+
+}
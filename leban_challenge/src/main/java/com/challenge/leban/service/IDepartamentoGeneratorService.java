@@ -0,0 +1,7 @@
+package com.challenge.leban.service;
+
+public interface IDepartamentoGeneratorService {
+
+    long generate(long rows, long seed, double disponibleRatio, boolean truncate);
+
+}
@@ -0,0 +1,19 @@
+package com.challenge.leban.service;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.IngestStatusDto;
+
+public interface IDepartamentoIngestService {
+
+    /**
+     * Whether POST goes through the write-behind queue instead of inserting inside the request.
+     */
+    boolean isAsync();
+
+    /**
+     * Queues a validated departamento and returns it with the id it will be stored under.
+     */
+    DepartamentoDto submit(DepartamentoDto dto);
+
+    IngestStatusDto getStatus(String id);
+}
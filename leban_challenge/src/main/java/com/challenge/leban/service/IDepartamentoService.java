@@ -1,14 +1,69 @@
 package com.challenge.leban.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
+import com.challenge.leban.dto.CursorPageDto;
 import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.dto.DepartamentoListVersion;
+import com.challenge.leban.dto.DepartamentoSyncPageDto;
 import com.challenge.leban.util.ICrud;
+import com.fasterxml.jackson.databind.JsonNode;
 
 public interface IDepartamentoService extends ICrud<DepartamentoDto> {
 
-    List<DepartamentoDto> filterDepartamentos(Boolean disponible, String precioMin, String precioMax);
+    /**
+     * With {@code moneda} the bounds are in that currency, every departamento is compared at its converted
+     * price and the list is sorted by it; without it they compare {@code precio} as stored.
+     */
+    List<DepartamentoDto> filterDepartamentos(Boolean disponible, String precioMin, String precioMax, String moneda);
+
+    CursorPageDto<DepartamentoDto> filterDepartamentos(Boolean disponible, String precioMin, String precioMax,
+            String moneda, String cursor, int limit);
+
+    /**
+     * Departamentos matching the filter whose text matches {@code q} (Spanish stemming, web-search syntax),
+     * most relevant first. Not cached.
+     */
+    List<DepartamentoDto> searchDepartamentos(String q, Boolean disponible, String precioMin, String precioMax,
+            String moneda);
+
+    CursorPageDto<DepartamentoDto> searchDepartamentos(String q, Boolean disponible, String precioMin,
+            String precioMax, String moneda, String cursor, int limit);
+
+    /**
+     * Up to {@code limit} departamentos with a word in titulo or direccion starting with the last word of
+     * {@code prefix} (and containing the others), available ones first. Accents and case are ignored.
+     */
+    List<DepartamentoDto> suggestDepartamentos(String prefix, int limit);
+
+    /**
+     * Up to {@code k} available departamentos in the same moneda as the given one with the closest precio and
+     * metros_cuadrados, compared in relative terms, nearest first.
+     */
+    List<DepartamentoDto> findSimilar(String id, int k);
+
+    DepartamentoListVersion getListVersion(DepartamentoFilter filter);
+
+    void streamDepartamentos(DepartamentoFilter filter, Consumer<DepartamentoDto> consumer);
+
+    /**
+     * Changes and deletions after the {@code since} token (all rows when empty), for mirrors that sync
+     * incrementally.
+     */
+    DepartamentoSyncPageDto getChangesSince(String since, int limit);
 
     DepartamentoDto update(DepartamentoDto dto, String id);
 
+    /**
+     * Replaces the departamento only if its current version is {@code expectedVersion}; null skips the check.
+     */
+    DepartamentoDto update(DepartamentoDto dto, String id, Long expectedVersion);
+
+    /**
+     * Applies a JSON merge patch (RFC 7396): only the fields present are validated and written.
+     */
+    DepartamentoDto patch(String id, JsonNode patch, Long expectedVersion);
+
 }
@@ -0,0 +1,44 @@
+package com.challenge.leban.util;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.exception.BusinessException;
+
+/**
+ * Opaque keyset position over (precio, id). Encoded as base64url so clients
+ * treat it as a token instead of building it themselves.
+ */
+public record DepartamentoCursor(BigDecimal precio, UUID id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static DepartamentoCursor of(DepartamentoDto dto) {
+        return new DepartamentoCursor(dto.getPrecio(), UUID.fromString(dto.getId()));
+    }
+
+    public static DepartamentoCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            UUID id = separator > 0 ? UuidV7.parseOrNull(raw.substring(separator + 1)) : null;
+            if (id == null) {
+                throw new BusinessException("Cursor invalido");
+            }
+            return new DepartamentoCursor(new BigDecimal(raw.substring(0, separator)), id);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Cursor invalido");
+        }
+    }
+
+    public String encode() {
+        String raw = precio.toPlainString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
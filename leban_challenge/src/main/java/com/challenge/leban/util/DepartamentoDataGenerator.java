@@ -0,0 +1,151 @@
+package com.challenge.leban.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+
+import com.challenge.leban.enums.Moneda;
+
+/**
+ * Deterministic source of synthetic departamentos: the same seed and reference time always produce the same
+ * rows. Prices are log-normal per {@link Moneda} (most listings cheap, a long tail of expensive ones), text
+ * lengths are skewed towards short values but occasionally reach the column limits, and timestamps favour
+ * recent dates.
+ */
+public class DepartamentoDataGenerator {
+
+    public static final LocalDateTime DEFAULT_UNTIL = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    public static final String CSV_COLUMNS = "id, titulo, descripcion, precio, moneda, metros_cuadrados, direccion, "
+            + "disponible, created_at, updated_at";
+
+    static final int TITULO_MAX = 150;
+    static final int DESCRIPCION_MAX = 500;
+    static final int DIRECCION_MAX = 500;
+
+    private static final long SPAN_SECONDS = 3L * 365 * 24 * 3600;
+    private static final double USD_RATIO = 0.65;
+
+    private static final String[] TIPOS = { "Departamento", "Monoambiente", "PH", "Loft", "Duplex", "Semipiso" };
+    private static final String[] BARRIOS = { "Palermo", "Belgrano", "Recoleta", "Caballito", "Almagro",
+            "Villa Crespo", "Núñez", "San Telmo", "Colegiales", "Villa Urquiza", "Balvanera", "Flores",
+            "Saavedra", "Boedo", "Puerto Madero" };
+    private static final String[] CALLES = { "Av. Corrientes", "Av. Santa Fe", "Av. Cabildo", "Gorriti",
+            "Thames", "Av. Rivadavia", "Billinghurst", "Juncal", "Arenales", "Av. Díaz Vélez", "Bonpland",
+            "Humboldt", "Av. Scalabrini Ortiz", "Güemes", "Charcas", "Av. Belgrano", "Defensa", "Olleros" };
+    private static final String[] EXTRAS = { "con balcón", "luminoso", "a estrenar", "con cochera",
+            "reciclado", "apto profesional", "con amenities", "al frente", "contrafrente", "con patio",
+            "vista abierta", "apto crédito" };
+    private static final String[] FRASES = { "Excelente estado general.", "Living comedor amplio con salida al balcón.",
+            "Cocina integrada con barra desayunadora.", "Dormitorio principal con placard empotrado.",
+            "Baño completo con ventilación natural.", "Edificio con seguridad las 24 horas.",
+            "Cerca de subte, colectivos y comercios.", "Pisos de madera y aberturas de aluminio.",
+            "Calefacción por losa radiante.", "Expensas bajas.", "Terraza de uso común con parrilla.",
+            "Ideal para inversión o vivienda.", "Muy buena orientación, sol de mañana.",
+            "Laundry en planta baja.", "Apto mascotas.", "Ambientes bien distribuidos y muy luminosos." };
+
+    private final SplittableRandom random;
+    private final double disponibleRatio;
+    private final LocalDateTime until;
+    private final StringBuilder text = new StringBuilder(DESCRIPCION_MAX);
+
+    public DepartamentoDataGenerator(long seed, double disponibleRatio, LocalDateTime until) {
+        this.random = new SplittableRandom(seed);
+        this.disponibleRatio = disponibleRatio;
+        this.until = until;
+    }
+
+    /**
+     * Appends one row in the order of {@link #CSV_COLUMNS}, as CSV terminated by a newline.
+     */
+    public void appendCsvRow(StringBuilder out) {
+        Moneda moneda = random.nextDouble() < USD_RATIO ? Moneda.USD : Moneda.ARS;
+        double metros = Math.round(clamp(logNormal(58, 0.45), 18, 800) * 10) / 10.0;
+        // ARS prices are roughly a thousand times USD ones and spread wider
+        double porMetro = moneda == Moneda.USD ? logNormal(2_100, 0.35) : logNormal(2_100_000, 0.5);
+        long redondeo = moneda == Moneda.USD ? 100 : 10_000;
+        long precio = Math.max(redondeo, Math.round(metros * porMetro / redondeo) * redondeo);
+        int ambientes = 1 + (int) Math.min(5, metros / 30);
+
+        long ageSeconds = (long) (SPAN_SECONDS * Math.pow(random.nextDouble(), 2));
+        LocalDateTime createdAt = until.minusSeconds(ageSeconds);
+        long editSeconds = (long) Math.min(ageSeconds, -Math.log(1 - random.nextDouble()) * 30 * 24 * 3600);
+        LocalDateTime updatedAt = createdAt.plusSeconds(editSeconds);
+
+        out.append(uuid(createdAt)).append(',');
+        quoted(out, titulo(ambientes)).append(',');
+        quoted(out, descripcion()).append(',');
+        out.append(precio).append(',')
+                .append(moneda.name()).append(',')
+                .append(metros).append(',');
+        quoted(out, direccion()).append(',');
+        out.append(random.nextDouble() < disponibleRatio).append(',')
+                .append(createdAt).append(',')
+                .append(updatedAt).append('\n');
+    }
+
+    private String titulo(int ambientes) {
+        text.setLength(0);
+        text.append(pick(TIPOS)).append(' ').append(ambientes).append(ambientes == 1 ? " ambiente" : " ambientes")
+                .append(" en ").append(pick(BARRIOS));
+        int extras = random.nextDouble() < 0.01 ? Integer.MAX_VALUE : random.nextInt(3);
+        for (int i = 0; i < extras && text.length() < TITULO_MAX; i++) {
+            text.append(i == 0 ? ", " : " y ").append(pick(EXTRAS));
+        }
+        return truncate(TITULO_MAX);
+    }
+
+    private String descripcion() {
+        text.setLength(0);
+        int target = (int) clamp(logNormal(180, 0.5), 40, DESCRIPCION_MAX + 50);
+        while (text.length() < target) {
+            if (!text.isEmpty()) {
+                text.append(' ');
+            }
+            text.append(pick(FRASES));
+        }
+        return truncate(DESCRIPCION_MAX);
+    }
+
+    private String direccion() {
+        text.setLength(0);
+        text.append(pick(CALLES)).append(' ').append(100 + random.nextInt(6_000));
+        if (random.nextDouble() < 0.7) {
+            text.append(", Piso ").append(1 + random.nextInt(20)).append(" Depto ").append((char) ('A' + random.nextInt(8)));
+        }
+        text.append(", ").append(pick(BARRIOS)).append(", CABA");
+        // A few listings carry long directions to reach the column limit
+        if (random.nextDouble() < 0.005) {
+            while (text.length() < DIRECCION_MAX) {
+                text.append(", entre ").append(pick(CALLES)).append(" y ").append(pick(CALLES));
+            }
+        }
+        return truncate(DIRECCION_MAX);
+    }
+
+    // Time-ordered like the ids the application assigns, stamped with the listing's creation time
+    private String uuid(LocalDateTime createdAt) {
+        long epochMillis = createdAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+        return UuidV7.of(epochMillis, random.nextLong(), random.nextLong()).toString();
+    }
+
+    private double logNormal(double median, double sigma) {
+        return median * Math.exp(sigma * random.nextGaussian());
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private String truncate(int max) {
+        return text.length() > max ? text.substring(0, max).stripTrailing() : text.toString();
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static StringBuilder quoted(StringBuilder out, String value) {
+        return out.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
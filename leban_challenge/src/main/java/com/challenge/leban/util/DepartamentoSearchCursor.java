@@ -0,0 +1,38 @@
+package com.challenge.leban.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import com.challenge.leban.exception.BusinessException;
+
+/**
+ * Opaque keyset position of a text search, over (rank descending, id), encoded like {@link DepartamentoCursor}.
+ * The rank is the exact {@code real} PostgreSQL computed, so the next page resumes without skipping ties.
+ */
+public record DepartamentoSearchCursor(float rank, UUID id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static DepartamentoSearchCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            UUID id = separator > 0 ? UuidV7.parseOrNull(raw.substring(separator + 1)) : null;
+            if (id == null) {
+                throw new BusinessException("Cursor invalido");
+            }
+            return new DepartamentoSearchCursor(Float.parseFloat(raw.substring(0, separator)), id);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Cursor invalido");
+        }
+    }
+
+    public String encode() {
+        String raw = Float.toString(rank) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
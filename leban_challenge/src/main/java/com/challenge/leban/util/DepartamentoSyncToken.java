@@ -0,0 +1,39 @@
+package com.challenge.leban.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import com.challenge.leban.exception.BusinessException;
+
+/**
+ * Opaque delta-sync watermark over (change_xid, id), encoded like {@link DepartamentoCursor}. Tokens of the former
+ * (updated_at, id) watermark are rejected, so a mirror holding one starts over from the beginning.
+ */
+public record DepartamentoSyncToken(long changeXid, UUID id) {
+
+    private static final char SEPARATOR = '|';
+
+    // Null or empty means "from the beginning"
+    public static DepartamentoSyncToken decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            UUID id = separator > 0 ? UuidV7.parseOrNull(raw.substring(separator + 1)) : null;
+            if (id == null) {
+                throw new BusinessException("Token de sincronizacion invalido");
+            }
+            return new DepartamentoSyncToken(Long.parseLong(raw.substring(0, separator)), id);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Token de sincronizacion invalido");
+        }
+    }
+
+    public String encode() {
+        String raw = Long.toString(changeXid) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,57 @@
+package com.challenge.leban.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered UUIDs (RFC 9562 version 7): 48 bits of Unix epoch milliseconds, then random bits. Ids created
+ * later sort after earlier ones, so inserts append to the right edge of the primary key B-tree instead of
+ * landing on random pages.
+ *
+ * The 12 bits after the version hold a counter seeded at random every millisecond (RFC 9562, method 3), so
+ * ids generated by this JVM are strictly increasing even within the same millisecond.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    // Last issued (millis << 12 | counter); a counter overflow simply borrows the next millisecond
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {
+        // Utility class
+    }
+
+    public static UUID randomUuid() {
+        long now = System.currentTimeMillis();
+        long seeded = (now << COUNTER_BITS) | (RANDOM.nextInt(1 << (COUNTER_BITS - 1)));
+        long next = LAST.accumulateAndGet(seeded, (last, candidate) -> Math.max(last + 1, candidate));
+        return of(next >>> COUNTER_BITS, next & COUNTER_MASK, RANDOM.nextLong());
+    }
+
+    /**
+     * Builds a version 7 UUID from its parts; {@code randA} keeps its low 12 bits and {@code randB} its low 62.
+     */
+    public static UUID of(long epochMillis, long randA, long randB) {
+        long msb = (epochMillis << 16) | 0x7000L | (randA & COUNTER_MASK);
+        long lsb = (randB & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Parses an id received as text, returning {@code null} instead of throwing when it is not a UUID.
+     */
+    public static UUID parseOrNull(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+-- Every read path maps moneda to the Moneda enum, and precio_ars is NULL without it, so a row lacking it breaks
+-- the read model and index reloads. POST, /batch and the CSV import all validate it; the column now enforces it
+-- too. Rows left without moneda by earlier imports make this migration fail and must be fixed by hand first.
+ALTER TABLE departamento ALTER COLUMN moneda SET NOT NULL;
@@ -0,0 +1,18 @@
+-- Schema previously created by hibernate.ddl-auto=update. IF NOT EXISTS lets databases created that way be
+-- adopted by Flyway (spring.flyway.baseline-on-migrate) without touching existing data.
+CREATE TABLE IF NOT EXISTS departamento (
+    id               VARCHAR(255)   NOT NULL,
+    titulo           VARCHAR(150)   NOT NULL,
+    descripcion      VARCHAR(500)   NOT NULL,
+    precio           NUMERIC(38, 2) NOT NULL,
+    moneda           VARCHAR(255)   CHECK (moneda IN ('USD', 'ARS')),
+    metros_cuadrados REAL,
+    direccion        VARCHAR(500)   NOT NULL,
+    disponible       BOOLEAN        NOT NULL,
+    created_at       TIMESTAMP(6)   NOT NULL,
+    updated_at       TIMESTAMP(6)   NOT NULL,
+    CONSTRAINT departamento_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_departamento_precio_id ON departamento (precio, id);
+CREATE INDEX IF NOT EXISTS idx_departamento_updated_at_id ON departamento (updated_at, id);
@@ -0,0 +1,19 @@
+-- Indexes for the filters in DepartamentoSpecifications: disponible (equality), precioMin/precioMax (range on
+-- precio) and the keyset order (precio, id) of the paginated endpoint.
+--
+-- Equality column first, then the range column, then id so that "disponible = ? ORDER BY precio, id" is
+-- served in index order. updated_at is carried as payload so the conditional-GET version query (count and
+-- max(updated_at) over the filter) is an index-only scan. Replaces the (disponible, precio, updated_at)
+-- index, which could not serve the keyset order.
+DROP INDEX IF EXISTS idx_departamento_disponible_precio_updated_at;
+
+CREATE INDEX IF NOT EXISTS idx_departamento_disponible_precio_id
+    ON departamento (disponible, precio, id) INCLUDE (updated_at);
+
+-- Most reads ask for available listings only; this index is smaller than the composite one (it skips the
+-- unavailable rows and the disponible column) and is preferred by the planner for "disponible = true".
+CREATE INDEX IF NOT EXISTS idx_departamento_disponible_precio_id_partial
+    ON departamento (precio, id) INCLUDE (updated_at)
+    WHERE disponible;
+
+ANALYZE departamento;
@@ -0,0 +1,18 @@
+-- Store the id in the native 16-byte uuid type instead of a 36-character varchar. Every id ever assigned was a
+-- UUID (GenerationType.UUID, gen_random_uuid() in the CSV import), so the cast keeps existing values, and their
+-- text form, unchanged. The table and the indexes that contain id are rewritten once.
+ALTER TABLE departamento ALTER COLUMN id TYPE uuid USING id::uuid;
+
+-- Time-ordered UUID (RFC 9562 version 7) for rows inserted by SQL, matching UuidV7 on the application side:
+-- 48 bits of epoch milliseconds over a random UUID, with the version nibble turned from 4 into 7.
+CREATE OR REPLACE FUNCTION uuid_generate_v7() RETURNS uuid AS $$
+    SELECT encode(
+        set_bit(
+            set_bit(
+                overlay(uuid_send(gen_random_uuid())
+                        PLACING substring(int8send(floor(extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3)
+                        FROM 1 FOR 6),
+                52, 1),
+            53, 1),
+        'hex')::uuid;
+$$ LANGUAGE sql VOLATILE;
@@ -0,0 +1,2 @@
+-- Optimistic locking: every update bumps the version, and conditional updates only apply on the expected one
+ALTER TABLE departamento ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
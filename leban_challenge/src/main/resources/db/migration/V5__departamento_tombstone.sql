@@ -0,0 +1,21 @@
+-- Deleted ids, kept so delta sync (GET /api/departamentos/changes?since=) can tell mirrors to drop them.
+-- Filled by a trigger so every delete path is covered, not only the ones that go through the application.
+CREATE TABLE IF NOT EXISTS departamento_tombstone (
+    id         UUID         NOT NULL,
+    deleted_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT departamento_tombstone_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_departamento_tombstone_deleted_at_id ON departamento_tombstone (deleted_at, id);
+
+CREATE OR REPLACE FUNCTION departamento_tombstone() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO departamento_tombstone (id, deleted_at) VALUES (OLD.id, localtimestamp)
+    ON CONFLICT (id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at;
+    RETURN OLD;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS departamento_tombstone ON departamento;
+CREATE TRIGGER departamento_tombstone AFTER DELETE ON departamento
+    FOR EACH ROW EXECUTE FUNCTION departamento_tombstone();
@@ -0,0 +1,44 @@
+-- Prices normalized to pesos, so listings in USD and ARS can be filtered and sorted together in any currency.
+-- cotizacion holds how many ARS one unit of each currency is worth (ARS itself is 1); the rows below are only
+-- a starting point and are replaced through PUT /api/cotizaciones/{moneda}.
+CREATE TABLE IF NOT EXISTS cotizacion (
+    moneda         VARCHAR(255)   NOT NULL CHECK (moneda IN ('USD', 'ARS')),
+    ars_por_unidad NUMERIC(38, 6) NOT NULL CHECK (ars_por_unidad > 0),
+    updated_at     TIMESTAMP(6)   NOT NULL,
+    CONSTRAINT cotizacion_pkey PRIMARY KEY (moneda)
+);
+
+INSERT INTO cotizacion (moneda, ars_por_unidad, updated_at)
+VALUES ('ARS', 1, localtimestamp), ('USD', 1000, localtimestamp)
+ON CONFLICT (moneda) DO NOTHING;
+
+ALTER TABLE departamento ADD COLUMN IF NOT EXISTS precio_ars NUMERIC(38, 2);
+
+-- Kept by a trigger so every write path (JPA, native updates, batch inserts, COPY) fills it. FOR SHARE makes
+-- a write that races a rate change wait for it and use the new rate, instead of committing a stale value
+-- after the bulk recomputation already ran.
+CREATE OR REPLACE FUNCTION departamento_precio_ars() RETURNS trigger AS $$
+BEGIN
+    NEW.precio_ars := round(NEW.precio * (SELECT c.ars_por_unidad FROM cotizacion c WHERE c.moneda = NEW.moneda
+            FOR SHARE), 2);
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS departamento_precio_ars ON departamento;
+CREATE TRIGGER departamento_precio_ars BEFORE INSERT OR UPDATE OF precio, moneda ON departamento
+    FOR EACH ROW EXECUTE FUNCTION departamento_precio_ars();
+
+UPDATE departamento d SET precio_ars = round(d.precio * c.ars_por_unidad, 2)
+FROM cotizacion c
+WHERE c.moneda = d.moneda;
+
+-- Same layout as the precio indexes of V2: equality on disponible, range and keyset order on (precio_ars, id),
+-- updated_at as payload for the conditional-GET version query
+CREATE INDEX IF NOT EXISTS idx_departamento_disponible_precio_ars_id
+    ON departamento (disponible, precio_ars, id) INCLUDE (updated_at);
+
+CREATE INDEX IF NOT EXISTS idx_departamento_precio_ars_id
+    ON departamento (precio_ars, id) INCLUDE (updated_at);
+
+ANALYZE departamento;
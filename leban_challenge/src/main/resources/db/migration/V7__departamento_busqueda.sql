@@ -0,0 +1,14 @@
+-- Full-text search for the q parameter of GET /api/departamentos. The document is generated by PostgreSQL from
+-- the text columns, so no write path has to maintain it; Spanish stemming makes "departamentos luminosos" find
+-- "departamento luminoso". Weights rank a hit in titulo over direccion over descripcion.
+--
+-- Adding a stored generated column rewrites the table once.
+ALTER TABLE departamento ADD COLUMN IF NOT EXISTS busqueda tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('spanish', coalesce(titulo, '')), 'A')
+    || setweight(to_tsvector('spanish', coalesce(direccion, '')), 'B')
+    || setweight(to_tsvector('spanish', coalesce(descripcion, '')), 'C')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_departamento_busqueda ON departamento USING GIN (busqueda);
+
+ANALYZE departamento;
@@ -0,0 +1,38 @@
+-- Delta sync watermark ordered by commit visibility instead of by clock. Every row version records the id of the
+-- transaction that wrote it; a reader only returns rows written by transactions older than the oldest one still
+-- running (pg_snapshot_xmin of its own snapshot). Any transaction that commits later has a larger id, so it can
+-- never land behind a watermark a mirror has already passed, however long it stayed open and whatever the
+-- clocks of the application and database say. Rows from before this migration keep 0: already settled.
+ALTER TABLE departamento ADD COLUMN IF NOT EXISTS change_xid BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE departamento_tombstone ADD COLUMN IF NOT EXISTS change_xid BIGINT NOT NULL DEFAULT 0;
+
+-- Every write path that changes the row as clients see it stamps updated_at; the precio_ars recomputation after
+-- a rate change does not, and stays out of the delta
+CREATE OR REPLACE FUNCTION departamento_change_xid() RETURNS trigger AS $$
+BEGIN
+    NEW.change_xid := pg_current_xact_id()::text::bigint;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS departamento_change_xid ON departamento;
+CREATE TRIGGER departamento_change_xid BEFORE INSERT OR UPDATE OF updated_at ON departamento
+    FOR EACH ROW EXECUTE FUNCTION departamento_change_xid();
+
+CREATE OR REPLACE FUNCTION departamento_tombstone() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO departamento_tombstone (id, deleted_at, change_xid)
+    VALUES (OLD.id, localtimestamp, pg_current_xact_id()::text::bigint)
+    ON CONFLICT (id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at, change_xid = EXCLUDED.change_xid;
+    RETURN OLD;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE INDEX IF NOT EXISTS idx_departamento_change_xid_id ON departamento (change_xid, id);
+
+-- Replaces the (deleted_at, id) index, which only served the previous watermark
+DROP INDEX IF EXISTS idx_departamento_tombstone_deleted_at_id;
+CREATE INDEX IF NOT EXISTS idx_departamento_tombstone_change_xid_id ON departamento_tombstone (change_xid, id);
+
+ANALYZE departamento;
+ANALYZE departamento_tombstone;
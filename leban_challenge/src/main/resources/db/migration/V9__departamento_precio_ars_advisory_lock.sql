@@ -0,0 +1,13 @@
+-- The rate is read without FOR SHARE: every concurrent writer share-locking the same cotizacion row turned its
+-- lock into a MultiXact, and the MultiXact SLRU churned with the write rate. Writers take a shared
+-- transaction-level advisory lock per currency instead, which lives only in the lock manager. A rate change takes
+-- the same lock exclusively (CotizacionServiceImpl) before touching the rate: it waits for the writers that may
+-- have read the old one, so its recomputation sees their rows, and a writer arriving meanwhile waits for it and
+-- then reads the new rate (each statement of a volatile function takes a fresh snapshot in READ COMMITTED).
+CREATE OR REPLACE FUNCTION departamento_precio_ars() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock_shared(hashtext('cotizacion:' || NEW.moneda));
+    NEW.precio_ars := round(NEW.precio * (SELECT c.ars_por_unidad FROM cotizacion c WHERE c.moneda = NEW.moneda), 2);
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
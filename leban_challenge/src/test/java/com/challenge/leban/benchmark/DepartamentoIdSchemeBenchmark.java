@@ -0,0 +1,118 @@
+package com.challenge.leban.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.challenge.leban.util.UuidV7;
+
+/**
+ * Insert throughput and primary key index size of the previous id scheme (random UUID as varchar(255)) against
+ * random and time-ordered UUIDs in the native uuid type. Each scheme fills its own scratch table with
+ * {@code leban.ids.rows} rows in JDBC batches, one transaction per batch, like the batch endpoint does.
+ * Run with {@code mvn test -Pbenchmark -Dtest=DepartamentoIdSchemeBenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "leban.invalidation-bus.enabled=false")
+@ActiveProfiles("integration")
+class DepartamentoIdSchemeBenchmark {
+
+    private static final int ROWS = Integer.getInteger("leban.ids.rows", 500_000);
+    private static final int WARMUP_ROWS = 20_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    private enum Scheme {
+        VARCHAR_V4("varchar(255)", () -> UUID.randomUUID().toString()),
+        UUID_V4("uuid", UUID::randomUUID),
+        UUID_V7("uuid", UuidV7::randomUuid);
+
+        private final String columnType;
+        private final Supplier<Object> ids;
+
+        Scheme(String columnType, Supplier<Object> ids) {
+            this.columnType = columnType;
+            this.ids = ids;
+        }
+
+        String table() {
+            return "id_bench_" + name().toLowerCase();
+        }
+    }
+
+    private record Result(Scheme scheme, double rowsPerSecond, long indexBytes) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void uuidV7InNativeColumnInsertsFasterWithSmallerIndex() {
+        for (Scheme scheme : Scheme.values()) {
+            run(scheme, WARMUP_ROWS);
+        }
+        List<Result> results = new ArrayList<>();
+        for (Scheme scheme : Scheme.values()) {
+            results.add(run(scheme, ROWS));
+        }
+
+        System.out.printf("Id schemes (%d rows, batches of %d)%n", ROWS, BATCH_SIZE);
+        for (Result result : results) {
+            System.out.printf("  %-11s %10.0f rows/s   pk index %8.1f MB (%.1f B/row)%n", result.scheme(),
+                    result.rowsPerSecond(), result.indexBytes() / 1_048_576.0, (double) result.indexBytes() / ROWS);
+        }
+
+        Result varchar = results.get(Scheme.VARCHAR_V4.ordinal());
+        Result v4 = results.get(Scheme.UUID_V4.ordinal());
+        Result v7 = results.get(Scheme.UUID_V7.ordinal());
+        assertTrue(v4.indexBytes() < varchar.indexBytes(), "uuid type should shrink the index");
+        assertTrue(v7.indexBytes() < v4.indexBytes(), "time ordering should avoid half-empty split pages");
+    }
+
+    private Result run(Scheme scheme, int rows) {
+        String table = scheme.table();
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+        jdbcTemplate.execute("CREATE TABLE " + table + " (id " + scheme.columnType + " PRIMARY KEY, "
+                + "precio numeric(38,2) NOT NULL, disponible boolean NOT NULL)");
+        try {
+            String insert = "INSERT INTO " + table + " (id, precio, disponible) VALUES (?, ?, ?)";
+            long start = System.nanoTime();
+            for (int offset = 0; offset < rows; offset += BATCH_SIZE) {
+                int size = Math.min(BATCH_SIZE, rows - offset);
+                int base = offset;
+                jdbcTemplate.batchUpdate(insert, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        statement.setObject(1, scheme.ids.get());
+                        statement.setBigDecimal(2, BigDecimal.valueOf(50_000L + (base + i) % 100_000));
+                        statement.setBoolean(3, (base + i) % 3 != 0);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return size;
+                    }
+                });
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Long indexBytes = jdbcTemplate.queryForObject("SELECT pg_relation_size(?::regclass)", Long.class,
+                    table + "_pkey");
+            return new Result(scheme, rows / seconds, indexBytes);
+        } finally {
+            jdbcTemplate.execute("DROP TABLE " + table);
+        }
+    }
+}
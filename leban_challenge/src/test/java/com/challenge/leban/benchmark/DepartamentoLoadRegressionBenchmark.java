@@ -0,0 +1,330 @@
+package com.challenge.leban.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.challenge.leban.cache.DepartamentoFilterCache;
+import com.challenge.leban.service.IDepartamentoGeneratorService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * End-to-end latency regression suite. Seeds {@code leban.load.rows} rows with the synthetic data generator,
+ * then sends a GET/POST/PUT mix at a fixed arrival rate (open model: latency is measured from the scheduled send
+ * time, so a stalled server is not hidden by fewer requests being sent) for {@code leban.load.runs} measured
+ * windows, and compares the median over the windows of p50/p99 per operation with {@code load/baseline.json}.
+ * p99 rests on a few dozen samples per window, so it gets the wider {@code leban.load.p99-threshold} band.
+ *
+ * <pre>
+ * mvn test -Pbenchmark -Dtest=DepartamentoLoadRegressionBenchmark -Dleban.load.rows=100000 -Dleban.load.rate=300
+ * </pre>
+ *
+ * The database is an embedded PostgreSQL unless {@code -Dleban.load.postgres=testcontainers} or an explicit
+ * {@code -Dspring.datasource.url} is given. {@code -Dleban.load.update-baseline=true} stores the measured run as
+ * the baseline of its scenario instead of comparing.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "leban.invalidation-bus.enabled=false" })
+@ActiveProfiles("integration")
+class DepartamentoLoadRegressionBenchmark {
+
+    private static final int ROWS = Integer.getInteger("leban.load.rows", 10_000);
+    private static final long SEED = Long.getLong("leban.load.seed", 42);
+    private static final int RATE = Integer.getInteger("leban.load.rate", 50);
+    private static final long WARMUP_SECONDS = Long.getLong("leban.load.warmup-seconds", 60);
+    private static final long MEASURED_SECONDS = Long.getLong("leban.load.seconds", 30);
+    private static final int RUNS = Integer.getInteger("leban.load.runs", 3);
+    private static final double THRESHOLD = Double.parseDouble(System.getProperty("leban.load.threshold", "0.25"));
+    private static final double P99_THRESHOLD = Double.parseDouble(
+            System.getProperty("leban.load.p99-threshold", "1.0"));
+    private static final boolean UPDATE_BASELINE = Boolean.getBoolean("leban.load.update-baseline");
+    private static final Path BASELINE = Path.of(System.getProperty("leban.load.baseline",
+            "src/test/resources/load/baseline.json"));
+    private static final Path REPORT = Path.of("target/load/latest.json");
+    // Sub-millisecond percentiles jitter by more than any relative threshold
+    private static final double MIN_DELTA_MS = Double.parseDouble(System.getProperty("leban.load.min-delta-ms", "2"));
+    private static final double MAX_ERROR_RATIO = 0.01;
+
+    private static EmbeddedPostgres embeddedPostgres;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private IDepartamentoGeneratorService generatorService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DepartamentoFilterCache filterCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    enum Operation {
+        GET_LIST, GET_PAGE, POST, PUT
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        if (System.getProperty("spring.datasource.url") != null
+                || "testcontainers".equals(System.getProperty("leban.load.postgres"))) {
+            return;
+        }
+        embeddedPostgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> embeddedPostgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+    }
+
+    @AfterAll
+    static void stopEmbeddedPostgres() throws IOException {
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+
+    @Test
+    void latencyPercentilesStayWithinBaseline() throws IOException {
+        seed();
+        List<String> ids = jdbcTemplate.queryForList("SELECT id FROM departamento LIMIT 1000", String.class);
+
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .executor(requests)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            drive(httpClient, requests, ids, WARMUP_SECONDS);
+            List<Map<String, Map<String, Double>>> runs = new ArrayList<>();
+            for (int run = 0; run < RUNS; run++) {
+                Map<Operation, Stats> measured = drive(httpClient, requests, ids, MEASURED_SECONDS);
+                print(measured);
+                measured.forEach((operation, stats) -> assertTrue(stats.errorRatio() <= MAX_ERROR_RATIO,
+                        operation + " error ratio " + stats.errorRatio()));
+                runs.add(toReport(measured));
+            }
+            Map<String, Map<String, Double>> median = median(runs);
+
+            Map<String, Map<String, Map<String, Double>>> report = Map.of(scenario(), median);
+            Files.createDirectories(REPORT.getParent());
+            objectMapper.writeValue(REPORT.toFile(), report);
+            compareWithBaseline(median);
+        }
+    }
+
+    private void seed() {
+        generatorService.generate(ROWS, SEED, 0.7, true);
+        filterCache.invalidateAll();
+    }
+
+    private Map<Operation, Stats> drive(HttpClient httpClient, ExecutorService requests, List<String> ids,
+            long seconds) {
+        Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+        String baseUrl = "http://localhost:" + port + "/api/departamentos";
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+        long total = seconds * RATE;
+        Phaser inFlight = new Phaser(1);
+        long start = System.nanoTime();
+
+        for (long i = 0; i < total; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = pick();
+            HttpRequest request = request(operation, baseUrl, ids);
+            inFlight.register();
+            requests.submit(() -> {
+                try {
+                    int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    stats.get(operation).record(scheduled, status >= 200 && status < 300);
+                } catch (Exception e) {
+                    stats.get(operation).record(scheduled, false);
+                } finally {
+                    inFlight.arriveAndDeregister();
+                }
+            });
+        }
+        inFlight.arriveAndAwaitAdvance();
+        stats.values().forEach(s -> s.seconds = seconds);
+        return stats;
+    }
+
+    private Operation pick() {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        if (roll < 40) {
+            return Operation.GET_LIST;
+        }
+        if (roll < 70) {
+            return Operation.GET_PAGE;
+        }
+        return roll < 85 ? Operation.POST : Operation.PUT;
+    }
+
+    private HttpRequest request(Operation operation, String baseUrl, List<String> ids) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Log-uniform over the generated USD range, ARS rows sit a thousand times higher
+        long precio = (long) Math.exp(random.nextDouble(Math.log(30_000), Math.log(400_000)));
+        String disponible = switch (random.nextInt(3)) {
+            case 0 -> "disponible=true&";
+            case 1 -> "disponible=false&";
+            default -> "";
+        };
+        return switch (operation) {
+            case GET_LIST -> HttpRequest.newBuilder(URI.create(baseUrl + "?" + disponible + "precioMin=" + precio
+                    + "&precioMax=" + precio * 102 / 100)).GET().build();
+            case GET_PAGE -> HttpRequest.newBuilder(URI.create(baseUrl + "?" + disponible + "precioMin=" + precio
+                    + "&limit=50")).GET().build();
+            case POST -> HttpRequest.newBuilder(URI.create(baseUrl))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body(precio, true)))
+                    .build();
+            case PUT -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + ids.get(random.nextInt(ids.size()))))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(body(precio, random.nextBoolean())))
+                    .build();
+        };
+    }
+
+    private String body(long precio, boolean disponible) {
+        return """
+                {"titulo":"Carga","descripcion":"Departamento de carga","precio":%d,"moneda":"ARS",\
+                "metros_cuadrados":55,"direccion":"Calle de carga","disponible":%b}""".formatted(precio, disponible);
+    }
+
+    private void compareWithBaseline(Map<String, Map<String, Double>> measured) throws IOException {
+        Map<String, Map<String, Map<String, Double>>> baseline = Files.exists(BASELINE)
+                ? objectMapper.readValue(BASELINE.toFile(), new TypeReference<LinkedHashMap<String,
+                        Map<String, Map<String, Double>>>>() {
+                })
+                : new LinkedHashMap<>();
+
+        if (UPDATE_BASELINE) {
+            baseline.put(scenario(), measured);
+            Files.createDirectories(BASELINE.toAbsolutePath().getParent());
+            objectMapper.writeValue(BASELINE.toFile(), baseline);
+            return;
+        }
+        Map<String, Map<String, Double>> expected = baseline.get(scenario());
+        assumeTrue(expected != null, "Sin baseline para " + scenario() + "; usar -Dleban.load.update-baseline=true");
+
+        List<String> regressions = new ArrayList<>();
+        expected.forEach((operation, percentiles) -> percentiles.forEach((percentile, limit) -> {
+            double actual = measured.get(operation).get(percentile);
+            double threshold = "p99".equals(percentile) ? P99_THRESHOLD : THRESHOLD;
+            if (actual > limit * (1 + threshold) && actual - limit > MIN_DELTA_MS) {
+                regressions.add("%s %s: %.2f ms > %.2f ms (+%.0f%%)".formatted(operation, percentile, actual,
+                        limit, 100 * threshold));
+            }
+        }));
+        assertTrue(regressions.isEmpty(), "Regresion de latencia: " + regressions);
+    }
+
+    private String scenario() {
+        return ROWS + "rows@" + RATE + "rps";
+    }
+
+    private Map<String, Map<String, Double>> toReport(Map<Operation, Stats> measured) {
+        Map<String, Map<String, Double>> report = new LinkedHashMap<>();
+        measured.forEach((operation, stats) -> report.put(operation.name(), stats.percentiles()));
+        return report;
+    }
+
+    // Per operation and percentile, the median over the measured windows
+    private Map<String, Map<String, Double>> median(List<Map<String, Map<String, Double>>> runs) {
+        Map<String, Map<String, Double>> median = new LinkedHashMap<>();
+        runs.getFirst().forEach((operation, percentiles) -> percentiles.keySet().forEach(percentile -> {
+            double[] values = runs.stream().mapToDouble(run -> run.get(operation).get(percentile)).toArray();
+            Arrays.sort(values);
+            int middle = values.length / 2;
+            double value = values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+            median.computeIfAbsent(operation, o -> new LinkedHashMap<>()).put(percentile, value);
+        }));
+        return median;
+    }
+
+    private void print(Map<Operation, Stats> measured) {
+        System.out.printf("%s%n%-9s %8s %9s %9s %9s %9s %7s%n", scenario(), "op", "req/s", "p50 ms", "p90 ms",
+                "p99 ms", "p99.9 ms", "errors");
+        measured.forEach((operation, stats) -> {
+            Histogram histogram = stats.histogram;
+            System.out.printf("%-9s %8.1f %9.2f %9.2f %9.2f %9.2f %7d%n", operation,
+                    (double) histogram.getTotalCount() / stats.seconds,
+                    histogram.getValueAtPercentile(50) / 1_000.0, histogram.getValueAtPercentile(90) / 1_000.0,
+                    histogram.getValueAtPercentile(99) / 1_000.0, histogram.getValueAtPercentile(99.9) / 1_000.0,
+                    stats.errors.sum());
+        });
+    }
+
+    private static final class Stats {
+
+        // Microseconds from the scheduled send time, up to one minute with three significant digits
+        private final Histogram histogram = new ConcurrentHistogram(60_000_000L, 3);
+        private final LongAdder errors = new LongAdder();
+        private long seconds;
+
+        private void record(long scheduledNanos, boolean ok) {
+            histogram.recordValue(Math.min((System.nanoTime() - scheduledNanos) / 1_000, 60_000_000L));
+            if (!ok) {
+                errors.increment();
+            }
+        }
+
+        private double errorRatio() {
+            long count = histogram.getTotalCount();
+            return count == 0 ? 0 : (double) errors.sum() / count;
+        }
+
+        private Map<String, Double> percentiles() {
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            percentiles.put("p50", histogram.getValueAtPercentile(50) / 1_000.0);
+            percentiles.put("p99", histogram.getValueAtPercentile(99) / 1_000.0);
+            return percentiles;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.challenge.leban.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.repository.DepartamentoSpecifications;
+import com.challenge.leban.repository.IDepartamentoRepository;
+
+/**
+ * Compares bytes allocated per row by the entity read path (hydrate + getDTO)
+ * against the constructor-expression projection. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("integration")
+class DepartamentoReadAllocationBenchmark {
+
+    private static final int ROWS = 5_000;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 20;
+
+    @Autowired
+    private IDepartamentoRepository departamentoRepository;
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @BeforeEach
+    void setUp() {
+        departamentoRepository.deleteAll();
+        List<Departamento> departamentos = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Departamento departamento = new Departamento();
+            departamento.setData(DepartamentoDto.builder()
+                    .titulo("Departamento " + i)
+                    .descripcion("Descripcion del departamento numero " + i)
+                    .precio(BigDecimal.valueOf(50_000L + i * 10L))
+                    .moneda(i % 2 == 0 ? Moneda.ARS : Moneda.USD)
+                    .metros_cuadrados(40f + i % 80)
+                    .direccion("Calle " + i)
+                    .disponible(i % 3 != 0)
+                    .build());
+            departamentos.add(departamento);
+        }
+        departamentoRepository.saveAll(departamentos);
+    }
+
+    @Test
+    void projectionAllocatesLessPerRowThanEntityHydration() {
+        Specification<Departamento> spec = DepartamentoSpecifications.matches(new DepartamentoFilter(null, null, null));
+
+        double entityBytesPerRow = bytesPerRow(() -> departamentoRepository.findAll(spec)
+                .stream().map(Departamento::getDTO).toList());
+        double projectionBytesPerRow = bytesPerRow(() -> departamentoRepository.findAllDtos(spec));
+
+        System.out.printf("Read allocation per row (%d rows): entity=%.0f B, projection=%.0f B (%.1f%% less)%n",
+                ROWS, entityBytesPerRow, projectionBytesPerRow,
+                100 * (1 - projectionBytesPerRow / entityBytesPerRow));
+
+        assertTrue(projectionBytesPerRow < entityBytesPerRow);
+    }
+
+    private double bytesPerRow(Supplier<List<DepartamentoDto>> read) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            assertEquals(ROWS, read.get().size());
+        }
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            read.get();
+        }
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+        return (double) allocated / ((long) ROWS * MEASURED_ITERATIONS);
+    }
+}
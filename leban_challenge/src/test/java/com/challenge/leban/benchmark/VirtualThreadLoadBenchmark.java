@@ -0,0 +1,160 @@
+package com.challenge.leban.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.challenge.leban.LebanApplication;
+import com.challenge.leban.service.IDepartamentoGeneratorService;
+
+/**
+ * Drives {@code getAllDepartamentos} and {@code addDepartamento} with more concurrent clients than Tomcat has
+ * platform threads, once with platform threads and once with {@code spring.threads.virtual.enabled}, and prints
+ * throughput and latency percentiles of each. Run with {@code mvn test -Pbenchmark}; the measured duration can
+ * be changed with {@code -Dleban.load.seconds}.
+ */
+@Tag("benchmark")
+class VirtualThreadLoadBenchmark {
+
+    private static final int CLIENTS = Integer.getInteger("leban.load.clients", 400);
+    private static final int SEED_ROWS = 2_000;
+    private static final long WARMUP_SECONDS = 5;
+    private static final long MEASURED_SECONDS = Long.getLong("leban.load.seconds", 20);
+
+    @Test
+    void compareThroughputAndTailLatencyOfPlatformAndVirtualThreads() throws Exception {
+        List<LoadResult> results = List.of(run(false), run(true));
+
+        System.out.printf("%-9s %-4s %10s %9s %9s %9s %8s%n", "threads", "op", "req/s", "p50 ms", "p99 ms",
+                "max ms", "errors");
+        for (LoadResult result : results) {
+            result.print("GET", result.gets);
+            result.print("POST", result.posts);
+        }
+
+        results.forEach(result -> assertTrue(result.gets.getTotalCount() > 0 && result.posts.getTotalCount() > 0));
+    }
+
+    private LoadResult run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LebanApplication.class)
+                .profiles("integration")
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.jpa.show-sql=false",
+                        "--leban.invalidation-bus.enabled=false");
+                ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            context.getBean(IDepartamentoGeneratorService.class).generate(SEED_ROWS, 42, 0.7, true);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + "/api/departamentos";
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .executor(clients)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            LoadResult result = new LoadResult(virtualThreads ? "virtual" : "platform");
+            drive(httpClient, baseUrl, clients, result, WARMUP_SECONDS);
+            result.reset();
+            drive(httpClient, baseUrl, clients, result, MEASURED_SECONDS);
+            result.seconds = MEASURED_SECONDS;
+            return result;
+        }
+    }
+
+    private void drive(HttpClient httpClient, String baseUrl, ExecutorService clients, LoadResult result,
+            long seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<?>> running = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            running.add(clients.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    boolean get = ThreadLocalRandom.current().nextBoolean();
+                    HttpRequest request = get ? getRequest(baseUrl) : postRequest(baseUrl);
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    (get ? result.gets : result.posts).recordValue((System.nanoTime() - start) / 1_000);
+                    if (status < 200 || status >= 300) {
+                        (get ? result.getErrors : result.postErrors).increment();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> client : running) {
+            client.get();
+        }
+    }
+
+    private HttpRequest getRequest(String baseUrl) {
+        long precioMin = ThreadLocalRandom.current().nextLong(30_000, 400_000);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "?disponible=true&precioMin=" + precioMin
+                + "&precioMax=" + precioMin * 102 / 100))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest postRequest(String baseUrl) {
+        long precio = ThreadLocalRandom.current().nextLong(30_000, 400_000);
+        String body = """
+                {"titulo":"Carga","descripcion":"Departamento de carga","precio":%d,"moneda":"ARS",\
+                "metros_cuadrados":55,"direccion":"Calle de carga","disponible":true}""".formatted(precio);
+        return HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static final class LoadResult {
+
+        private final String mode;
+        // Microseconds, up to one minute with three significant digits
+        private final Histogram gets = new ConcurrentHistogram(60_000_000L, 3);
+        private final Histogram posts = new ConcurrentHistogram(60_000_000L, 3);
+        private final LongAdder getErrors = new LongAdder();
+        private final LongAdder postErrors = new LongAdder();
+        private long seconds;
+
+        private LoadResult(String mode) {
+            this.mode = mode;
+        }
+
+        private void reset() {
+            gets.reset();
+            posts.reset();
+            getErrors.reset();
+            postErrors.reset();
+        }
+
+        private void print(String op, Histogram histogram) {
+            long errors = histogram == gets ? getErrors.sum() : postErrors.sum();
+            System.out.printf("%-9s %-4s %10.1f %9.2f %9.2f %9.2f %8d%n", mode, op,
+                    (double) histogram.getTotalCount() / seconds,
+                    histogram.getValueAtPercentile(50) / 1_000.0,
+                    histogram.getValueAtPercentile(99) / 1_000.0,
+                    histogram.getMaxValue() / 1_000.0,
+                    errors);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.challenge.leban.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.dto.DepartamentoListVersion;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.event.CotizacionChangedEvent;
+import com.challenge.leban.event.DepartamentoRemoteChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DepartamentoFilterCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DepartamentoFilterCache filterCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filterCache = new DepartamentoFilterCache(meterRegistry, 1000, 100, Duration.ofMinutes(1));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_ShouldLoadOnce_WhenSameNormalizedFilter() {
+        filterCache.get(DepartamentoFilter.of(true, "100000", null), this::load);
+        filterCache.get(DepartamentoFilter.of(true, "100000.00", null), this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(0.5, meterRegistry.get("cache.hit.ratio").gauge().value());
+    }
+
+    @Test
+    void invalidate_ShouldOnlyDropFiltersMatchingBeforeOrAfter() {
+        DepartamentoFilter disponibles = DepartamentoFilter.of(true, null, null);
+        DepartamentoFilter noDisponibles = DepartamentoFilter.of(false, null, null);
+        DepartamentoFilter caros = DepartamentoFilter.of(null, "500000", null);
+        filterCache.get(disponibles, this::load);
+        filterCache.get(noDisponibles, this::load);
+        filterCache.get(caros, this::load);
+
+        filterCache.invalidate(departamento("100000", true), departamento("100000", false));
+
+        filterCache.get(disponibles, this::load);
+        filterCache.get(noDisponibles, this::load);
+        filterCache.get(caros, this::load);
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void invalidate_ShouldUseRemoteChangeStates() {
+        DepartamentoFilter disponibles = DepartamentoFilter.of(true, null, null);
+        DepartamentoFilter caros = DepartamentoFilter.of(null, "500000", null);
+        filterCache.get(disponibles, this::load);
+        filterCache.get(caros, this::load);
+
+        filterCache.invalidate(new DepartamentoRemoteChangedEvent("abc", null, null, true, new BigDecimal("100000"),
+                null));
+
+        filterCache.get(disponibles, this::load);
+        filterCache.get(caros, this::load);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void invalidate_ShouldCompareStoredScale() {
+        DepartamentoFilter desde = DepartamentoFilter.of(null, "100.01", null);
+        filterCache.get(desde, this::load);
+
+        filterCache.invalidate(null, departamento("100.005", true));
+
+        filterCache.get(desde, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_ShouldNotStoreResult_WhenWriteCommittedWhileLoading() {
+        DepartamentoFilter disponibles = DepartamentoFilter.of(true, null, null);
+
+        filterCache.get(disponibles, () -> {
+            filterCache.invalidate(null, departamento("100000", true));
+            return load();
+        });
+        filterCache.get(disponibles, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getVersion_ShouldBeDroppedWithTheResults() {
+        DepartamentoFilter disponibles = DepartamentoFilter.of(true, null, null);
+        DepartamentoFilter noDisponibles = DepartamentoFilter.of(false, null, null);
+        filterCache.getVersion(disponibles, this::loadVersion);
+        filterCache.getVersion(noDisponibles, this::loadVersion);
+        filterCache.getVersion(disponibles, this::loadVersion);
+        assertEquals(2, loads.get());
+
+        filterCache.invalidate(null, departamento("100000", true));
+        filterCache.getVersion(disponibles, this::loadVersion);
+        filterCache.getVersion(noDisponibles, this::loadVersion);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void getVersion_ShouldNotStoreVersion_WhenWriteCommittedWhileLoading() {
+        DepartamentoFilter disponibles = DepartamentoFilter.of(true, null, null);
+
+        filterCache.getVersion(disponibles, () -> {
+            filterCache.invalidate(null, departamento("100000", true));
+            return loadVersion();
+        });
+        filterCache.getVersion(disponibles, this::loadVersion);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateAll_ShouldDropEveryEntry() {
+        DepartamentoFilter disponibles = DepartamentoFilter.of(true, null, null);
+        filterCache.get(disponibles, this::load);
+
+        filterCache.invalidateAll();
+        filterCache.get(disponibles, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onCotizacionChanged_ShouldOnlyDropFiltersInAMoneda() {
+        DepartamentoFilter disponibles = DepartamentoFilter.of(true, null, null);
+        DepartamentoFilter enDolares = DepartamentoFilter.of(true, "100", null, "USD");
+        DepartamentoFilter enPesos = DepartamentoFilter.of(null, null, "150000", "ARS");
+        filterCache.get(disponibles, this::load);
+        filterCache.get(enDolares, this::load);
+        filterCache.get(enPesos, this::load);
+
+        filterCache.onCotizacionChanged(new CotizacionChangedEvent(Moneda.USD));
+        filterCache.get(disponibles, this::load);
+        filterCache.get(enDolares, this::load);
+        filterCache.get(enPesos, this::load);
+
+        assertEquals(5, loads.get());
+    }
+
+    private List<DepartamentoDto> load() {
+        loads.incrementAndGet();
+        return List.of(departamento("100000", true));
+    }
+
+    private DepartamentoListVersion loadVersion() {
+        loads.incrementAndGet();
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 1, 10, 0);
+        return new DepartamentoListVersion(1, updatedAt, updatedAt);
+    }
+
+    private DepartamentoDto departamento(String precio, boolean disponible) {
+        return DepartamentoDto.builder()
+                .id("test-id")
+                .titulo("Departamento")
+                .descripcion("Descripcion")
+                .precio(new BigDecimal(precio))
+                .moneda(Moneda.ARS)
+                .metros_cuadrados(50f)
+                .direccion("Calle 1")
+                .disponible(disponible)
+                .build();
+    }
+}
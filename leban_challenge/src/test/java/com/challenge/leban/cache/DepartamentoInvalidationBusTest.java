@@ -0,0 +1,185 @@
+package com.challenge.leban.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.event.CotizacionChangedEvent;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.event.DepartamentoRemoteChangedEvent;
+import com.challenge.leban.event.DepartamentosResyncEvent;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class DepartamentoInvalidationBusTest {
+
+    private static final String ID = "0192a5f0-0000-7000-8000-000000000001";
+
+    private JdbcTemplate jdbcTemplate;
+    private IDepartamentoRepository departamentoRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private DepartamentoInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        departamentoRepository = mock(IDepartamentoRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        bus = new DepartamentoInvalidationBus(jdbcTemplate, departamentoRepository, new DataSourceProperties(),
+                eventPublisher, new ObjectMapper(), 100, 100);
+    }
+
+    @Test
+    void onDepartamentoChanged_ShouldNotifyAndIgnoreOwnNotification() {
+        bus.onDepartamentoChanged(new DepartamentoChangedEvent(null, departamento("100000", true)));
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), ArgumentMatchers.<ResultSetExtractor<Object>>any(),
+                eq(DepartamentoInvalidationBus.CHANNEL), payload.capture());
+
+        bus.handle((String) payload.getValue());
+
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void remoteChange_ShouldCarryTheCommittedRow() {
+        DepartamentoDto sent = departamento("100000", true);
+        sent.setVersion(3L);
+
+        DepartamentoChangeNotification notification = sendToOtherNode(sent);
+
+        DepartamentoDto received = notification.departamento();
+        assertEquals("Depto", received.getTitulo());
+        assertEquals(Moneda.ARS, received.getMoneda());
+        assertEquals(3L, notification.version());
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(3L, ((DepartamentoRemoteChangedEvent) event.getValue()).departamento().getVersion());
+        verify(departamentoRepository, never()).findById(any());
+    }
+
+    @Test
+    void remoteChange_ShouldReadTheRowOnce_WhenItDoesNotFitInTheNotification() {
+        DepartamentoDto sent = departamento("100000", true);
+        // Control characters are escaped as six bytes each; validated rows stay below the limit even so
+        sent.setDescripcion("\u0001".repeat(1500));
+        Departamento stored = new Departamento();
+        stored.setId(UUID.fromString(ID));
+        stored.setTitulo("Leido");
+        when(departamentoRepository.findById(UUID.fromString(ID))).thenReturn(Optional.of(stored));
+
+        DepartamentoChangeNotification notification = sendToOtherNode(sent);
+
+        assertNull(notification.departamento());
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals("Leido", ((DepartamentoRemoteChangedEvent) event.getValue()).departamento().getTitulo());
+        verify(departamentoRepository).findById(UUID.fromString(ID));
+    }
+
+    @Test
+    void handle_ShouldPublishRemoteChange_WhenNotificationFromAnotherNode() {
+        bus.handle("{\"node\":\"other\",\"bulk\":false,\"id\":\"" + ID + "\",\"disponibleAntes\":true,"
+                + "\"precioAntes\":100,\"disponible\":false,\"precio\":250.5}");
+
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        DepartamentoRemoteChangedEvent change = (DepartamentoRemoteChangedEvent) event.getValue();
+        assertEquals(ID, change.id());
+        assertEquals(true, change.disponibleAntes());
+        assertEquals(0, new BigDecimal("250.5").compareTo(change.precio()));
+    }
+
+    @Test
+    void handle_ShouldPublishResync_WhenBulkNotificationFromAnotherNode() {
+        bus.handle("{\"node\":\"other\",\"bulk\":true}");
+
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(DepartamentosResyncEvent.class, event.getValue().getClass());
+    }
+
+    @Test
+    void rateChange_ShouldReachOtherNodesAsRateChange() {
+        bus.onCotizacionChanged(new CotizacionChangedEvent(Moneda.USD));
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), ArgumentMatchers.<ResultSetExtractor<Object>>any(),
+                eq(DepartamentoInvalidationBus.CHANNEL), payload.capture());
+
+        DepartamentoInvalidationBus other = new DepartamentoInvalidationBus(jdbcTemplate, departamentoRepository,
+                new DataSourceProperties(), eventPublisher, new ObjectMapper(), 100, 100);
+        other.handle((String) payload.getValue());
+
+        verify(eventPublisher).publishEvent(new CotizacionChangedEvent(Moneda.USD));
+        verify(eventPublisher, never()).publishEvent(any(DepartamentosResyncEvent.class));
+    }
+
+    @Test
+    void handle_ShouldIgnoreMalformedPayload() {
+        bus.handle("not json");
+
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void remoteCreation_ShouldHaveNoPreviousState() {
+        bus.handle("{\"node\":\"other\",\"bulk\":false,\"id\":\"" + ID + "\",\"disponible\":true,\"precio\":10}");
+
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertNull(((DepartamentoRemoteChangedEvent) event.getValue()).precioAntes());
+    }
+
+    // Notifies from one bus and hands the payload to another one, as a second node would receive it
+    private DepartamentoChangeNotification sendToOtherNode(DepartamentoDto departamento) {
+        bus.onDepartamentoChanged(new DepartamentoChangedEvent(null, departamento));
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), ArgumentMatchers.<ResultSetExtractor<Object>>any(),
+                eq(DepartamentoInvalidationBus.CHANNEL), payload.capture());
+        String json = (String) payload.getValue();
+        assertTrue(json.getBytes(StandardCharsets.UTF_8).length <= DepartamentoInvalidationBus.MAX_PAYLOAD_BYTES);
+
+        DepartamentoInvalidationBus other = new DepartamentoInvalidationBus(jdbcTemplate, departamentoRepository,
+                new DataSourceProperties(), eventPublisher, new ObjectMapper(), 100, 100);
+        other.handle(json);
+        try {
+            return new ObjectMapper().readValue(json, DepartamentoChangeNotification.class);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private DepartamentoDto departamento(String precio, boolean disponible) {
+        return DepartamentoDto.builder()
+                .id(ID)
+                .titulo("Depto")
+                .precio(new BigDecimal(precio))
+                .moneda(Moneda.ARS)
+                .disponible(disponible)
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.challenge.leban.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.challenge.leban.exception.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConnectionPoolGuardTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConnectionPoolGuard guard;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        guard = new ConnectionPoolGuard(meterRegistry, 1, Duration.ofMillis(50));
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void preHandle_ShouldRejectWithServiceUnavailable_WhenAllPermitsInUse() throws Exception {
+        MockHttpServletRequest first = new MockHttpServletRequest();
+        assertTrue(guard.preHandle(first, response, null));
+
+        ServiceUnavailableException ex = assertThrows(ServiceUnavailableException.class,
+                () -> guard.preHandle(new MockHttpServletRequest(), response, null));
+        assertEquals(503, ex.getStatusCode());
+        assertEquals(0.0, meterRegistry.get("leban.concurrency.guard.available").gauge().value());
+    }
+
+    @Test
+    void afterCompletion_ShouldReleasePermitOnce() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        guard.preHandle(request, response, null);
+
+        guard.afterCompletion(request, response, null, null);
+        guard.afterCompletion(request, response, null, null);
+
+        assertEquals(1, guard.availablePermits());
+    }
+
+    @Test
+    void preHandle_ShouldReusePermit_OnAsyncDispatchOfSameRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        guard.preHandle(request, response, null);
+        guard.afterConcurrentHandlingStarted(request, response, null);
+
+        assertTrue(guard.preHandle(request, response, null));
+        guard.afterCompletion(request, response, null, null);
+
+        assertEquals(1, guard.availablePermits());
+    }
+
+    @Test
+    void preHandle_ShouldNotTakePermit_ForEventStreams() throws Exception {
+        HandlerMethod handler = new HandlerMethod(new EventStreamHandler(), "changes");
+
+        assertTrue(guard.preHandle(new MockHttpServletRequest(), response, handler));
+        assertTrue(guard.preHandle(new MockHttpServletRequest(), response, handler));
+        assertEquals(1, guard.availablePermits());
+    }
+
+    static class EventStreamHandler {
+
+        public SseEmitter changes() {
+            return new SseEmitter();
+        }
+    }
+}
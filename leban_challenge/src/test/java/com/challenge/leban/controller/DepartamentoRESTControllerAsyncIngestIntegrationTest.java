@@ -0,0 +1,101 @@
+package com.challenge.leban.controller;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = { "leban.ingest.async=true", "leban.ingest.max-delay=10ms",
+        "leban.invalidation-bus.enabled=false" })
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+class DepartamentoRESTControllerAsyncIngestIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IDepartamentoRepository departamentoRepository;
+
+    @BeforeEach
+    void setUp() {
+        departamentoRepository.deleteAll();
+    }
+
+    @Test
+    void addDepartamento_shouldAcceptAndWriteInBackground() throws Exception {
+        DepartamentoDto dto = DepartamentoDto.builder()
+                .titulo("Queued Department")
+                .descripcion("Written by the ingest queue")
+                .precio(new BigDecimal("175000"))
+                .moneda(Moneda.ARS)
+                .metros_cuadrados(60f)
+                .direccion("Queue Street 1")
+                .disponible(true)
+                .build();
+
+        MvcResult accepted = mockMvc.perform(post("/api/departamentos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.titulo", is("Queued Department")))
+                .andExpect(jsonPath("$.version").value(nullValue()))
+                .andReturn();
+        String id = objectMapper.readTree(accepted.getResponse().getContentAsString()).get("id").asText();
+        String location = accepted.getResponse().getHeader("Location");
+        assertTrue(location.endsWith("/api/departamentos/ingest/" + id));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> mockMvc.perform(get(location))
+                .andReturn().getResponse().getContentAsString().contains("\"CREADO\""));
+
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estado", is("CREADO")))
+                .andExpect(jsonPath("$.departamento.id", is(id)))
+                .andExpect(jsonPath("$.departamento.version", is(0)));
+        assertEquals("Queued Department", departamentoRepository.findById(UUID.fromString(id)).orElseThrow().getTitulo());
+    }
+
+    @Test
+    void addDepartamento_shouldValidateBeforeQueueing() throws Exception {
+        mockMvc.perform(post("/api/departamentos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"titulo\": \"\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist("Location"));
+    }
+
+    @Test
+    void getIngestStatus_shouldReturnNotFound_WhenUnknown() throws Exception {
+        mockMvc.perform(get("/api/departamentos/ingest/" + UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+}
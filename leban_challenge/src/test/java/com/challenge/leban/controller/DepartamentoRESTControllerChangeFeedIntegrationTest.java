@@ -0,0 +1,136 @@
+package com.challenge.leban.controller;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.event.DepartamentoRemoteChangedEvent;
+import com.challenge.leban.event.DepartamentosResyncEvent;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.challenge.leban.service.IDepartamentoService;
+
+@SpringBootTest(properties = "leban.invalidation-bus.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+class DepartamentoRESTControllerChangeFeedIntegrationTest {
+
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)\\s+event:created");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IDepartamentoService departamentoService;
+
+    @Autowired
+    private IDepartamentoRepository departamentoRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        departamentoRepository.deleteAll();
+    }
+
+    @Test
+    void streamChanges_shouldPushCommittedChangesMatchingTheFilter() throws Exception {
+        MockHttpServletResponse stream = subscribe("/api/departamentos/changes?disponible=true&precioMax=200000", null);
+
+        departamentoService.add(departamento("Hidden expensive", "900000", true));
+        DepartamentoDto created = departamentoService.add(departamento("Visible", "150000", true));
+        departamentoService.update(departamento("Visible", "150000", false), created.getId());
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> stream.getContentAsString().contains("event:updated"));
+        String body = stream.getContentAsString();
+        assertTrue(body.contains("event:created"));
+        assertTrue(body.contains("\"titulo\":\"Visible\""));
+        assertFalse(body.contains("Hidden expensive"));
+    }
+
+    @Test
+    void streamChanges_shouldReplayFromLastEventId() throws Exception {
+        MockHttpServletResponse first = subscribe("/api/departamentos/changes", null);
+        departamentoService.add(departamento("Before disconnect", "100000", true));
+        await().atMost(Duration.ofSeconds(5)).until(() -> first.getContentAsString().contains("Before disconnect"));
+        Matcher id = EVENT_ID.matcher(first.getContentAsString());
+        assertTrue(id.find());
+
+        departamentoService.add(departamento("While disconnected", "110000", true));
+
+        MockHttpServletResponse resumed = subscribe("/api/departamentos/changes", id.group(1));
+        await().atMost(Duration.ofSeconds(5)).until(() -> resumed.getContentAsString().contains("While disconnected"));
+        assertFalse(resumed.getContentAsString().contains("Before disconnect"));
+    }
+
+    @Test
+    void streamChanges_shouldAskForResync_WhenLastEventIdIsUnknown() throws Exception {
+        MockHttpServletResponse stream = subscribe("/api/departamentos/changes", "stale-42");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> stream.getContentAsString().contains("event:resync"));
+    }
+
+    @Test
+    void streamChanges_shouldPushChangesFromOtherNodes() throws Exception {
+        DepartamentoDto remote = departamentoService.add(departamento("Changed elsewhere", "150000", true));
+        MockHttpServletResponse stream = subscribe("/api/departamentos/changes?disponible=true", null);
+
+        eventPublisher.publishEvent(new DepartamentoRemoteChangedEvent(remote.getId(), true,
+                new BigDecimal("150000"), true, new BigDecimal("150000"), remote));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> stream.getContentAsString().contains("event:updated"));
+        assertTrue(stream.getContentAsString().contains("\"titulo\":\"Changed elsewhere\""));
+    }
+
+    @Test
+    void streamChanges_shouldAskForResync_WhenInvalidationBusResyncs() throws Exception {
+        MockHttpServletResponse stream = subscribe("/api/departamentos/changes", null);
+
+        eventPublisher.publishEvent(new DepartamentosResyncEvent("conexion"));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> stream.getContentAsString().contains("event:resync"));
+    }
+
+    private MockHttpServletResponse subscribe(String url, String lastEventId) throws Exception {
+        var request = get(url).accept(MediaType.TEXT_EVENT_STREAM);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    private static DepartamentoDto departamento(String titulo, String precio, boolean disponible) {
+        return DepartamentoDto.builder()
+                .titulo(titulo)
+                .descripcion("Change feed test")
+                .precio(new BigDecimal(precio))
+                .moneda(Moneda.USD)
+                .metros_cuadrados(45f)
+                .direccion("Feed Street 1")
+                .disponible(disponible)
+                .build();
+    }
+}
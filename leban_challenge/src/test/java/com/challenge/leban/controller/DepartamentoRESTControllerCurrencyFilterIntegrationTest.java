@@ -0,0 +1,264 @@
+package com.challenge.leban.controller;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.challenge.leban.service.IDepartamentoService;
+import com.challenge.leban.util.UuidV7;
+
+@SpringBootTest(properties = "leban.invalidation-bus.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+class DepartamentoRESTControllerCurrencyFilterIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IDepartamentoService departamentoService;
+
+    @Autowired
+    private IDepartamentoRepository departamentoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String usd100;
+    private String ars150k;
+    private String usd200;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        departamentoRepository.deleteAll();
+        setRate("1000");
+        usd100 = create("USD 100", "100", Moneda.USD);
+        ars150k = create("ARS 150000", "150000", Moneda.ARS);
+        usd200 = create("USD 200", "200", Moneda.USD);
+    }
+
+    @AfterEach
+    void restoreRate() throws Exception {
+        setRate("1000");
+    }
+
+    @Test
+    void getDepartamentos_shouldFilterAndSortInTheRequestedCurrency() throws Exception {
+        mockMvc.perform(get("/api/departamentos")
+                        .param("moneda", "USD")
+                        .param("precioMin", "100")
+                        .param("precioMax", "160"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(usd100, ars150k)));
+
+        mockMvc.perform(get("/api/departamentos")
+                        .param("moneda", "ARS")
+                        .param("precioMin", "120000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(ars150k, usd200)));
+
+        // Without moneda the bounds still compare precio as stored
+        mockMvc.perform(get("/api/departamentos")
+                        .param("precioMin", "100")
+                        .param("precioMax", "160"))
+                .andExpect(jsonPath("$[*].id", contains(usd100)));
+    }
+
+    @Test
+    void getDepartamentosPage_shouldPageInConvertedPriceOrder() throws Exception {
+        String next = mockMvc.perform(get("/api/departamentos")
+                        .param("moneda", "USD")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(usd100, ars150k)))
+                .andReturn().getResponse().getHeader(HttpHeaders.LINK);
+
+        String cursor = next.substring(next.indexOf("cursor=") + "cursor=".length(), next.indexOf('>'));
+        mockMvc.perform(get("/api/departamentos")
+                        .param("moneda", "USD")
+                        .param("limit", "2")
+                        .param("cursor", cursor))
+                .andExpect(jsonPath("$.items[*].id", contains(usd200)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void streamDepartamentos_shouldFilterInTheRequestedCurrency() throws Exception {
+        MvcResult asyncResult = mockMvc.perform(get("/api/departamentos")
+                        .param("moneda", "USD")
+                        .param("precioMin", "120")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.strip().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(body.contains(ars150k));
+        assertTrue(body.contains(usd200));
+    }
+
+    @Test
+    void exportDepartamentos_shouldFilterAndSortInTheRequestedCurrency() throws Exception {
+        MvcResult asyncResult = mockMvc.perform(get("/api/departamentos/export")
+                        .param("moneda", "ARS")
+                        .param("precioMax", "160000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.strip().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].startsWith(usd100));
+        assertTrue(lines[2].startsWith(ars150k));
+    }
+
+    @Test
+    void streamChanges_shouldRejectCurrencyFilter() throws Exception {
+        mockMvc.perform(get("/api/departamentos/changes")
+                        .param("moneda", "USD")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("El feed de cambios no admite filtrar por moneda")));
+    }
+
+    @Test
+    void updateCotizacion_shouldRefilterAndChangeTheListVersion() throws Exception {
+        String etag = mockMvc.perform(get("/api/departamentos")
+                        .param("moneda", "ARS")
+                        .param("precioMax", "160000"))
+                .andExpect(jsonPath("$[*].id", contains(usd100, ars150k)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        setRate("1600");
+
+        mockMvc.perform(get("/api/departamentos")
+                        .param("moneda", "ARS")
+                        .param("precioMax", "160000")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(ars150k, usd100)))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void updateCotizacion_shouldWaitForWritesThatMayHaveReadTheOldRate() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Its trigger read the 1000 rate, and it is still open when the rate changes
+        UUID id = UuidV7.randomUuid();
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    jdbcTemplate.update("INSERT INTO departamento (id, titulo, descripcion, precio, moneda, direccion, "
+                            + "disponible, created_at, updated_at) VALUES (?, 'USD en vuelo', 'Currency filter test', "
+                            + "300, 'USD', 'Cambio 1', true, localtimestamp, localtimestamp)", id);
+                    written.countDown();
+                    awaitLatch(release);
+                }));
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> rateChange = CompletableFuture.runAsync(() -> {
+            try {
+                setRate("2000");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThrows(TimeoutException.class, () -> rateChange.get(500, TimeUnit.MILLISECONDS));
+        release.countDown();
+        writer.get(5, TimeUnit.SECONDS);
+        rateChange.get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, new BigDecimal("600000").compareTo(jdbcTemplate.queryForObject(
+                "SELECT precio_ars FROM departamento WHERE id = ?", BigDecimal.class, id)));
+    }
+
+    @Test
+    void updateCotizacion_shouldRejectBaseCurrencyAndInvalidRates() throws Exception {
+        mockMvc.perform(put("/api/cotizaciones/ARS")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"arsPorUnidad\": 2}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/cotizaciones/USD")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"arsPorUnidad\": 0}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/departamentos").param("moneda", "EUR"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/cotizaciones"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].moneda", is("USD")));
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void setRate(String arsPorUnidad) throws Exception {
+        mockMvc.perform(put("/api/cotizaciones/USD")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"arsPorUnidad\": " + arsPorUnidad + "}"))
+                .andExpect(status().isOk());
+    }
+
+    private String create(String titulo, String precio, Moneda moneda) {
+        return departamentoService.add(DepartamentoDto.builder()
+                .titulo(titulo)
+                .descripcion("Currency filter test")
+                .precio(new BigDecimal(precio))
+                .moneda(moneda)
+                .metros_cuadrados(40f)
+                .direccion("Cambio 1")
+                .disponible(true)
+                .build()).getId();
+    }
+}
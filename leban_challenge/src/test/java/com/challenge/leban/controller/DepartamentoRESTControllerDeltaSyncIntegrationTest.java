@@ -0,0 +1,159 @@
+package com.challenge.leban.controller;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.challenge.leban.service.IDepartamentoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = "leban.invalidation-bus.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+class DepartamentoRESTControllerDeltaSyncIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IDepartamentoService departamentoService;
+
+    @Autowired
+    private IDepartamentoRepository departamentoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        departamentoRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM departamento_tombstone");
+    }
+
+    @Test
+    void getChangesSince_shouldPageFromTheBeginning() throws Exception {
+        String first = create("Sync 1", true).getId();
+        String second = create("Sync 2", true).getId();
+        String third = create("Sync 3", true).getId();
+
+        String next = sync("", 2)
+                .andExpect(jsonPath("$.changes", hasSize(2)))
+                .andExpect(jsonPath("$.changes[0].id", is(first)))
+                .andExpect(jsonPath("$.changes[1].id", is(second)))
+                .andExpect(jsonPath("$.changes[0].eliminado", is(false)))
+                .andExpect(jsonPath("$.hasMore", is(true)))
+                .andReturn().getResponse().getContentAsString();
+
+        String last = sync(token(next), 2)
+                .andExpect(jsonPath("$.changes", hasSize(1)))
+                .andExpect(jsonPath("$.changes[0].id", is(third)))
+                .andExpect(jsonPath("$.hasMore", is(false)))
+                .andReturn().getResponse().getContentAsString();
+
+        sync(token(last), 2)
+                .andExpect(jsonPath("$.changes", hasSize(0)))
+                .andExpect(jsonPath("$.next", is(token(last))));
+    }
+
+    @Test
+    void getChangesSince_shouldReturnOnlyUpdatesAndDeletionsAfterToken() throws Exception {
+        DepartamentoDto flipped = create("Flipped", true);
+        DepartamentoDto deleted = create("Deleted", true);
+        create("Untouched", true);
+        String watermark = token(sync("", 500).andReturn().getResponse().getContentAsString());
+
+        departamentoService.update(departamento("Flipped", false), flipped.getId());
+        departamentoRepository.deleteById(UUID.fromString(deleted.getId()));
+
+        sync(watermark, 500)
+                .andExpect(jsonPath("$.changes", hasSize(2)))
+                .andExpect(jsonPath("$.changes[0].id", is(flipped.getId())))
+                .andExpect(jsonPath("$.changes[0].departamento.disponible", is(false)))
+                .andExpect(jsonPath("$.changes[1].id", is(deleted.getId())))
+                .andExpect(jsonPath("$.changes[1].eliminado", is(true)))
+                .andExpect(jsonPath("$.changes[1].departamento").doesNotExist());
+    }
+
+    @Test
+    void getChangesSince_shouldHoldBackChangesCommittedAfterAnOlderOpenTransaction() throws Exception {
+        String watermark = token(sync("", 500).andReturn().getResponse().getContentAsString());
+
+        try (Connection slow = dataSource.getConnection(); Statement statement = slow.createStatement()) {
+            slow.setAutoCommit(false);
+            statement.executeUpdate("INSERT INTO departamento (id, titulo, descripcion, precio, moneda, "
+                    + "metros_cuadrados, direccion, disponible, created_at, updated_at) VALUES (uuid_generate_v7(), "
+                    + "'Slow writer', 'Delta sync test', 1000, 'USD', 40, 'Sync Street 1', true, now(), now())");
+            DepartamentoDto fast = create("Fast writer", true);
+
+            // The fast row is committed, but the slow one will commit with an older transaction id
+            sync(watermark, 500).andExpect(jsonPath("$.changes", hasSize(0)));
+
+            slow.commit();
+            sync(watermark, 500)
+                    .andExpect(jsonPath("$.changes", hasSize(2)))
+                    .andExpect(jsonPath("$.changes[0].departamento.titulo", is("Slow writer")))
+                    .andExpect(jsonPath("$.changes[1].id", is(fast.getId())));
+        }
+    }
+
+    @Test
+    void getChangesSince_shouldRejectInvalidToken() throws Exception {
+        mockMvc.perform(get("/api/departamentos/changes").param("since", "not-a-token"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions sync(String since, int limit) throws Exception {
+        return mockMvc.perform(get("/api/departamentos/changes")
+                .param("since", since)
+                .param("limit", String.valueOf(limit)))
+                .andExpect(status().isOk());
+    }
+
+    private String token(String body) throws Exception {
+        return objectMapper.readTree(body).get("next").asText();
+    }
+
+    private DepartamentoDto create(String titulo, boolean disponible) {
+        return departamentoService.add(departamento(titulo, disponible));
+    }
+
+    private static DepartamentoDto departamento(String titulo, boolean disponible) {
+        return DepartamentoDto.builder()
+                .titulo(titulo)
+                .descripcion("Delta sync test")
+                .precio(new BigDecimal("120000"))
+                .moneda(Moneda.USD)
+                .metros_cuadrados(40f)
+                .direccion("Sync Street 1")
+                .disponible(disponible)
+                .build();
+    }
+}
@@ -2,23 +2,39 @@ package com.challenge.leban.controller;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import com.challenge.leban.cache.DepartamentoFilterCache;
 import com.challenge.leban.dto.DepartamentoDto;
 import com.challenge.leban.enums.Moneda;
 import com.challenge.leban.repository.IDepartamentoRepository;
@@ -38,9 +54,16 @@ class DepartamentoRESTControllerIntegrationTest {
     @Autowired
     private IDepartamentoRepository departamentoRepository;
 
+    @Autowired
+    private DepartamentoFilterCache filterCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     void setUp() {
         departamentoRepository.deleteAll();
+        filterCache.invalidateAll();
     }
 
     @Test
@@ -133,6 +156,131 @@ class DepartamentoRESTControllerIntegrationTest {
                 .andExpect(jsonPath("$.disponible", is(true)));
     }
 
+    @Test
+    void createDepartamento_shouldAssignTimeOrderedUuidV7Ids() throws Exception {
+        UUID first = UUID.fromString(createDepartamento("First", "100000", true));
+        UUID second = UUID.fromString(createDepartamento("Second", "100000", true));
+
+        assertEquals(7, first.version());
+        assertEquals(7, second.version());
+        assertTrue(first.toString().compareTo(second.toString()) < 0);
+    }
+
+    @Test
+    void updateDepartamento_withMalformedId_shouldReturnNotFound() throws Exception {
+        DepartamentoDto updateDto = DepartamentoDto.builder()
+                .titulo("After Update")
+                .descripcion("After update description")
+                .precio(new BigDecimal("110000"))
+                .moneda(Moneda.ARS)
+                .metros_cuadrados(50f)
+                .direccion("After update address")
+                .disponible(true)
+                .build();
+
+        mockMvc.perform(put("/api/departamentos/not-a-uuid")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateDto)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void updateDepartamento_withCurrentIfMatch_shouldUpdateAndReturnNewEtag() throws Exception {
+        String id = createDepartamento("Versioned", "100000", true);
+
+        mockMvc.perform(put("/api/departamentos/" + id)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateDto("First edit"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.version", is(1)))
+                .andExpect(jsonPath("$.titulo", is("First edit")));
+    }
+
+    @Test
+    void updateDepartamento_withStaleIfMatch_shouldReturnPreconditionFailedAndKeepRow() throws Exception {
+        String id = createDepartamento("Versioned", "100000", true);
+        mockMvc.perform(put("/api/departamentos/" + id)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateDto("First edit"))))
+                .andExpect(status().isOk());
+
+        // A second writer still holding version 0 must not overwrite the first edit
+        mockMvc.perform(put("/api/departamentos/" + id)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateDto("Lost edit"))))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/departamentos/" + id)
+                .header("If-Match", "W/\"1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateDto("Weak edit"))))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/api/departamentos"))
+                .andExpect(jsonPath("$[0].titulo", is("First edit")))
+                .andExpect(jsonPath("$[0].version", is(1)));
+    }
+
+    @Test
+    void patchDepartamento_withMergePatch_shouldChangeOnlyGivenFields() throws Exception {
+        String id = createDepartamento("Patched", "100000", true);
+
+        mockMvc.perform(patch("/api/departamentos/" + id)
+                .header("If-Match", "\"0\"")
+                .contentType("application/merge-patch+json")
+                .content("{\"disponible\": false}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.disponible", is(false)))
+                .andExpect(jsonPath("$.titulo", is("Patched")))
+                .andExpect(jsonPath("$.precio", is(100000.0)));
+
+        mockMvc.perform(get("/api/departamentos?disponible=false"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(id)));
+    }
+
+    @Test
+    void patchDepartamento_withInvalidOrStaleFields_shouldBeRejected() throws Exception {
+        String id = createDepartamento("Patched", "100000", true);
+
+        mockMvc.perform(patch("/api/departamentos/" + id)
+                .contentType("application/merge-patch+json")
+                .content("{\"precio\": -5}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/departamentos/" + id)
+                .contentType("application/merge-patch+json")
+                .content("{\"titulo\": null}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/departamentos/" + id)
+                .header("If-Match", "\"5\"")
+                .contentType("application/merge-patch+json")
+                .content("{\"precio\": 1}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void bulkUpdateDepartamentos_shouldReturnCountsAndRefreshCachedLists() throws Exception {
+        String first = createDepartamento("Sold out 1", "100000", true);
+        String second = createDepartamento("Sold out 2", "110000", true);
+        mockMvc.perform(get("/api/departamentos?disponible=true"))
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        mockMvc.perform(post("/api/departamentos/bulk-update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\": [\"" + first + "\", \"" + second + "\"], \"disponible\": false}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matched", is(2)))
+                .andExpect(jsonPath("$.updated", is(2)))
+                .andExpect(jsonPath("$.disponibleChanged", is(2)));
+
+        mockMvc.perform(get("/api/departamentos?disponible=true"))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
     @Test
     void getAllDepartamentos_withDisponibleFilter_shouldReturnFilteredResults() throws Exception {
         DepartamentoDto availableDto = DepartamentoDto.builder()
@@ -261,4 +409,336 @@ class DepartamentoRESTControllerIntegrationTest {
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].titulo", is("Perfect Match")));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getDepartamentosPage_shouldWalkAllPagesWithCursor() throws Exception {
+        createDepartamento("Page 3", "300000", true);
+        createDepartamento("Page 1", "100000", true);
+        createDepartamento("Page 2", "200000", true);
+        createDepartamento("Not Available", "150000", false);
+
+        String firstPage = mockMvc.perform(get("/api/departamentos?disponible=true&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Link"))
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].titulo", is("Page 1")))
+                .andExpect(jsonPath("$.items[1].titulo", is("Page 2")))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andExpect(jsonPath("$.next").exists())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/departamentos?disponible=true&limit=2&cursor=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Link"))
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].titulo", is("Page 3")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getDepartamentosPage_withInvalidCursor_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/departamentos?limit=10&cursor=invalid"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamDepartamentos_shouldReturnOneJsonDocumentPerLine() throws Exception {
+        createDepartamento("Stream 1", "100000", true);
+        createDepartamento("Stream 2", "200000", true);
+        createDepartamento("Stream Hidden", "300000", false);
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/departamentos?disponible=true")
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String[] lines = body.strip().split("\n");
+        assertEquals(2, lines.length);
+        for (String line : lines) {
+            assertTrue(objectMapper.readTree(line).get("disponible").asBoolean());
+        }
+    }
+
+    @Test
+    void addDepartamentos_withJsonArray_shouldInsertValidItemsAndReportErrors() throws Exception {
+        DepartamentoDto valid = DepartamentoDto.builder()
+                .titulo("Batch Dept")
+                .descripcion("Batch department description")
+                .precio(new BigDecimal("120000"))
+                .moneda(Moneda.USD)
+                .metros_cuadrados(60f)
+                .direccion("Batch street")
+                .disponible(true)
+                .build();
+        DepartamentoDto invalid = DepartamentoDto.builder()
+                .titulo("")
+                .descripcion("Batch department description")
+                .precio(new BigDecimal("-1"))
+                .moneda(Moneda.USD)
+                .metros_cuadrados(60f)
+                .direccion("Batch street")
+                .disponible(true)
+                .build();
+
+        mockMvc.perform(post("/api/departamentos/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(valid, invalid, valid))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received", is(3)))
+                .andExpect(jsonPath("$.inserted", is(2)))
+                .andExpect(jsonPath("$.errors", hasSize(1)))
+                .andExpect(jsonPath("$.errors[0].index", is(1)));
+
+        mockMvc.perform(get("/api/departamentos"))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void addDepartamentos_withNdjson_shouldInsertEveryLine() throws Exception {
+        DepartamentoDto dto = DepartamentoDto.builder()
+                .titulo("Ndjson Dept")
+                .descripcion("Ndjson department description")
+                .precio(new BigDecimal("90000"))
+                .moneda(Moneda.ARS)
+                .metros_cuadrados(45f)
+                .direccion("Ndjson street")
+                .disponible(false)
+                .build();
+        String line = objectMapper.writeValueAsString(dto);
+
+        mockMvc.perform(post("/api/departamentos/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(line + "\n" + line + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received", is(2)))
+                .andExpect(jsonPath("$.inserted", is(2)))
+                .andExpect(jsonPath("$.errors", hasSize(0)));
+    }
+
+    @Test
+    void importDepartamentos_shouldInsertNewRowsAndUpdateExistingOnes() throws Exception {
+        String existingId = createDepartamento("Before Import", "100000", true);
+        String csv = "id,titulo,descripcion,precio,moneda,metros_cuadrados,direccion,disponible\n"
+                + existingId + ",After Import,Imported description,110000,USD,70,Imported street,false\n"
+                + ",New Import,New imported description,95000,ARS,40,New street,true\n";
+
+        mockMvc.perform(post("/api/departamentos/import")
+                .contentType("text/csv")
+                .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.staged", is(2)))
+                .andExpect(jsonPath("$.inserted", is(1)))
+                .andExpect(jsonPath("$.updated", is(1)));
+
+        mockMvc.perform(get("/api/departamentos?disponible=false"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(existingId)))
+                .andExpect(jsonPath("$[0].titulo", is("After Import")));
+        String importedId = objectMapper.readTree(mockMvc.perform(get("/api/departamentos?disponible=true"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].titulo", is("New Import")))
+                .andReturn().getResponse().getContentAsString()).get(0).get("id").asText();
+        assertEquals(7, UUID.fromString(importedId).version());
+    }
+
+    @Test
+    void importDepartamentos_withInvalidRow_shouldRollbackAndReturnBadRequest() throws Exception {
+        String csv = "id,titulo,descripcion,precio,moneda,metros_cuadrados,direccion,disponible\n"
+                + ",Valid,Valid description,95000,ARS,40,Valid street,true\n"
+                + ",,Missing title,95000,ARS,40,Street,true\n";
+
+        mockMvc.perform(post("/api/departamentos/import")
+                .contentType("text/csv")
+                .content(csv))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/departamentos"))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void importDepartamentos_withRowsBreakingValidation_shouldReportThemAndRollback() throws Exception {
+        String csv = "id,titulo,descripcion,precio,moneda,metros_cuadrados,direccion,disponible\n"
+                + ",Valid,Valid description,95000,ARS,40,Valid street,true\n"
+                + ",No currency,Missing moneda,-5,,,Street,true\n"
+                + "not-a-uuid,Bad currency,Unknown moneda,95000,EUR,40,Street,\n";
+
+        mockMvc.perform(post("/api/departamentos/import")
+                .contentType("text/csv")
+                .content(csv))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("El CSV tiene 2 filas invalidas: "
+                        + "fila 2: metros_cuadrados: Los metros cuadrados son obligatorios, "
+                        + "moneda: La moneda es obligatoria, precio: El precio debe ser mayor a 0; "
+                        + "fila 3: id: El id debe ser un UUID, moneda: La moneda debe ser USD o ARS")));
+
+        mockMvc.perform(get("/api/departamentos"))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void departamentoTable_shouldRejectRowWithoutMoneda() {
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO departamento (id, titulo, descripcion, precio, direccion, disponible, created_at, "
+                        + "updated_at, version) VALUES (uuid_generate_v7(), 'Sin moneda', 'Sin moneda', 100, 'Calle', "
+                        + "true, localtimestamp, localtimestamp, 0)"));
+    }
+
+    @Test
+    void exportDepartamentos_shouldStreamFilteredCsv() throws Exception {
+        createDepartamento("Export Cheap", "50000", true);
+        createDepartamento("Export Match", "150000", true);
+        createDepartamento("Export Hidden", "150000", false);
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/departamentos/export?disponible=true&precioMin=100000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"departamentos.csv\""))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String[] lines = body.strip().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("id,titulo,descripcion,precio,moneda,metros_cuadrados,direccion,disponible", lines[0]);
+        assertTrue(lines[1].contains("Export Match"));
+    }
+
+    @Test
+    void getAllDepartamentos_afterUpdateFlipsDisponible_shouldNotServeStaleCachedResult() throws Exception {
+        String id = createDepartamento("Cached", "100000", true);
+
+        mockMvc.perform(get("/api/departamentos?disponible=true"))
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        DepartamentoDto updateDto = DepartamentoDto.builder()
+                .titulo("Cached")
+                .descripcion("Cached description")
+                .precio(new BigDecimal("100000"))
+                .moneda(Moneda.ARS)
+                .metros_cuadrados(60f)
+                .direccion("Cached street")
+                .disponible(false)
+                .build();
+        mockMvc.perform(put("/api/departamentos/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateDto)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/departamentos?disponible=true"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/departamentos?disponible=false"))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void getAllDepartamentos_afterNotificationFromAnotherNode_shouldDropCachedResult() throws Exception {
+        String id = createDepartamento("Remote", "100000", true);
+        mockMvc.perform(get("/api/departamentos?disponible=true"))
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        // Another replica flips the row and notifies on commit
+        jdbcTemplate.update("UPDATE departamento SET disponible = false WHERE id = ?", UUID.fromString(id));
+        jdbcTemplate.query("SELECT pg_notify('departamento_changes', ?)", resultSet -> null,
+                "{\"node\":\"other-node\",\"bulk\":false,\"id\":\"" + id + "\","
+                        + "\"disponibleAntes\":true,\"precioAntes\":100000,\"disponible\":false,\"precio\":100000}");
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                mockMvc.perform(get("/api/departamentos?disponible=true"))
+                        .andExpect(jsonPath("$", hasSize(0))));
+    }
+
+    @Test
+    void getAllDepartamentos_withMatchingIfNoneMatch_shouldReturnNotModified() throws Exception {
+        String id = createDepartamento("Polled", "100000", true);
+        String etag = mockMvc.perform(get("/api/departamentos?disponible=true"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc.perform(get("/api/departamentos?disponible=true").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        DepartamentoDto updateDto = DepartamentoDto.builder()
+                .titulo("Polled")
+                .descripcion("Polled description")
+                .precio(new BigDecimal("100000"))
+                .moneda(Moneda.ARS)
+                .metros_cuadrados(60f)
+                .direccion("Polled street")
+                .disponible(false)
+                .build();
+        mockMvc.perform(put("/api/departamentos/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateDto)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/departamentos?disponible=true").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void getDepartamentosPage_withCurrentIfModifiedSince_shouldReturnNotModified() throws Exception {
+        createDepartamento("Paged", "100000", true);
+        String lastModified = mockMvc.perform(get("/api/departamentos?limit=10"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("Last-Modified");
+
+        mockMvc.perform(get("/api/departamentos?limit=10").header("If-Modified-Since", lastModified))
+                .andExpect(status().isNotModified());
+    }
+
+    private DepartamentoDto updateDto(String titulo) {
+        return DepartamentoDto.builder()
+                .titulo(titulo)
+                .descripcion(titulo + " description")
+                .precio(new BigDecimal("100000"))
+                .moneda(Moneda.ARS)
+                .metros_cuadrados(60f)
+                .direccion(titulo + " street")
+                .disponible(true)
+                .build();
+    }
+
+    private String createDepartamento(String titulo, String precio, boolean disponible) throws Exception {
+        DepartamentoDto dto = DepartamentoDto.builder()
+                .titulo(titulo)
+                .descripcion(titulo + " description")
+                .precio(new BigDecimal(precio))
+                .moneda(Moneda.ARS)
+                .metros_cuadrados(60f)
+                .direccion(titulo + " street")
+                .disponible(disponible)
+                .build();
+
+        String response = mockMvc.perform(post("/api/departamentos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        return objectMapper.readTree(response).get("id").asText();
+    }
+}
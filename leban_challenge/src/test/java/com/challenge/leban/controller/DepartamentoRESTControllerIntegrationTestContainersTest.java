@@ -18,6 +18,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
+import com.challenge.leban.cache.DepartamentoFilterCache;
 import com.challenge.leban.dto.DepartamentoDto;
 import com.challenge.leban.enums.Moneda;
 import com.challenge.leban.repository.IDepartamentoRepository;
@@ -32,9 +33,13 @@ class DepartamentoRESTControllerIntegrationTestContainersTest {
     @Autowired
     private IDepartamentoRepository departamentoRepository;
 
+    @Autowired
+    private DepartamentoFilterCache filterCache;
+
     @BeforeEach
     void setUp() {
         departamentoRepository.deleteAll();
+        filterCache.invalidateAll();
     }
 
     @Test
@@ -0,0 +1,120 @@
+package com.challenge.leban.controller;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.challenge.leban.service.IDepartamentoService;
+
+@SpringBootTest(properties = "leban.invalidation-bus.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+class DepartamentoRESTControllerSearchIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IDepartamentoService departamentoService;
+
+    @Autowired
+    private IDepartamentoRepository departamentoRepository;
+
+    private String enTitulo;
+    private String enDescripcion;
+    private String noDisponible;
+
+    @BeforeEach
+    void setUp() {
+        departamentoRepository.deleteAll();
+        enTitulo = create("Departamento con balcones", "Luminoso", "Av. Santa Fe 1200", "100", true);
+        enDescripcion = create("Monoambiente", "Tiene un balcon al frente", "Thames 300", "200", true);
+        noDisponible = create("Balcon aterrazado", "Reservado", "Corrientes 900", "300", false);
+        create("Casa con patio", "Sin vista", "Cabildo 40", "400", true);
+    }
+
+    @Test
+    void getDepartamentos_shouldMatchStemsAndRankTituloAboveDescripcion() throws Exception {
+        // "balcones" and "balcon" share the Spanish stem
+        mockMvc.perform(get("/api/departamentos").param("q", "balcones"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(enTitulo))
+                .andExpect(jsonPath("$[2].id").value(enDescripcion))
+                .andExpect(jsonPath("$.length()").value(3));
+
+        mockMvc.perform(get("/api/departamentos").param("q", "santa fe"))
+                .andExpect(jsonPath("$[*].id", contains(enTitulo)));
+        mockMvc.perform(get("/api/departamentos").param("q", "piscina"))
+                .andExpect(jsonPath("$", empty()));
+    }
+
+    @Test
+    void getDepartamentos_shouldCombineTextWithTheFilters() throws Exception {
+        mockMvc.perform(get("/api/departamentos")
+                        .param("q", "balcon")
+                        .param("disponible", "false"))
+                .andExpect(jsonPath("$[*].id", contains(noDisponible)));
+
+        mockMvc.perform(get("/api/departamentos")
+                        .param("q", "balcon")
+                        .param("disponible", "true")
+                        .param("precioMin", "150"))
+                .andExpect(jsonPath("$[*].id", contains(enDescripcion)));
+    }
+
+    @Test
+    void getDepartamentosPage_shouldPageInRankOrder() throws Exception {
+        String next = mockMvc.perform(get("/api/departamentos")
+                        .param("q", "balcon")
+                        .param("disponible", "true")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(enTitulo)))
+                .andReturn().getResponse().getHeader(HttpHeaders.LINK);
+
+        String cursor = next.substring(next.indexOf("cursor=") + "cursor=".length(), next.indexOf('>'));
+        mockMvc.perform(get("/api/departamentos")
+                        .param("q", "balcon")
+                        .param("disponible", "true")
+                        .param("limit", "1")
+                        .param("cursor", cursor))
+                .andExpect(jsonPath("$.items[*].id", contains(enDescripcion)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getDepartamentos_shouldRejectBlankAndOversizedText() throws Exception {
+        mockMvc.perform(get("/api/departamentos").param("q", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/departamentos").param("q", "a".repeat(201)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String create(String titulo, String descripcion, String direccion, String precio, boolean disponible) {
+        return departamentoService.add(DepartamentoDto.builder()
+                .titulo(titulo)
+                .descripcion(descripcion)
+                .precio(new BigDecimal(precio))
+                .moneda(Moneda.ARS)
+                .metros_cuadrados(40f)
+                .direccion(direccion)
+                .disponible(disponible)
+                .build()).getId();
+    }
+}
@@ -19,6 +19,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.challenge.leban.cache.DepartamentoFilterCache;
 import com.challenge.leban.dto.DepartamentoDto;
 import com.challenge.leban.enums.Moneda;
 import com.challenge.leban.repository.IDepartamentoRepository;
@@ -38,9 +39,13 @@ class DepartamentoRESTControllerWebTestClientTest {
     @Autowired
     private IDepartamentoRepository departamentoRepository;
 
+    @Autowired
+    private DepartamentoFilterCache filterCache;
+
     @BeforeEach
     void setUp() {
         departamentoRepository.deleteAll();
+        filterCache.invalidateAll();
     }
 
     @Test
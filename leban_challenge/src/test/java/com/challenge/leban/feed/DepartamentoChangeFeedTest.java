@@ -0,0 +1,79 @@
+package com.challenge.leban.feed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.event.DepartamentoRemoteChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DepartamentoChangeFeedTest {
+
+    private DepartamentoChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new DepartamentoChangeFeed(new SimpleMeterRegistry(), 16, 10, Duration.ofMinutes(1),
+                Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+    }
+
+    @Test
+    void remoteChanges_ShouldCollapseIntoOneResync_WhenNobodyIsSubscribed() {
+        feed.onDepartamentoRemoteChanged(remote("1"));
+        feed.onDepartamentoRemoteChanged(remote("2"));
+        feed.onDepartamentoRemoteChanged(remote("3"));
+
+        assertEquals(1, feed.head());
+    }
+
+    @Test
+    void remoteChanges_ShouldMarkResyncAgain_AfterALocalChange() {
+        feed.onDepartamentoRemoteChanged(remote("1"));
+        feed.onDepartamentoChanged(new DepartamentoChangedEvent(null, departamento("2")));
+        feed.onDepartamentoRemoteChanged(remote("3"));
+        feed.onDepartamentoRemoteChanged(remote("4"));
+
+        assertEquals(3, feed.head());
+    }
+
+    @Test
+    void remoteChanges_ShouldEachBeKept_WhileSomeoneIsSubscribed() {
+        feed.subscribe(DepartamentoFilter.of(null, null, null), null);
+
+        feed.onDepartamentoRemoteChanged(remote("1"));
+        feed.onDepartamentoRemoteChanged(remote("2"));
+
+        assertEquals(2, feed.head());
+    }
+
+    private static DepartamentoRemoteChangedEvent remote(String suffix) {
+        DepartamentoDto departamento = departamento(suffix);
+        return new DepartamentoRemoteChangedEvent(departamento.getId(), null, null, true, departamento.getPrecio(),
+                departamento);
+    }
+
+    private static DepartamentoDto departamento(String suffix) {
+        return DepartamentoDto.builder()
+                .id("0192a5f0-0000-7000-8000-00000000000" + suffix)
+                .titulo("Depto " + suffix)
+                .precio(new BigDecimal("100000"))
+                .moneda(Moneda.ARS)
+                .disponible(true)
+                .build();
+    }
+}
@@ -0,0 +1,194 @@
+package com.challenge.leban.readmodel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class DepartamentoColumnsTest {
+
+    private static final byte ARS = 0;
+
+    @Test
+    void upsert_shouldKeepRowsInPrecioThenIdOrder() {
+        DepartamentoColumns columns = new DepartamentoColumns(0);
+        UUID a = new UUID(1, 1);
+        UUID b = new UUID(1, 2);
+        UUID c = new UUID(1, 3);
+
+        columns.upsert(c, true, 300, ARS);
+        columns.upsert(b, true, 100, ARS);
+        columns.upsert(a, true, 100, ARS);
+
+        assertEquals(List.of(a, b, c), ids(columns, all(columns)));
+    }
+
+    @Test
+    void upsert_shouldMoveRowWhenPrecioChanges() {
+        DepartamentoColumns columns = new DepartamentoColumns(0);
+        UUID a = new UUID(1, 1);
+        UUID b = new UUID(1, 2);
+        UUID c = new UUID(1, 3);
+        columns.upsert(a, true, 100, ARS);
+        columns.upsert(b, true, 200, ARS);
+        columns.upsert(c, true, 300, ARS);
+
+        columns.upsert(a, true, 250, ARS);
+        assertEquals(List.of(b, a, c), ids(columns, all(columns)));
+
+        columns.upsert(c, true, 50, ARS);
+        assertEquals(List.of(c, b, a), ids(columns, all(columns)));
+        assertEquals(3, columns.size());
+    }
+
+    @Test
+    void selectAfter_shouldCompareIdsUnsignedLikePostgres() {
+        DepartamentoColumns columns = new DepartamentoColumns(0);
+        UUID low = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID high = UUID.fromString("ff000000-0000-0000-0000-000000000001");
+        columns.upsert(high, true, 100, ARS);
+        columns.upsert(low, true, 100, ARS);
+
+        assertEquals(List.of(low, high), ids(columns, all(columns)));
+        assertEquals(List.of(high), ids(columns, columns.select(null, Long.MIN_VALUE, Long.MAX_VALUE, 100, low, 10)));
+        assertEquals(List.of(), ids(columns, columns.select(null, Long.MIN_VALUE, Long.MAX_VALUE, 100, high, 10)));
+    }
+
+    @Test
+    void select_shouldFilterByDisponibleWithinPrecioBounds() {
+        DepartamentoColumns columns = new DepartamentoColumns(0);
+        for (int i = 0; i < 10; i++) {
+            columns.appendSorted(new UUID(0, i), i % 2 == 0, i * 100L, ARS);
+        }
+
+        int[] disponibles = columns.select(true, 200, 700, 0, null, 10);
+
+        assertEquals(List.of(new UUID(0, 2), new UUID(0, 4), new UUID(0, 6)), ids(columns, disponibles));
+        assertEquals(2, columns.select(false, 200, 700, 0, null, 2).length);
+    }
+
+    @Test
+    void upsert_shouldStaySortedAcrossGrowth() {
+        DepartamentoColumns columns = new DepartamentoColumns(0);
+        Random random = new Random(42);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            ids.add(id);
+            columns.upsert(id, random.nextBoolean(), random.nextInt(1000), ARS);
+        }
+        for (int i = 0; i < 1000; i++) {
+            columns.upsert(ids.get(random.nextInt(ids.size())), random.nextBoolean(), random.nextInt(1000), ARS);
+        }
+
+        assertSortedByPrecioThenId(columns, 5000);
+    }
+
+    @Test
+    void compact_shouldMergeOverlayIntoSortedColumn() {
+        DepartamentoColumns columns = new DepartamentoColumns(0);
+        for (int i = 0; i < 10; i++) {
+            columns.appendSorted(new UUID(0, i), true, i * 100L, ARS);
+        }
+        columns.upsert(new UUID(0, 9), true, 50, ARS);
+        columns.upsert(new UUID(0, 10), true, 450, ARS);
+
+        columns.compact();
+
+        List<UUID> expected = List.of(new UUID(0, 0), new UUID(0, 9), new UUID(0, 1), new UUID(0, 2), new UUID(0, 3),
+                new UUID(0, 4), new UUID(0, 10), new UUID(0, 5), new UUID(0, 6), new UUID(0, 7), new UUID(0, 8));
+        assertEquals(expected, ids(columns, columns.select(null, Long.MIN_VALUE, Long.MAX_VALUE, 0, null, 20)));
+        assertEquals(11, columns.size());
+    }
+
+    @Test
+    void compaction_shouldKeepWritesMadeWhileItRuns() {
+        DepartamentoColumns columns = new DepartamentoColumns(0);
+        UUID a = new UUID(1, 1);
+        UUID b = new UUID(1, 2);
+        UUID c = new UUID(1, 3);
+        columns.appendSorted(a, true, 100, ARS);
+        columns.upsert(b, true, 200, ARS);
+
+        DepartamentoColumns.Compaction compaction = columns.startCompaction();
+        columns.upsert(b, true, 50, ARS);
+        columns.upsert(a, true, 300, ARS);
+        columns.upsert(c, true, 150, ARS);
+        assertEquals(List.of(b, c, a), ids(columns, all(columns)));
+        compaction.run();
+        columns.upsert(c, true, 400, ARS);
+        columns.finishCompaction(compaction);
+
+        assertEquals(List.of(b, a, c), ids(columns, all(columns)));
+        assertFalse(columns.needsCompaction());
+    }
+
+    @Test
+    void upsert_shouldStaySortedAcrossCompactions() {
+        DepartamentoColumns columns = new DepartamentoColumns(0);
+        Random random = new Random(7);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            ids.add(id);
+            columns.appendSorted(id, random.nextBoolean(), i * 10L, ARS);
+        }
+        for (int i = 0; i < 3 * DepartamentoColumns.COMPACTION_THRESHOLD; i++) {
+            columns.upsert(ids.get(random.nextInt(ids.size())), random.nextBoolean(), random.nextInt(20_000), ARS);
+            if (columns.needsCompaction()) {
+                columns.compact();
+            }
+        }
+
+        assertSortedByPrecioThenId(columns, 2000);
+        int[] page = columns.select(true, 5000, 6000, 0, null, Integer.MAX_VALUE);
+        for (int ordinal : page) {
+            assertTrue(columns.disponible(ordinal));
+            assertTrue(columns.precio(ordinal) >= 5000 && columns.precio(ordinal) <= 6000);
+        }
+        long expected = IntStream.range(0, columns.size())
+                .filter(ordinal -> columns.disponible(ordinal) && columns.precio(ordinal) >= 5000 && columns.precio(ordinal) <= 6000)
+                .count();
+        assertEquals(expected, page.length);
+    }
+
+    private static int[] all(DepartamentoColumns columns) {
+        return columns.select(null, Long.MIN_VALUE, Long.MAX_VALUE, 0, null, 10);
+    }
+
+    // Every row exactly once, in (precio, id) order with ids unsigned
+    private static void assertSortedByPrecioThenId(DepartamentoColumns columns, int rows) {
+        int[] all = columns.select(null, Long.MIN_VALUE, Long.MAX_VALUE, 0, null, Integer.MAX_VALUE);
+        assertEquals(rows, all.length);
+        List<Integer> ordinals = new ArrayList<>();
+        for (int ordinal : all) {
+            ordinals.add(ordinal);
+        }
+        assertEquals(rows, new HashSet<>(ordinals).size());
+        Comparator<Integer> byPrecioThenId = Comparator.<Integer>comparingLong(columns::precio)
+                .thenComparing((x, y) -> {
+                    UUID left = columns.id(x);
+                    UUID right = columns.id(y);
+                    int byMsb = Long.compareUnsigned(left.getMostSignificantBits(), right.getMostSignificantBits());
+                    return byMsb != 0 ? byMsb : Long.compareUnsigned(left.getLeastSignificantBits(), right.getLeastSignificantBits());
+                });
+        List<Integer> sorted = new ArrayList<>(ordinals);
+        sorted.sort(byPrecioThenId);
+        assertEquals(sorted, ordinals);
+    }
+
+    private static List<UUID> ids(DepartamentoColumns columns, int[] ordinals) {
+        List<UUID> ids = new ArrayList<>();
+        for (int ordinal : ordinals) {
+            ids.add(columns.id(ordinal));
+        }
+        return ids;
+    }
+}
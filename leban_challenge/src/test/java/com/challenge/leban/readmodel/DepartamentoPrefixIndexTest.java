@@ -0,0 +1,100 @@
+package com.challenge.leban.readmodel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class DepartamentoPrefixIndexTest {
+
+    private static final UUID A = new UUID(1, 1);
+    private static final UUID B = new UUID(1, 2);
+    private static final UUID C = new UUID(1, 3);
+
+    @Test
+    void suggest_shouldMatchWordPrefixesIgnoringAccentsAndCase() {
+        DepartamentoPrefixIndex index = new DepartamentoPrefixIndex(0);
+        index.upsert(A, true, "PH en Núñez", "Av. Cabildo 2300");
+        index.upsert(B, true, "Loft en Palermo", "Gorriti 4500");
+
+        assertEquals(List.of(A), ids(index, index.suggest("nuñ", 10)));
+        assertEquals(List.of(A), ids(index, index.suggest("CABIL", 10)));
+        assertEquals(List.of(B), ids(index, index.suggest("45", 10)));
+        assertEquals(List.of(), ids(index, index.suggest("recoleta", 10)));
+        assertEquals(0, index.suggest(" .. ", 10).length);
+    }
+
+    @Test
+    void suggest_shouldRankAvailableRowsFirst() {
+        DepartamentoPrefixIndex index = new DepartamentoPrefixIndex(0);
+        index.upsert(A, false, "Departamento en Palermo", "Thames 100");
+        index.upsert(B, true, "Departamento en Palermo Soho", "Thames 200");
+        index.upsert(C, false, "Departamento en Palermo Chico", "Defensa 300");
+
+        assertEquals(List.of(B, A, C), ids(index, index.suggest("pal", 10)));
+        assertEquals(List.of(B, A), ids(index, index.suggest("pal", 2)));
+        // In term order within each group; C is reached through two terms of the range and returned once
+        assertEquals(List.of(B, C, A), ids(index, index.suggest("de", 10)));
+    }
+
+    @Test
+    void suggest_shouldRequireEveryCompleteWord() {
+        DepartamentoPrefixIndex index = new DepartamentoPrefixIndex(0);
+        index.upsert(A, true, "Monoambiente", "Av. Santa Fe 1200, Recoleta");
+        index.upsert(B, true, "Monoambiente", "Santa Rosa 300, Caballito");
+        index.upsert(C, true, "Loft", "Av. Santa Fe 3100, Palermo");
+
+        assertEquals(List.of(A, C), ids(index, index.suggest("santa f", 10)));
+        assertEquals(List.of(A), ids(index, index.suggest("monoambiente santa f", 10)));
+        // Stopwords and single letters are not indexed, so they do not restrict the match
+        assertEquals(List.of(B), ids(index, index.suggest("santa de ro", 10)));
+        assertEquals(List.of(), ids(index, index.suggest("casa santa f", 10)));
+    }
+
+    @Test
+    void upsert_shouldReplaceTheWordsAndAvailabilityOfARow() {
+        DepartamentoPrefixIndex index = new DepartamentoPrefixIndex(0);
+        index.upsert(A, true, "Duplex en Belgrano", "Juncal 100");
+        index.upsert(B, true, "Duplex en Boedo", "Juncal 200");
+
+        index.upsert(A, false, "Duplex en Colegiales", "Juncal 100");
+
+        assertEquals(List.of(), ids(index, index.suggest("belg", 10)));
+        assertEquals(List.of(A), ids(index, index.suggest("coleg", 10)));
+        assertEquals(List.of(B, A), ids(index, index.suggest("dup", 10)));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void upsert_shouldKeepTermsSortedWhileGrowing() {
+        DepartamentoPrefixIndex index = new DepartamentoPrefixIndex(0);
+        List<UUID> inserted = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            UUID id = new UUID(2, i);
+            inserted.add(id);
+            index.upsert(id, i % 2 == 0, "Calle" + (2999 - i), "Sin numero");
+        }
+
+        assertEquals(List.of(inserted.get(2999)), ids(index, index.suggest("calle0", 10)));
+        assertEquals(List.of(inserted.get(0)), ids(index, index.suggest("calle2999", 10)));
+        assertEquals(3000, index.size());
+        assertEquals(3002, index.termCount());
+    }
+
+    @Test
+    void words_shouldFoldAccentsAndSplitOnPunctuation() {
+        assertEquals(List.of("av", "nunez", "1200", "piso", "3"), DepartamentoPrefixIndex.words("Av. Núñez 1200, Piso 3"));
+        assertEquals(List.of(), DepartamentoPrefixIndex.words(null));
+    }
+
+    private static List<UUID> ids(DepartamentoPrefixIndex index, int[] ordinals) {
+        List<UUID> ids = new ArrayList<>();
+        for (int ordinal : ordinals) {
+            ids.add(index.id(ordinal));
+        }
+        return ids;
+    }
+}
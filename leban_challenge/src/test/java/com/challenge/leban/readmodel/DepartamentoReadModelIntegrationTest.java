@@ -0,0 +1,135 @@
+package com.challenge.leban.readmodel;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.challenge.leban.dto.CursorPageDto;
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.repository.DepartamentoSpecifications;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.challenge.leban.service.IDepartamentoService;
+
+@SpringBootTest(properties = { "leban.read-model.enabled=true", "leban.invalidation-bus.enabled=false" })
+@ActiveProfiles("integration")
+class DepartamentoReadModelIntegrationTest {
+
+    @Autowired
+    private DepartamentoReadModel readModel;
+
+    @Autowired
+    private IDepartamentoService departamentoService;
+
+    @Autowired
+    private IDepartamentoRepository departamentoRepository;
+
+    @BeforeEach
+    void setUp() {
+        departamentoRepository.deleteAll();
+        // Deletes are not tracked, so start from a fresh load
+        readModel.reload();
+        assertTrue(readModel.isReady());
+        assertEquals(0, readModel.size());
+    }
+
+    @Test
+    void filterDepartamentos_shouldPageLikeTheDatabase() {
+        for (int i = 0; i < 30; i++) {
+            departamentoService.add(departamento("Columnar " + i, BigDecimal.valueOf(1000 + (i % 7) * 100), i % 3 != 0));
+        }
+
+        List<DepartamentoDto> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageDto<DepartamentoDto> page = departamentoService.filterDepartamentos(true, "1100", "1500", null,
+                    cursor, 4);
+            paged.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<DepartamentoDto> expected = departamentoRepository.findAllDtos(
+                DepartamentoSpecifications.matches(DepartamentoFilter.of(true, "1100", "1500")),
+                Sort.by("precio", "id"), 100);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.stream().map(DepartamentoDto::getId).toList(),
+                paged.stream().map(DepartamentoDto::getId).toList());
+    }
+
+    @Test
+    void filterDepartamentos_shouldSeeCommittedAddsAndUpdates() {
+        DepartamentoDto created = departamentoService.add(departamento("Columnar nuevo", BigDecimal.valueOf(500), true));
+        assertEquals(List.of(created.getId()), ids(departamentoService.filterDepartamentos(true, "400", "600", null)));
+
+        DepartamentoDto changed = departamento("Columnar nuevo", BigDecimal.valueOf(900), true);
+        departamentoService.update(changed, created.getId());
+
+        assertTrue(departamentoService.filterDepartamentos(true, "400", "600", null).isEmpty());
+        assertEquals(List.of(created.getId()), ids(departamentoService.filterDepartamentos(null, "800", null, null)));
+        assertEquals(1, readModel.size());
+    }
+
+    @Test
+    void select_shouldSeeChangesAcrossBackgroundCompactions() {
+        List<DepartamentoDto> changes = new ArrayList<>();
+        for (int i = 0; i < DepartamentoColumns.COMPACTION_THRESHOLD + 100; i++) {
+            DepartamentoDto change = departamento("Columnar " + i, BigDecimal.valueOf(10_000 + i), i % 2 == 0);
+            change.setId(new UUID(0, i + 1).toString());
+            changes.add(change);
+            readModel.onDepartamentoChanged(new DepartamentoChangedEvent(null, change));
+        }
+        readModel.onDepartamentoChanged(new DepartamentoChangedEvent(null,
+                withPrecio(changes.get(0), BigDecimal.valueOf(5))));
+
+        assertEquals(changes.size(), readModel.select(DepartamentoFilter.of(null, null, null), null,
+                Integer.MAX_VALUE).size());
+        List<UUID> cheapest = readModel.select(DepartamentoFilter.of(true, null, "10004"), null, 10);
+        assertEquals(List.of(new UUID(0, 1), new UUID(0, 3), new UUID(0, 5)), cheapest);
+    }
+
+    @Test
+    void reload_shouldReplaceColumnsWithTheTable() {
+        departamentoService.add(departamento("Columnar recarga", BigDecimal.valueOf(700), false));
+        departamentoRepository.deleteAll();
+
+        readModel.onDepartamentosResync(null);
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> readModel.isReady() && readModel.size() == 0);
+    }
+
+    private static List<String> ids(List<DepartamentoDto> departamentos) {
+        return departamentos.stream().map(DepartamentoDto::getId).toList();
+    }
+
+    private static DepartamentoDto withPrecio(DepartamentoDto departamento, BigDecimal precio) {
+        DepartamentoDto changed = departamento("Columnar 0", precio, departamento.isDisponible());
+        changed.setId(departamento.getId());
+        return changed;
+    }
+
+    private static DepartamentoDto departamento(String titulo, BigDecimal precio, boolean disponible) {
+        return DepartamentoDto.builder()
+                .titulo(titulo)
+                .descripcion("Departamento de prueba")
+                .precio(precio)
+                .moneda(Moneda.ARS)
+                .metros_cuadrados(50f)
+                .direccion("Calle Falsa 123")
+                .disponible(disponible)
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.challenge.leban.readmodel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class DepartamentoSimilarityGridTest {
+
+    private static final byte ARS = 0;
+    private static final byte USD = 1;
+
+    @Test
+    void nearest_shouldCompareRelativeDifferences() {
+        DepartamentoSimilarityGrid grid = new DepartamentoSimilarityGrid(0);
+        UUID origin = new UUID(1, 0);
+        UUID tenPercentCheaper = new UUID(1, 1);
+        UUID twentyPercentLarger = new UUID(1, 2);
+        UUID farAway = new UUID(1, 3);
+        grid.upsert(origin, true, 100_000, 50, USD);
+        grid.upsert(twentyPercentLarger, true, 100_000, 60, USD);
+        grid.upsert(farAway, true, 400_000, 150, USD);
+        grid.upsert(tenPercentCheaper, true, 90_000, 50, USD);
+
+        assertEquals(List.of(tenPercentCheaper, twentyPercentLarger, farAway), ids(grid, grid.nearest(origin, 5)));
+        assertEquals(List.of(tenPercentCheaper), ids(grid, grid.nearest(origin, 1)));
+    }
+
+    @Test
+    void nearest_shouldOnlyReturnAvailableRowsOfTheSameMoneda() {
+        DepartamentoSimilarityGrid grid = new DepartamentoSimilarityGrid(0);
+        UUID origin = new UUID(1, 0);
+        UUID sameMoneda = new UUID(1, 1);
+        UUID otherMoneda = new UUID(1, 2);
+        UUID reservado = new UUID(1, 3);
+        grid.upsert(origin, false, 1000, 40, ARS);
+        grid.upsert(sameMoneda, true, 5000, 80, ARS);
+        grid.upsert(otherMoneda, true, 1000, 40, USD);
+        grid.upsert(reservado, false, 1000, 40, ARS);
+
+        // An unavailable row can still be the origin
+        assertEquals(List.of(sameMoneda), ids(grid, grid.nearest(origin, 5)));
+        assertNull(grid.nearest(new UUID(9, 9), 5));
+    }
+
+    @Test
+    void upsert_shouldMoveRowsBetweenCells() {
+        DepartamentoSimilarityGrid grid = new DepartamentoSimilarityGrid(0);
+        UUID origin = new UUID(1, 0);
+        UUID a = new UUID(1, 1);
+        UUID b = new UUID(1, 2);
+        grid.upsert(origin, true, 1000, 40, ARS);
+        grid.upsert(a, true, 1010, 40, ARS);
+        grid.upsert(b, true, 3000, 40, ARS);
+
+        grid.upsert(a, true, 9000, 40, ARS);
+        grid.upsert(b, true, 1000, 41, ARS);
+        assertEquals(List.of(b, a), ids(grid, grid.nearest(origin, 5)));
+
+        grid.upsert(b, false, 1000, 41, ARS);
+        grid.upsert(a, true, 1000, 40, USD);
+        assertEquals(List.of(), ids(grid, grid.nearest(origin, 5)));
+        assertEquals(3, grid.size());
+    }
+
+    @Test
+    void nearest_shouldMatchABruteForceSearch() {
+        Random random = new Random(42);
+        DepartamentoSimilarityGrid grid = new DepartamentoSimilarityGrid(0);
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // Log-normal like real listings, plus a few isolated outliers that force the search past many rings
+            double metros = i % 500 == 0 ? 2000 + random.nextInt(5000) : 60 * Math.exp(random.nextGaussian() * 0.4);
+            double precio = metros * 2000 * Math.exp(random.nextGaussian() * 0.3);
+            boolean disponible = random.nextInt(4) != 0;
+            byte moneda = random.nextInt(3) == 0 ? ARS : USD;
+            points.add(new double[] { precio, metros, disponible ? 1 : 0, moneda });
+            grid.upsert(new UUID(2, i), disponible, precio, metros, moneda);
+        }
+
+        for (int origin = 0; origin < points.size(); origin += 50) {
+            double[] from = points.get(origin);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < points.size(); i++) {
+                double[] to = points.get(i);
+                if (i != origin && to[2] == 1 && to[3] == from[3]) {
+                    expected.add(i);
+                }
+            }
+            expected.sort(Comparator.comparingDouble((Integer i) -> distance(from, points.get(i)))
+                    .thenComparing(i -> i));
+            List<UUID> nearest = ids(grid, grid.nearest(new UUID(2, origin), 8));
+            assertEquals(expected.subList(0, 8).stream().map(i -> new UUID(2, i)).toList(), nearest,
+                    "neighbours of row " + origin);
+        }
+    }
+
+    private static double distance(double[] a, double[] b) {
+        double dx = Math.log(a[0]) - Math.log(b[0]);
+        double dy = Math.log(a[1]) - Math.log(b[1]);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static List<UUID> ids(DepartamentoSimilarityGrid grid, int[] ordinals) {
+        List<UUID> ids = new ArrayList<>();
+        for (int ordinal : ordinals) {
+            ids.add(grid.id(ordinal));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,148 @@
+package com.challenge.leban.readmodel;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.challenge.leban.service.IDepartamentoService;
+
+@SpringBootTest(properties = "leban.invalidation-bus.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+class DepartamentoSimilarityIndexIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DepartamentoSimilarityIndex similarityIndex;
+
+    @Autowired
+    private IDepartamentoService departamentoService;
+
+    @Autowired
+    private IDepartamentoRepository departamentoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        departamentoRepository.deleteAll();
+        // Deletes are not tracked, so start from a fresh load
+        similarityIndex.reload();
+        assertTrue(similarityIndex.isReady());
+        assertEquals(0, similarityIndex.size());
+    }
+
+    @Test
+    void similar_shouldReturnNearestAvailableInTheSameMoneda() throws Exception {
+        String origin = add("100000", Moneda.USD, 50f, true);
+        String close = add("105000", Moneda.USD, 52f, true);
+        String farther = add("150000", Moneda.USD, 70f, true);
+        add("100000", Moneda.USD, 50f, false);
+        add("100000", Moneda.ARS, 50f, true);
+
+        mockMvc.perform(get("/api/departamentos/{id}/similar", origin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(close, farther)));
+        mockMvc.perform(get("/api/departamentos/{id}/similar", origin).param("k", "1"))
+                .andExpect(jsonPath("$[*].id", contains(close)));
+        mockMvc.perform(get("/api/departamentos/{id}/similar", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/departamentos/{id}/similar", origin).param("k", "101"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void similar_shouldSeeCommittedUpdates() {
+        String origin = add("1000", Moneda.ARS, 40f, true);
+        String other = add("1100", Moneda.ARS, 40f, true);
+        assertEquals(List.of(other), ids(departamentoService.findSimilar(origin, 10)));
+
+        departamentoService.update(departamento("1100", Moneda.ARS, 40f, false), other);
+
+        assertTrue(departamentoService.findSimilar(origin, 10).isEmpty());
+        assertEquals(2, similarityIndex.size());
+    }
+
+    @Test
+    void similar_shouldLeaveOutRowsWithoutArea() {
+        String origin = add("1000", Moneda.ARS, 40f, true);
+        DepartamentoDto before = departamentoService.add(departamento("1100", Moneda.ARS, 40f, true));
+        String other = before.getId();
+        DepartamentoDto after = departamento("1100", Moneda.ARS, 40f, true);
+        after.setId(other);
+        after.setMetros_cuadrados(null);
+
+        similarityIndex.onDepartamentoChanged(new DepartamentoChangedEvent(before, after));
+        assertTrue(departamentoService.findSimilar(origin, 10).isEmpty());
+        assertTrue(departamentoService.findSimilar(other, 10).isEmpty());
+
+        similarityIndex.onDepartamentoChanged(new DepartamentoChangedEvent(after, before));
+        assertEquals(List.of(other), ids(departamentoService.findSimilar(origin, 10)));
+    }
+
+    @Test
+    void reload_shouldSkipRowsWithoutArea() {
+        String origin = add("1000", Moneda.ARS, 40f, true);
+        String other = add("1100", Moneda.ARS, 40f, true);
+        jdbcTemplate.update("UPDATE departamento SET metros_cuadrados = NULL WHERE id = ?", UUID.fromString(other));
+
+        similarityIndex.reload();
+
+        assertTrue(departamentoService.findSimilar(origin, 10).isEmpty());
+        assertTrue(departamentoService.findSimilar(other, 10).isEmpty());
+    }
+
+    @Test
+    void reload_shouldReplaceTheGridWithTheTable() {
+        add("2000", Moneda.ARS, 60f, true);
+        departamentoRepository.deleteAll();
+
+        similarityIndex.onDepartamentosResync(null);
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> similarityIndex.size() == 0);
+    }
+
+    private String add(String precio, Moneda moneda, float metros, boolean disponible) {
+        return departamentoService.add(departamento(precio, moneda, metros, disponible)).getId();
+    }
+
+    private static List<String> ids(List<DepartamentoDto> departamentos) {
+        return departamentos.stream().map(DepartamentoDto::getId).toList();
+    }
+
+    private static DepartamentoDto departamento(String precio, Moneda moneda, float metros, boolean disponible) {
+        return DepartamentoDto.builder()
+                .titulo("Similar")
+                .descripcion("Departamento de prueba")
+                .precio(new BigDecimal(precio))
+                .moneda(moneda)
+                .metros_cuadrados(metros)
+                .direccion("Calle Falsa 123")
+                .disponible(disponible)
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.challenge.leban.readmodel;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.challenge.leban.service.IDepartamentoService;
+
+@SpringBootTest(properties = "leban.invalidation-bus.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+class DepartamentoSuggestIndexIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DepartamentoSuggestIndex suggestIndex;
+
+    @Autowired
+    private IDepartamentoService departamentoService;
+
+    @Autowired
+    private IDepartamentoRepository departamentoRepository;
+
+    @BeforeEach
+    void setUp() {
+        departamentoRepository.deleteAll();
+        // Deletes are not tracked, so start from a fresh load
+        suggestIndex.reload();
+        assertTrue(suggestIndex.isReady());
+        assertEquals(0, suggestIndex.size());
+    }
+
+    @Test
+    void suggest_shouldRankAvailableFirstAndIgnoreAccents() throws Exception {
+        String reservado = departamentoService.add(departamento("PH en Núñez", "Av. Cabildo 2300", false)).getId();
+        String disponible = departamentoService.add(departamento("Loft en Nuñez", "Cabildo 4100", true)).getId();
+        departamentoService.add(departamento("Loft en Palermo", "Gorriti 4500", true));
+
+        mockMvc.perform(get("/api/departamentos/suggest").param("prefix", "nun"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(disponible, reservado)));
+        mockMvc.perform(get("/api/departamentos/suggest").param("prefix", "loft cab").param("limit", "1"))
+                .andExpect(jsonPath("$[*].id", contains(disponible)));
+        mockMvc.perform(get("/api/departamentos/suggest").param("prefix", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void suggest_shouldSeeCommittedAddsAndUpdates() {
+        DepartamentoDto created = departamentoService.add(departamento("Duplex en Belgrano", "Juncal 100", true));
+        assertEquals(List.of(created.getId()), ids(departamentoService.suggestDepartamentos("belg", 10)));
+
+        departamentoService.update(departamento("Duplex en Colegiales", "Juncal 100", true), created.getId());
+
+        assertTrue(departamentoService.suggestDepartamentos("belg", 10).isEmpty());
+        assertEquals(List.of(created.getId()), ids(departamentoService.suggestDepartamentos("colegiales", 10)));
+        assertEquals(1, suggestIndex.size());
+    }
+
+    @Test
+    void reload_shouldReplaceTheIndexWithTheTable() {
+        departamentoService.add(departamento("Semipiso en Recoleta", "Arenales 900", true));
+        departamentoRepository.deleteAll();
+
+        suggestIndex.onDepartamentosResync(null);
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> suggestIndex.size() == 0);
+    }
+
+    private static List<String> ids(List<DepartamentoDto> departamentos) {
+        return departamentos.stream().map(DepartamentoDto::getId).toList();
+    }
+
+    private static DepartamentoDto departamento(String titulo, String direccion, boolean disponible) {
+        return DepartamentoDto.builder()
+                .titulo(titulo)
+                .descripcion("Departamento de prueba")
+                .precio(BigDecimal.valueOf(1000))
+                .moneda(Moneda.ARS)
+                .metros_cuadrados(50f)
+                .direccion(direccion)
+                .disponible(disponible)
+                .build();
+    }
+}
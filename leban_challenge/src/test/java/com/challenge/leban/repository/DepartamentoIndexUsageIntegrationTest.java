@@ -0,0 +1,236 @@
+package com.challenge.leban.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.service.IDepartamentoGeneratorService;
+import com.challenge.leban.util.DepartamentoCursor;
+import com.challenge.leban.util.DepartamentoSyncToken;
+
+/**
+ * Checks against the plans PostgreSQL actually picks that the statements Hibernate generates for the repository
+ * calls, built from the same specifications the service uses, are served by the indexes of the migrations. The
+ * statements are captured with a StatementInspector and explained with the values the call bound, in order.
+ */
+@SpringBootTest(properties = "leban.invalidation-bus.enabled=false")
+@ActiveProfiles("integration")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+// The inspector makes this context unlike any other; closed afterwards so its pool does not outlive the class
+@DirtiesContext
+class DepartamentoIndexUsageIntegrationTest {
+
+    private static final BigDecimal PRECIO_MIN = new BigDecimal("100000");
+    private static final BigDecimal PRECIO_MAX = new BigDecimal("105000");
+    private static final UUID NIL = new UUID(0, 0);
+    private static final Sort KEYSET_SORT = Sort.by("precio", "id");
+    private static final int PAGE = 51;
+
+    private static final CapturingStatementInspector INSPECTOR = new CapturingStatementInspector();
+
+    @Autowired
+    private IDepartamentoGeneratorService generatorService;
+
+    @Autowired
+    private IDepartamentoRepository departamentoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        // Enough rows for the planner to prefer an index over a sequential scan on selective filters
+        generatorService.generate(20_000, 42, 0.7, true);
+    }
+
+    @Test
+    void filterByDisponibleAndPrecio_ShouldUseIndex() {
+        for (boolean disponible : new boolean[] { true, false }) {
+            String sql = statementOf(() -> departamentoRepository.findAllDtos(DepartamentoSpecifications.matches(
+                    DepartamentoFilter.of(disponible, "100000", "105000"))));
+
+            assertUsesIndex(sql, disponible, PRECIO_MIN, PRECIO_MAX);
+        }
+    }
+
+    @Test
+    void filterByPrecioOnly_ShouldUseIndex() {
+        String sql = statementOf(() -> departamentoRepository.findAllDtos(DepartamentoSpecifications.matches(
+                DepartamentoFilter.of(null, "100000", "105000"))));
+
+        assertUsesIndex(sql, PRECIO_MIN, PRECIO_MAX);
+    }
+
+    @Test
+    void keysetPage_ShouldUseIndexOrder() {
+        for (boolean disponible : new boolean[] { true, false }) {
+            String sql = statementOf(() -> departamentoRepository.findAllDtos(
+                    DepartamentoSpecifications.matches(DepartamentoFilter.of(disponible, null, null))
+                            .and(DepartamentoSpecifications.afterCursor(new DepartamentoCursor(PRECIO_MIN, NIL))),
+                    KEYSET_SORT, PAGE));
+
+            assertUsesIndex(sql, disponible, PRECIO_MIN, NIL, PAGE);
+            assertFalse(plan(sql, disponible, PRECIO_MIN, NIL, PAGE).contains("Sort"),
+                    "keyset page should be read in index order");
+            assertSeeksToCursor(sql, disponible, PRECIO_MIN, NIL, PAGE);
+        }
+    }
+
+    @Test
+    void deepKeysetPage_ShouldNotReadRowsBeforeCursor() {
+        Map<String, Object> deep = jdbcTemplate.queryForMap("SELECT precio, id FROM departamento "
+                + "WHERE disponible ORDER BY precio DESC, id DESC LIMIT 1 OFFSET 100");
+        DepartamentoCursor cursor = new DepartamentoCursor((BigDecimal) deep.get("precio"), (UUID) deep.get("id"));
+
+        String sql = statementOf(() -> departamentoRepository.findAllDtos(
+                DepartamentoSpecifications.matches(DepartamentoFilter.of(true, null, null))
+                        .and(DepartamentoSpecifications.afterCursor(cursor)),
+                KEYSET_SORT, PAGE));
+
+        assertReadsOnlyPage(sql, true, cursor.precio(), cursor.id(), PAGE);
+    }
+
+    @Test
+    void keysetPageInMoneda_ShouldUseIndexOrder() {
+        Map<String, Object> deep = jdbcTemplate.queryForMap("SELECT precio_ars, id FROM departamento "
+                + "WHERE disponible ORDER BY precio_ars DESC, id DESC LIMIT 1 OFFSET 100");
+        DepartamentoCursor cursor = new DepartamentoCursor((BigDecimal) deep.get("precio_ars"), (UUID) deep.get("id"));
+
+        String sql = statementOf(() -> departamentoRepository.findAllInPesos(
+                DepartamentoSpecifications.matchesInMoneda(DepartamentoFilter.of(true, "100000", null, "ARS"))
+                        .and(DepartamentoSpecifications.afterPrecioArsCursor(cursor)),
+                PAGE));
+
+        assertUsesIndex(sql, true, PRECIO_MIN, "ARS", cursor.precio(), cursor.id(), PAGE);
+        assertFalse(plan(sql, true, PRECIO_MIN, "ARS", cursor.precio(), cursor.id(), PAGE).contains("Sort"),
+                "page sorted in a currency should be read in index order");
+        assertSeeksToCursor(sql, true, PRECIO_MIN, "ARS", cursor.precio(), cursor.id(), PAGE);
+        assertReadsOnlyPage(sql, true, PRECIO_MIN, "ARS", cursor.precio(), cursor.id(), PAGE);
+    }
+
+    @Test
+    void filterInMoneda_ShouldUseIndexOnConvertedPrice() {
+        String sql = statementOf(() -> departamentoRepository.findAllDtos(DepartamentoSpecifications.matchesInMoneda(
+                DepartamentoFilter.of(null, "100", "105", "USD"))));
+
+        String plan = plan(sql, new BigDecimal("100"), "USD", new BigDecimal("105"), "USD");
+        assertTrue(plan.contains("idx_departamento_precio_ars_id"), plan);
+        assertFalse(plan.contains("Seq Scan on departamento"), plan);
+    }
+
+    @Test
+    void textSearch_ShouldUseGinIndex() {
+        // A selective text; for terms in most rows a sequential scan is the right plan
+        String q = "billinghurst boedo mascotas";
+        String sql = statementOf(() -> departamentoRepository.search(
+                DepartamentoSpecifications.matches(DepartamentoFilter.of(true, null, null))
+                        .and(DepartamentoSpecifications.matchesText(q)),
+                q, null, PAGE));
+
+        String plan = plan(sql, q, true, q, PAGE);
+        assertTrue(plan.contains("idx_departamento_busqueda"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    void listVersion_ShouldUseIndex() {
+        List<String> statements = statementsOf(() -> departamentoRepository.findListVersion(
+                DepartamentoSpecifications.matches(DepartamentoFilter.of(true, "100000", "105000"))));
+
+        assertEquals(2, statements.size(), statements.toString());
+        assertUsesIndex(statements.get(0), true, PRECIO_MIN, PRECIO_MAX);
+        assertUsesIndex(statements.get(1));
+    }
+
+    @Test
+    void deltaSyncPage_ShouldUseIndexOrder() {
+        DepartamentoSyncToken after = new DepartamentoSyncToken(0L, NIL);
+        String sql = statementOf(() -> departamentoRepository.findChangesAfter(after, 500));
+        Object[] args = { 0L, NIL, 501, 0L, NIL, 501, 501 };
+
+        // The tombstone branch is empty here and scanned as such; the departamento one must seek in index order
+        String plan = plan(sql, args);
+        assertTrue(plan.contains("Index Scan using idx_departamento_change_xid_id on departamento d"), plan);
+        assertTrue(plan.lines().anyMatch(line -> line.contains("Index Cond:") && line.contains("ROW(")), plan);
+        assertFalse(plan.contains("Seq Scan on departamento d"), plan);
+    }
+
+    private void assertUsesIndex(String sql, Object... args) {
+        String plan = plan(sql, args);
+        assertTrue(plan.contains("Index"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    // The keyset predicate must bound the index scan; applied as a Filter it reads every row before the cursor
+    private void assertSeeksToCursor(String sql, Object... args) {
+        String plan = plan(sql, args);
+        assertTrue(plan.lines().anyMatch(line -> line.contains("Index Cond:") && line.contains("ROW(")), plan);
+        assertFalse(plan.lines().anyMatch(line -> line.contains("Filter:") && line.contains("ROW(")), plan);
+    }
+
+    private void assertReadsOnlyPage(String sql, Object... args) {
+        String plan = plan("ANALYZE " + sql, args);
+        assertFalse(plan.contains("Rows Removed by Filter"), plan);
+    }
+
+    private String plan(String sql, Object... args) {
+        assertEquals(args.length, sql.chars().filter(c -> c == '?').count(), "parameters of " + sql);
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args);
+        return String.join("\n", lines);
+    }
+
+    private String statementOf(Runnable repositoryCall) {
+        List<String> statements = statementsOf(repositoryCall);
+        assertEquals(1, statements.size(), statements.toString());
+        return statements.get(0);
+    }
+
+    private List<String> statementsOf(Runnable repositoryCall) {
+        INSPECTOR.statements.get().clear();
+        repositoryCall.run();
+        return List.copyOf(INSPECTOR.statements.get());
+    }
+
+    // Per thread, so statements from background loaders never mix with the ones of the call under test
+    static class CapturingStatementInspector implements StatementInspector {
+
+        private final ThreadLocal<List<String>> statements = ThreadLocal.withInitial(ArrayList::new);
+
+        @Override
+        public String inspect(String sql) {
+            statements.get().add(sql);
+            return sql;
+        }
+    }
+
+    @TestConfiguration
+    static class StatementCaptureConfig {
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspectorCustomizer() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, INSPECTOR);
+        }
+    }
+}
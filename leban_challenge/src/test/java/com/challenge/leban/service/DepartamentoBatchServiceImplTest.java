@@ -0,0 +1,113 @@
+package com.challenge.leban.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.challenge.leban.dto.BatchResultDto;
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.event.DepartamentosBulkChangedEvent;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validation;
+
+@ExtendWith(MockitoExtension.class)
+class DepartamentoBatchServiceImplTest {
+
+    private static final String VALID = "{\"titulo\":\"Depto\",\"descripcion\":\"Descripcion\",\"precio\":100000,"
+            + "\"moneda\":\"ARS\",\"metros_cuadrados\":50,\"direccion\":\"Calle 1\",\"disponible\":true}";
+    private static final String INVALID = "{\"titulo\":\"\",\"descripcion\":\"Descripcion\",\"precio\":-1,"
+            + "\"moneda\":\"ARS\",\"metros_cuadrados\":50,\"direccion\":\"Calle 1\",\"disponible\":true}";
+    private static final String UNKNOWN_MONEDA = "{\"titulo\":\"Depto\",\"descripcion\":\"Descripcion\",\"precio\":100000,"
+            + "\"moneda\":\"EUR\",\"metros_cuadrados\":50,\"direccion\":\"Calle 1\",\"disponible\":true}";
+
+    @Mock
+    private IDepartamentoRepository departamentoRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DepartamentoBatchServiceImpl batchService;
+
+    @BeforeEach
+    void setUp() {
+        batchService = new DepartamentoBatchServiceImpl(departamentoRepository, eventPublisher,
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, new ObjectMapper(), 2);
+    }
+
+    @Test
+    void addAll_ShouldInsertValidItemsInChunks_WhenJsonArray() {
+        BatchResultDto result = batchService.addAll(stream("[" + VALID + "," + INVALID + "," + VALID + "," + VALID + "]"));
+
+        assertEquals(4, result.getReceived());
+        assertEquals(3, result.getInserted());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(1, result.getErrors().get(0).getIndex());
+
+        ArgumentCaptor<List<Departamento>> chunks = ArgumentCaptor.captor();
+        verify(departamentoRepository, times(2)).saveAll(chunks.capture());
+        // Two chunks, then one short transaction announcing the whole feed
+        verify(transactionManager, times(3)).commit(any());
+        verify(eventPublisher, times(1)).publishEvent(any(DepartamentosBulkChangedEvent.class));
+    }
+
+    @Test
+    void addAll_ShouldNotAnnounce_WhenNothingInserted() {
+        BatchResultDto result = batchService.addAll(stream("[" + INVALID + "]"));
+
+        assertEquals(0, result.getInserted());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void addAll_ShouldReportMappingErrorsAndContinue_WhenNdjson() {
+        BatchResultDto result = batchService.addAll(stream(VALID + "\n" + UNKNOWN_MONEDA + "\n" + VALID + "\n"));
+
+        assertEquals(3, result.getReceived());
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(1, result.getErrors().get(0).getIndex());
+    }
+
+    @Test
+    void addAll_ShouldStopAndKeepPreviousItems_WhenSyntaxError() {
+        BatchResultDto result = batchService.addAll(stream(VALID + "\n{\"titulo\": \n"));
+
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getErrors().size());
+        verify(departamentoRepository).saveAll(anyList());
+        verify(eventPublisher).publishEvent(any(DepartamentosBulkChangedEvent.class));
+    }
+
+    @Test
+    void addAll_ShouldReportChunk_WhenInsertFails() {
+        when(departamentoRepository.saveAll(anyList())).thenThrow(new RuntimeException("db down"));
+
+        BatchResultDto result = batchService.addAll(stream("[" + VALID + "]"));
+
+        assertEquals(0, result.getInserted());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(0, result.getErrors().get(0).getIndex());
+    }
+
+    private ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
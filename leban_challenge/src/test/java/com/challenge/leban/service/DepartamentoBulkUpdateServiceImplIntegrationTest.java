@@ -0,0 +1,111 @@
+package com.challenge.leban.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.challenge.leban.dto.BulkUpdateRequestDto;
+import com.challenge.leban.dto.BulkUpdateResultDto;
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.exception.BusinessException;
+import com.challenge.leban.repository.IDepartamentoRepository;
+
+@SpringBootTest(properties = "leban.invalidation-bus.enabled=false")
+@ActiveProfiles("integration")
+class DepartamentoBulkUpdateServiceImplIntegrationTest {
+
+    @Autowired
+    private IDepartamentoBulkUpdateService bulkUpdateService;
+
+    @Autowired
+    private IDepartamentoService departamentoService;
+
+    @Autowired
+    private IDepartamentoRepository departamentoRepository;
+
+    @BeforeEach
+    void setUp() {
+        departamentoRepository.deleteAll();
+    }
+
+    @Test
+    void update_ByIds_ShouldOnlyWriteRowsThatChange() {
+        DepartamentoDto first = create(Moneda.USD, "100000", true);
+        DepartamentoDto second = create(Moneda.USD, "120000", false);
+        DepartamentoDto untouched = create(Moneda.USD, "130000", true);
+
+        BulkUpdateResultDto result = bulkUpdateService.update(BulkUpdateRequestDto.builder()
+                .ids(List.of(first.getId(), second.getId()))
+                .disponible(false)
+                .build());
+
+        assertEquals(2, result.getMatched());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getDisponibleChanged());
+        assertEquals(false, find(first).isDisponible());
+        assertEquals(first.getVersion() + 1, find(first).getVersion());
+        assertEquals(second.getVersion(), find(second).getVersion());
+        assertEquals(true, find(untouched).isDisponible());
+    }
+
+    @Test
+    void update_ByFilter_ShouldAdjustPricePerMoneda() {
+        DepartamentoDto ars = create(Moneda.ARS, "1000000", true);
+        DepartamentoDto arsOutsideFilter = create(Moneda.ARS, "1000000", false);
+        DepartamentoDto usd = create(Moneda.USD, "100000", true);
+
+        BulkUpdateResultDto result = bulkUpdateService.update(BulkUpdateRequestDto.builder()
+                .filter(new BulkUpdateRequestDto.Filter(true, null, null))
+                .precioPorcentaje(Map.of(Moneda.ARS, new BigDecimal("12.5")))
+                .build());
+
+        assertEquals(2, result.getMatched());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1L, result.getPrecioChanged().get(Moneda.ARS));
+        assertEquals(0, new BigDecimal("1125000.00").compareTo(find(ars).getPrecio()));
+        assertEquals(0, new BigDecimal("1000000").compareTo(find(arsOutsideFilter).getPrecio()));
+        assertEquals(0, new BigDecimal("100000").compareTo(find(usd).getPrecio()));
+    }
+
+    @Test
+    void update_ShouldRejectAmbiguousOrEmptyRequests() {
+        String id = UUID.randomUUID().toString();
+
+        assertThrows(BusinessException.class, () -> bulkUpdateService.update(BulkUpdateRequestDto.builder()
+                .ids(List.of(id)).filter(new BulkUpdateRequestDto.Filter(null, null, null)).disponible(true).build()));
+        assertThrows(BusinessException.class, () -> bulkUpdateService.update(BulkUpdateRequestDto.builder()
+                .ids(List.of(id)).build()));
+        assertThrows(BusinessException.class, () -> bulkUpdateService.update(BulkUpdateRequestDto.builder()
+                .ids(List.of("not-a-uuid")).disponible(true).build()));
+        assertThrows(BusinessException.class, () -> bulkUpdateService.update(BulkUpdateRequestDto.builder()
+                .ids(List.of(id)).precioPorcentaje(Map.of(Moneda.ARS, new BigDecimal("-100"))).build()));
+    }
+
+    private DepartamentoDto create(Moneda moneda, String precio, boolean disponible) {
+        return departamentoService.add(DepartamentoDto.builder()
+                .titulo("Bulk " + precio)
+                .descripcion("Bulk description")
+                .precio(new BigDecimal(precio))
+                .moneda(moneda)
+                .metros_cuadrados(50f)
+                .direccion("Bulk street")
+                .disponible(disponible)
+                .build());
+    }
+
+    private DepartamentoDto find(DepartamentoDto dto) {
+        return departamentoRepository.findById(UUID.fromString(dto.getId())).map(Departamento::getDTO).orElseThrow();
+    }
+}
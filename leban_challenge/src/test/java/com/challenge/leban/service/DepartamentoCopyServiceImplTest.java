@@ -0,0 +1,44 @@
+package com.challenge.leban.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.challenge.leban.dto.DepartamentoFilter;
+
+class DepartamentoCopyServiceImplTest {
+
+    @Test
+    void exportQuery_ShouldNotFilter_WhenNoParameters() {
+        String sql = DepartamentoCopyServiceImpl.exportQuery(DepartamentoFilter.of(null, null, null));
+
+        assertEquals("COPY (SELECT " + DepartamentoCopyServiceImpl.COLUMNS + " FROM departamento ORDER BY precio, id)"
+                + " TO STDOUT WITH (FORMAT csv, HEADER true)", sql);
+    }
+
+    @Test
+    void exportQuery_ShouldRenderEveryFilterAsLiteral() {
+        String sql = DepartamentoCopyServiceImpl.exportQuery(DepartamentoFilter.of(true, "1E+5", "250000.50"));
+
+        assertTrue(sql.contains(" WHERE disponible = true AND precio >= 100000 AND precio <= 250000.5 "));
+    }
+
+    @Test
+    void exportQuery_ShouldUsePlainNotation_WhenScientificInput() {
+        String sql = DepartamentoCopyServiceImpl.exportQuery(
+                new DepartamentoFilter(false, null, new BigDecimal("1E+3")));
+
+        assertTrue(sql.contains("disponible = false AND precio <= 1000 "));
+    }
+
+    @Test
+    void exportQuery_ShouldCompareConvertedBounds_WhenMonedaGiven() {
+        String sql = DepartamentoCopyServiceImpl.exportQuery(DepartamentoFilter.of(null, "100", "200", "USD"));
+
+        String rate = " * (SELECT c.ars_por_unidad FROM cotizacion c WHERE c.moneda = 'USD'))";
+        assertTrue(sql.contains(" WHERE precio_ars >= (100" + rate + " AND precio_ars <= (200" + rate
+                + " ORDER BY precio_ars, id)"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.challenge.leban.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.challenge.leban.cache.DepartamentoFilterCache;
+import com.challenge.leban.exception.BusinessException;
+import com.challenge.leban.repository.IDepartamentoRepository;
+
+@SpringBootTest
+@ActiveProfiles("integration")
+class DepartamentoGeneratorServiceImplIntegrationTest {
+
+    @Autowired
+    private IDepartamentoGeneratorService generatorService;
+
+    @Autowired
+    private IDepartamentoRepository departamentoRepository;
+
+    @Autowired
+    private DepartamentoFilterCache filterCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        departamentoRepository.deleteAll();
+        filterCache.invalidateAll();
+    }
+
+    @Test
+    void generate_ShouldLoadSameRowsForSameSeed() {
+        assertEquals(2_000, generatorService.generate(2_000, 7, 0.5, false));
+        List<String> first = jdbcTemplate.queryForList("SELECT id FROM departamento ORDER BY id", String.class);
+
+        generatorService.generate(2_000, 7, 0.5, true);
+        List<String> second = jdbcTemplate.queryForList("SELECT id FROM departamento ORDER BY id", String.class);
+
+        assertEquals(2_000, departamentoRepository.count());
+        assertEquals(first, second);
+    }
+
+    @Test
+    void generate_ShouldRejectInvalidRatio() {
+        assertThrows(BusinessException.class, () -> generatorService.generate(10, 1, 1.5, false));
+    }
+}
@@ -0,0 +1,138 @@
+package com.challenge.leban.service;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.entity.Departamento;
+import com.challenge.leban.enums.EstadoIngesta;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.exception.NotFoundException;
+import com.challenge.leban.exception.ServiceUnavailableException;
+import com.challenge.leban.exception.TooManyRequestsException;
+import com.challenge.leban.repository.IDepartamentoRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class DepartamentoIngestServiceImplTest {
+
+    @Mock
+    private IDepartamentoRepository departamentoRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DepartamentoIngestServiceImpl ingestService;
+
+    @AfterEach
+    void tearDown() {
+        ingestService.stop();
+    }
+
+    @Test
+    void submit_ShouldWriteQueuedItemsInOneTransaction() {
+        ingestService = create(10, 10, Duration.ofMillis(200));
+        ingestService.start();
+
+        DepartamentoDto first = ingestService.submit(departamento());
+        DepartamentoDto second = ingestService.submit(departamento());
+
+        assertNotNull(first.getId());
+        assertEquals(EstadoIngesta.PENDIENTE, ingestService.getStatus(first.getId()).getEstado());
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+                ingestService.getStatus(second.getId()).getEstado() == EstadoIngesta.CREADO);
+
+        ArgumentCaptor<List<Departamento>> batches = ArgumentCaptor.captor();
+        verify(departamentoRepository).saveAll(batches.capture());
+        assertEquals(List.of(first.getId(), second.getId()),
+                batches.getValue().stream().map(departamento -> departamento.getId().toString()).toList());
+        verify(transactionManager).commit(any());
+        verify(eventPublisher, times(2)).publishEvent(any(DepartamentoChangedEvent.class));
+        assertEquals(EstadoIngesta.CREADO, ingestService.getStatus(first.getId()).getEstado());
+    }
+
+    @Test
+    void submit_ShouldRejectWithTooManyRequests_WhenQueueIsFull() throws InterruptedException {
+        ingestService = create(1, 1, Duration.ZERO);
+        CountDownLatch release = new CountDownLatch(1);
+        when(departamentoRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        ingestService.start();
+
+        DepartamentoDto writing = ingestService.submit(departamento());
+        await().atMost(Duration.ofSeconds(5)).until(() -> ingestService.queueSize() == 0);
+        DepartamentoDto queued = ingestService.submit(departamento());
+
+        assertThrows(TooManyRequestsException.class, () -> ingestService.submit(departamento()));
+
+        release.countDown();
+        // Shutdown writes what is still queued before returning
+        ingestService.stop();
+        assertEquals(EstadoIngesta.CREADO, ingestService.getStatus(writing.getId()).getEstado());
+        assertEquals(EstadoIngesta.CREADO, ingestService.getStatus(queued.getId()).getEstado());
+        assertThrows(ServiceUnavailableException.class, () -> ingestService.submit(departamento()));
+    }
+
+    @Test
+    void submit_ShouldReportError_WhenBatchFails() {
+        ingestService = create(10, 10, Duration.ZERO);
+        when(departamentoRepository.saveAll(anyList())).thenThrow(new IllegalStateException("boom"));
+        ingestService.start();
+
+        DepartamentoDto dto = ingestService.submit(departamento());
+
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+                ingestService.getStatus(dto.getId()).getEstado() == EstadoIngesta.ERROR);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void getStatus_ShouldThrowNotFound_WhenUnknown() {
+        ingestService = create(10, 10, Duration.ZERO);
+
+        assertThrows(NotFoundException.class, () -> ingestService.getStatus("not-a-uuid"));
+        assertThrows(NotFoundException.class, () -> ingestService.getStatus("0190f5a8-0000-7000-8000-000000000000"));
+    }
+
+    private DepartamentoIngestServiceImpl create(int queueCapacity, int batchSize, Duration maxDelay) {
+        return new DepartamentoIngestServiceImpl(departamentoRepository, eventPublisher, transactionManager,
+                new SimpleMeterRegistry(), true, queueCapacity, batchSize, maxDelay, Duration.ofMinutes(1),
+                Duration.ofSeconds(5));
+    }
+
+    private static DepartamentoDto departamento() {
+        return DepartamentoDto.builder()
+                .titulo("Depto")
+                .descripcion("Descripcion")
+                .precio(new BigDecimal("100000"))
+                .moneda(Moneda.ARS)
+                .metros_cuadrados(50f)
+                .direccion("Calle 1")
+                .disponible(true)
+                .build();
+    }
+}
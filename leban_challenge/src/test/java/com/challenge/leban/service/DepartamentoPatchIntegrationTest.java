@@ -0,0 +1,104 @@
+package com.challenge.leban.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.repository.IDepartamentoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = {
+        "leban.invalidation-bus.enabled=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.challenge.leban.service.DepartamentoPatchIntegrationTest$UpdateCapture" })
+@ActiveProfiles("integration")
+class DepartamentoPatchIntegrationTest {
+
+    private static final List<String> UPDATES = new CopyOnWriteArrayList<>();
+
+    public static class UpdateCapture implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("update departamento")) {
+                UPDATES.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    @Autowired
+    private IDepartamentoService departamentoService;
+
+    @Autowired
+    private IDepartamentoRepository departamentoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        departamentoRepository.deleteAll();
+        UPDATES.clear();
+    }
+
+    @Test
+    void patch_ShouldUpdateOnlyChangedColumns() throws Exception {
+        DepartamentoDto created = departamentoService.add(DepartamentoDto.builder()
+                .titulo("Patch")
+                .descripcion("x".repeat(500))
+                .precio(new BigDecimal("100000"))
+                .moneda(Moneda.USD)
+                .metros_cuadrados(50f)
+                .direccion("y".repeat(500))
+                .disponible(true)
+                .build());
+
+        // disponible is sent with its current value: it is validated but not written
+        DepartamentoDto patched = departamentoService.patch(created.getId(),
+                objectMapper.readTree("{\"precio\": 95000, \"disponible\": true}"), created.getVersion());
+
+        assertEquals(1, UPDATES.size());
+        String update = UPDATES.get(0).toLowerCase(Locale.ROOT);
+        assertTrue(update.contains("precio"), update);
+        assertTrue(update.contains("version"), update);
+        assertFalse(update.contains("descripcion"), update);
+        assertFalse(update.contains("direccion"), update);
+        assertFalse(update.contains("titulo"), update);
+        assertFalse(update.contains("disponible"), update);
+        assertEquals(created.getVersion() + 1, patched.getVersion());
+    }
+
+    @Test
+    void patch_WithoutChanges_ShouldNotWrite() throws Exception {
+        DepartamentoDto created = departamentoService.add(DepartamentoDto.builder()
+                .titulo("Patch")
+                .descripcion("Descripcion")
+                .precio(new BigDecimal("100000"))
+                .moneda(Moneda.USD)
+                .metros_cuadrados(50f)
+                .direccion("Direccion")
+                .disponible(true)
+                .build());
+
+        DepartamentoDto patched = departamentoService.patch(created.getId(),
+                objectMapper.readTree("{\"precio\": 100000.00}"), null);
+
+        assertTrue(UPDATES.isEmpty(), UPDATES.toString());
+        assertEquals(created.getVersion(), patched.getVersion());
+    }
+}
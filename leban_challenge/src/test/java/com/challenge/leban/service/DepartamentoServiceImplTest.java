@@ -5,29 +5,87 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 
+import com.challenge.leban.cache.DepartamentoFilterCache;
+import com.challenge.leban.dto.CursorPageDto;
 import com.challenge.leban.dto.DepartamentoDto;
+import com.challenge.leban.dto.DepartamentoFilter;
+import com.challenge.leban.dto.DepartamentoListVersion;
+import com.challenge.leban.dto.DepartamentoPrecioArsRow;
+import com.challenge.leban.dto.DepartamentoSearchRow;
+import com.challenge.leban.dto.DepartamentoUpdateResult;
 import com.challenge.leban.entity.Departamento;
 import com.challenge.leban.enums.Moneda;
+import com.challenge.leban.event.DepartamentoChangedEvent;
+import com.challenge.leban.exception.BusinessException;
+import com.challenge.leban.exception.NotFoundException;
+import com.challenge.leban.exception.PreconditionFailedException;
+import com.challenge.leban.exception.ServiceUnavailableException;
+import com.challenge.leban.readmodel.DepartamentoReadModel;
+import com.challenge.leban.readmodel.DepartamentoSimilarityIndex;
+import com.challenge.leban.readmodel.DepartamentoSuggestIndex;
 import com.challenge.leban.repository.IDepartamentoRepository;
+import com.challenge.leban.util.DepartamentoCursor;
+import com.challenge.leban.util.DepartamentoSearchCursor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 
 @ExtendWith(MockitoExtension.class)
 class DepartamentoServiceImplTest {
 
+    private static final UUID ID = UUID.fromString("0190b3a8-7c1e-7a2b-9c3d-4e5f60718293");
+    private static final UUID ID_2 = UUID.fromString("0190b3a8-7c1f-7b3c-8d4e-5f6071829304");
+
     @Mock
     private IDepartamentoRepository departamentoRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private DepartamentoReadModel readModel;
+
+    @Mock
+    private ICotizacionService cotizacionService;
+
+    @Mock
+    private DepartamentoSuggestIndex suggestIndex;
+
+    @Mock
+    private DepartamentoSimilarityIndex similarityIndex;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private DepartamentoFilterCache filterCache =
+            new DepartamentoFilterCache(new SimpleMeterRegistry(), 1000, 100, Duration.ofMinutes(1));
+
     @InjectMocks
     private DepartamentoServiceImpl departamentoService;
 
@@ -47,7 +105,7 @@ class DepartamentoServiceImplTest {
                 .build();
 
         departamento = new Departamento();
-        departamento.setId("test-id");
+        departamento.setId(ID);
         departamento.setData(departamentoDto);
     }
 
@@ -60,101 +118,374 @@ class DepartamentoServiceImplTest {
         assertNotNull(result);
         assertEquals(departamentoDto.getTitulo(), result.getTitulo());
         verify(departamentoRepository).save(any(Departamento.class));
+        verify(eventPublisher).publishEvent(any(DepartamentoChangedEvent.class));
     }
 
     @Test
     void update_ShouldUpdateAndReturnDto_WhenDepartamentoExists() {
-        String id = "test-id";
-        when(departamentoRepository.findById(id)).thenReturn(Optional.of(departamento));
-        when(departamentoRepository.save(any(Departamento.class))).thenReturn(departamento);
+        String id = ID.toString();
+        DepartamentoDto before = departamento.getDTO();
+        DepartamentoDto after = departamento.getDTO();
+        after.setVersion(4L);
+        when(departamentoRepository.updateIfVersion(ID, departamentoDto, null))
+                .thenReturn(Optional.of(new DepartamentoUpdateResult(before, after)));
 
         DepartamentoDto result = departamentoService.update(departamentoDto, id);
 
-        assertNotNull(result);
-        verify(departamentoRepository).findById(id);
-        verify(departamentoRepository).save(departamento);
+        assertEquals(4L, result.getVersion());
+        verify(departamentoRepository).updateIfVersion(ID, departamentoDto, null);
+        verify(departamentoRepository, never()).findById(any());
+        verify(departamentoRepository, never()).save(any(Departamento.class));
+        ArgumentCaptor<DepartamentoChangedEvent> event = ArgumentCaptor.forClass(DepartamentoChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(id, event.getValue().before().getId());
+        assertEquals(id, event.getValue().after().getId());
     }
 
     @Test
     void update_ShouldThrowRuntimeException_WhenDepartamentoNotFound() {
-        String id = "non-existent-id";
-        when(departamentoRepository.findById(id)).thenReturn(Optional.empty());
+        when(departamentoRepository.updateIfVersion(ID_2, departamentoDto, null)).thenReturn(Optional.empty());
 
-        assertThrows(RuntimeException.class, () -> departamentoService.update(departamentoDto, id));
-        verify(departamentoRepository).findById(id);
-        verify(departamentoRepository, never()).save(any(Departamento.class));
+        assertThrows(RuntimeException.class, () -> departamentoService.update(departamentoDto, ID_2.toString()));
+        verify(departamentoRepository).updateIfVersion(ID_2, departamentoDto, null);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void update_ShouldThrowPreconditionFailed_WhenVersionDoesNotMatch() {
+        DepartamentoDto current = departamento.getDTO();
+        current.setVersion(3L);
+        when(departamentoRepository.updateIfVersion(ID, departamentoDto, 2L))
+                .thenReturn(Optional.of(new DepartamentoUpdateResult(current, null)));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> departamentoService.update(departamentoDto, ID.toString(), 2L));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void patch_ShouldWriteOnlyPresentFields() throws Exception {
+        departamento.setVersion(0L);
+        when(departamentoRepository.findById(ID)).thenReturn(Optional.of(departamento));
+        when(departamentoRepository.saveAndFlush(departamento)).thenAnswer(invocation -> {
+            departamento.setVersion(1L);
+            return departamento;
+        });
+
+        DepartamentoDto result = departamentoService.patch(ID.toString(),
+                objectMapper.readTree("{\"precio\": 99000, \"disponible\": false}"), 0L);
+
+        assertEquals(0, new BigDecimal("99000").compareTo(result.getPrecio()));
+        assertFalse(result.isDisponible());
+        assertEquals(departamentoDto.getTitulo(), result.getTitulo());
+        assertEquals(departamentoDto.getDescripcion(), result.getDescripcion());
+        ArgumentCaptor<DepartamentoChangedEvent> event = ArgumentCaptor.forClass(DepartamentoChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertTrue(event.getValue().before().isDisponible());
+        assertEquals(1L, event.getValue().after().getVersion());
+    }
+
+    @Test
+    void patch_ShouldValidateOnlyPresentFields() throws Exception {
+        departamento.setVersion(0L);
+        departamento.setTitulo("");
+        when(departamentoRepository.findById(ID)).thenReturn(Optional.of(departamento));
+
+        // The stored blank titulo is not part of the patch, so only precio is checked
+        assertThrows(BusinessException.class, () -> departamentoService.patch(ID.toString(),
+                objectMapper.readTree("{\"precio\": -1}"), null));
+        when(departamentoRepository.saveAndFlush(departamento)).thenReturn(departamento);
+        departamentoService.patch(ID.toString(), objectMapper.readTree("{\"precio\": 1}"), null);
+
+        verify(departamentoRepository).saveAndFlush(departamento);
+    }
+
+    @Test
+    void patch_ShouldRejectNullAndReadOnlyFields() throws Exception {
+        departamento.setVersion(0L);
+        when(departamentoRepository.findById(ID)).thenReturn(Optional.of(departamento));
+
+        assertThrows(BusinessException.class, () -> departamentoService.patch(ID.toString(),
+                objectMapper.readTree("{\"disponible\": null}"), null));
+        assertThrows(BusinessException.class, () -> departamentoService.patch(ID.toString(),
+                objectMapper.readTree("{\"version\": 7}"), null));
+        verify(departamentoRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void patch_ShouldThrowPreconditionFailed_WhenVersionDoesNotMatch() throws Exception {
+        departamento.setVersion(2L);
+        when(departamentoRepository.findById(ID)).thenReturn(Optional.of(departamento));
+
+        assertThrows(PreconditionFailedException.class, () -> departamentoService.patch(ID.toString(),
+                objectMapper.readTree("{\"precio\": 1}"), 1L));
+        verify(departamentoRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void update_ShouldThrowNotFoundException_WhenIdIsNotUuid() {
+        assertThrows(NotFoundException.class, () -> departamentoService.update(departamentoDto, "non-existent-id"));
+        verifyNoInteractions(departamentoRepository, eventPublisher);
     }
 
     @Test
     void filterDepartamentos_ShouldReturnFilteredList_WhenAllParametersProvided() {
-        List<Departamento> departamentos = Arrays.asList(departamento);
-        when(departamentoRepository.findAll(any(Specification.class))).thenReturn(departamentos);
+        List<DepartamentoDto> departamentos = Arrays.asList(departamento.getDTO());
+        when(departamentoRepository.findAllDtos(any())).thenReturn(departamentos);
 
-        List<DepartamentoDto> result = departamentoService.filterDepartamentos(true, "100000", "200000");
+        List<DepartamentoDto> result = departamentoService.filterDepartamentos(true, "100000", "200000", null);
 
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(departamentoDto.getTitulo(), result.get(0).getTitulo());
         assertEquals(departamentoDto.getPrecio(), result.get(0).getPrecio());
-        verify(departamentoRepository).findAll(any(Specification.class));
+        verify(departamentoRepository).findAllDtos(any());
     }
 
     @Test
     void filterDepartamentos_ShouldReturnFilteredList_WhenSomeParametersNull() {
-        List<Departamento> departamentos = Arrays.asList(departamento);
-        when(departamentoRepository.findAll(any(Specification.class))).thenReturn(departamentos);
+        List<DepartamentoDto> departamentos = Arrays.asList(departamento.getDTO());
+        when(departamentoRepository.findAllDtos(any())).thenReturn(departamentos);
 
-        List<DepartamentoDto> result = departamentoService.filterDepartamentos(null, "100000", null);
+        List<DepartamentoDto> result = departamentoService.filterDepartamentos(null, "100000", null, null);
 
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(departamentoDto.getTitulo(), result.get(0).getTitulo());
         assertEquals(departamentoDto.getPrecio(), result.get(0).getPrecio());
-        verify(departamentoRepository).findAll(any(Specification.class));
+        verify(departamentoRepository).findAllDtos(any());
     }
 
     @Test
     void filterDepartamentos_ShouldReturnFilteredList_WhenEmptyStringsProvided() {
-        List<Departamento> departamentos = Arrays.asList(departamento);
-        when(departamentoRepository.findAll(any(Specification.class))).thenReturn(departamentos);
+        List<DepartamentoDto> departamentos = Arrays.asList(departamento.getDTO());
+        when(departamentoRepository.findAllDtos(any())).thenReturn(departamentos);
 
-        List<DepartamentoDto> result = departamentoService.filterDepartamentos(null, "", "");
+        List<DepartamentoDto> result = departamentoService.filterDepartamentos(null, "", "", null);
 
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(departamentoRepository).findAll(any(Specification.class));
+        verify(departamentoRepository).findAllDtos(any());
     }
 
     @Test
     void filterDepartamentos_ShouldReturnEmptyList_WhenNoResults() {
-        when(departamentoRepository.findAll(any(Specification.class))).thenReturn(Arrays.asList());
+        when(departamentoRepository.findAllDtos(any())).thenReturn(Arrays.asList());
 
-        List<DepartamentoDto> result = departamentoService.filterDepartamentos(true, "100000", "200000");
+        List<DepartamentoDto> result = departamentoService.filterDepartamentos(true, "100000", "200000", null);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(departamentoRepository).findAll(any(Specification.class));
+        verify(departamentoRepository).findAllDtos(any());
     }
 
     @Test
     void getAll_ShouldReturnAllDepartamentos() {
-        List<Departamento> departamentos = Arrays.asList(departamento);
-        when(departamentoRepository.findAll()).thenReturn(departamentos);
+        List<DepartamentoDto> departamentos = Arrays.asList(departamento.getDTO());
+        when(departamentoRepository.findAllDtos(isNull())).thenReturn(departamentos);
 
         List<DepartamentoDto> result = departamentoService.getAll();
 
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(departamentoRepository).findAll();
+        verify(departamentoRepository).findAllDtos(isNull());
     }
 
     @Test
     void getAll_ShouldReturnEmptyList_WhenNoDepartamentos() {
-        when(departamentoRepository.findAll()).thenReturn(Arrays.asList());
+        when(departamentoRepository.findAllDtos(isNull())).thenReturn(Arrays.asList());
 
         List<DepartamentoDto> result = departamentoService.getAll();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void filterDepartamentosPage_ShouldReturnNextCursor_WhenMoreRowsThanLimit() {
+        Departamento second = new Departamento();
+        second.setId(ID_2);
+        second.setData(departamentoDto);
+        when(departamentoRepository.findAllDtos(any(), eq(Sort.by("precio", "id")), eq(2)))
+                .thenReturn(Arrays.asList(departamento.getDTO(), second.getDTO()));
+
+        CursorPageDto<DepartamentoDto> result = departamentoService.filterDepartamentos(true, null, null, null, null,
+                1);
+
+        assertEquals(1, result.getItems().size());
+        assertEquals(ID.toString(), result.getItems().get(0).getId());
+        DepartamentoCursor next = DepartamentoCursor.decode(result.getNextCursor());
+        assertEquals(ID, next.id());
+        assertEquals(0, departamentoDto.getPrecio().compareTo(next.precio()));
+    }
+
+    @Test
+    void filterDepartamentosPage_ShouldSortAndPageByPrecioArs_WhenMonedaGiven() {
+        Departamento second = new Departamento();
+        second.setId(ID_2);
+        second.setData(departamentoDto);
+        when(departamentoRepository.findAllInPesos(any(), eq(2))).thenReturn(List.of(
+                new DepartamentoPrecioArsRow(new BigDecimal("150000750.00"), departamento.getDTO()),
+                new DepartamentoPrecioArsRow(new BigDecimal("150000750.00"), second.getDTO())));
+
+        CursorPageDto<DepartamentoDto> result = departamentoService.filterDepartamentos(true, "100", null, "USD", null,
+                1);
+
+        // The cursor carries the precio_ars the page was sorted by, not one recomputed from a rate read apart
+        DepartamentoCursor next = DepartamentoCursor.decode(result.getNextCursor());
+        assertEquals(ID, next.id());
+        assertEquals(new BigDecimal("150000750.00"), next.precio());
+        verifyNoInteractions(readModel, cotizacionService);
+    }
+
+    @Test
+    void filterDepartamentosPage_ShouldThrowBusinessException_WhenMonedaInvalid() {
+        assertThrows(BusinessException.class,
+                () -> departamentoService.filterDepartamentos(null, null, null, "EUR", null, 10));
+        verifyNoInteractions(departamentoRepository);
+    }
+
+    @Test
+    void filterDepartamentosPage_ShouldNotReturnNextCursor_WhenLastPage() {
+        when(departamentoRepository.findAllDtos(any(), any(Sort.class), eq(11)))
+                .thenReturn(Arrays.asList(departamento.getDTO()));
+
+        CursorPageDto<DepartamentoDto> result = departamentoService.filterDepartamentos(null, null, null, null,
+                new DepartamentoCursor(BigDecimal.ONE, ID_2).encode(), 10);
+
+        assertEquals(1, result.getItems().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void filterDepartamentosPage_ShouldThrowBusinessException_WhenLimitOutOfRange() {
+        assertThrows(BusinessException.class,
+                () -> departamentoService.filterDepartamentos(null, null, null, null, null, 0));
+        assertThrows(BusinessException.class,
+                () -> departamentoService.filterDepartamentos(null, null, null, null, null, 501));
+        verifyNoInteractions(departamentoRepository);
+    }
+
+    @Test
+    void filterDepartamentosPage_ShouldThrowBusinessException_WhenCursorInvalid() {
+        assertThrows(BusinessException.class,
+                () -> departamentoService.filterDepartamentos(null, null, null, null, "not-a-cursor", 10));
+        verifyNoInteractions(departamentoRepository);
+    }
+
+    @Test
+    void searchDepartamentosPage_ShouldReturnRankCursor_WhenMoreRowsThanLimit() {
+        Departamento second = new Departamento();
+        second.setId(ID_2);
+        second.setData(departamentoDto);
+        when(departamentoRepository.search(any(), eq("balcon"), isNull(), eq(2)))
+                .thenReturn(List.of(new DepartamentoSearchRow(0.6f, departamento.getDTO()),
+                        new DepartamentoSearchRow(0.2f, second.getDTO())));
+
+        CursorPageDto<DepartamentoDto> result = departamentoService.searchDepartamentos(" balcon ", true, null, null,
+                null, null, 1);
+
+        assertEquals(1, result.getItems().size());
+        DepartamentoSearchCursor next = DepartamentoSearchCursor.decode(result.getNextCursor());
+        assertEquals(ID, next.id());
+        assertEquals(0.6f, next.rank());
+        verifyNoInteractions(readModel, filterCache);
+    }
+
+    @Test
+    void searchDepartamentos_ShouldThrowBusinessException_WhenTextBlankOrTooLong() {
+        assertThrows(BusinessException.class,
+                () -> departamentoService.searchDepartamentos("  ", null, null, null, null));
+        assertThrows(BusinessException.class,
+                () -> departamentoService.searchDepartamentos("a".repeat(201), null, null, null, null, null, 10));
+        verifyNoInteractions(departamentoRepository);
+    }
+
+    @Test
+    void suggestDepartamentos_ShouldHydrateInIndexOrder() {
+        Departamento second = new Departamento();
+        second.setId(ID_2);
+        second.setData(departamentoDto);
+        when(suggestIndex.isReady()).thenReturn(true);
+        when(suggestIndex.suggest("cal", 10)).thenReturn(List.of(ID_2, ID));
+        when(departamentoRepository.findAllDtos(any()))
+                .thenReturn(Arrays.asList(departamento.getDTO(), second.getDTO()));
+
+        List<DepartamentoDto> result = departamentoService.suggestDepartamentos("cal", 10);
+
+        assertEquals(List.of(ID_2.toString(), ID.toString()), result.stream().map(DepartamentoDto::getId).toList());
+    }
+
+    @Test
+    void suggestDepartamentos_ShouldRejectBadInputAndWaitForTheIndex() {
+        assertThrows(BusinessException.class, () -> departamentoService.suggestDepartamentos(" ", 10));
+        assertThrows(BusinessException.class, () -> departamentoService.suggestDepartamentos("cal", 51));
+        assertThrows(ServiceUnavailableException.class, () -> departamentoService.suggestDepartamentos("cal", 10));
+        verifyNoInteractions(departamentoRepository);
+    }
+
+    @Test
+    void findSimilar_ShouldThrowNotFound_WhenIndexDoesNotKnowTheId() {
+        when(similarityIndex.isReady()).thenReturn(true);
+        when(similarityIndex.nearest(ID, 10)).thenReturn(null);
+
+        assertThrows(NotFoundException.class, () -> departamentoService.findSimilar(ID.toString(), 10));
+        assertThrows(NotFoundException.class, () -> departamentoService.findSimilar("not-a-uuid", 10));
+        assertThrows(BusinessException.class, () -> departamentoService.findSimilar(ID.toString(), 0));
+        verifyNoInteractions(departamentoRepository);
+    }
+
+    @Test
+    void streamDepartamentos_ShouldPassEveryRowToConsumer() {
+        Departamento second = new Departamento();
+        second.setId(ID_2);
+        second.setData(departamentoDto);
+        when(departamentoRepository.streamAll(any())).thenReturn(Stream.of(departamento, second));
+
+        List<DepartamentoDto> received = new ArrayList<>();
+        departamentoService.streamDepartamentos(DepartamentoFilter.of(true, null, null), received::add);
+
+        assertEquals(2, received.size());
+        assertEquals(ID.toString(), received.get(0).getId());
+        assertEquals(ID_2.toString(), received.get(1).getId());
+    }
+
+    @Test
+    void filterDepartamentos_ShouldServeRepeatedFilterFromCache() {
+        when(departamentoRepository.findAllDtos(any())).thenReturn(Arrays.asList(departamento.getDTO()));
+
+        departamentoService.filterDepartamentos(true, "100000", "200000", null);
+        List<DepartamentoDto> result = departamentoService.filterDepartamentos(true, "100000.00", "200000", null);
+
+        assertEquals(1, result.size());
+        verify(departamentoRepository, times(1)).findAllDtos(any());
+    }
+
+    @Test
+    void getListVersion_ShouldChangeEtag_WhenCountOrLastUpdateChanges() {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123_456_000);
+        when(departamentoRepository.findListVersion(any()))
+                .thenReturn(new DepartamentoListVersion(2, updatedAt, updatedAt));
+
+        DepartamentoListVersion version = departamentoService.getListVersion(DepartamentoFilter.of(true, null, null));
+
+        assertNotEquals(version.etag(), new DepartamentoListVersion(1, updatedAt, updatedAt).etag());
+        assertNotEquals(version.etag(), new DepartamentoListVersion(2, updatedAt.plusNanos(1_000), updatedAt).etag());
+        assertEquals(-1, new DepartamentoListVersion(0, null, null).lastModifiedMillis());
+    }
+
+    @Test
+    void getListVersion_ShouldNotQuery_WhenCached() {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 1, 10, 0);
+        when(departamentoRepository.findListVersion(any()))
+                .thenReturn(new DepartamentoListVersion(2, updatedAt, updatedAt));
+        DepartamentoFilter filter = DepartamentoFilter.of(true, "100000", null);
+
+        DepartamentoListVersion first = departamentoService.getListVersion(filter);
+        DepartamentoListVersion second = departamentoService.getListVersion(DepartamentoFilter.of(true, "100000.00", null));
+
+        assertEquals(first.etag(), second.etag());
+        verify(departamentoRepository, times(1)).findListVersion(any());
+    }
+}
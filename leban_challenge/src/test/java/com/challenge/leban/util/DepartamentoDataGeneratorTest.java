@@ -0,0 +1,77 @@
+package com.challenge.leban.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class DepartamentoDataGeneratorTest {
+
+    private static final int ROWS = 20_000;
+
+    @Test
+    void appendCsvRow_ShouldBeDeterministicForSameSeed() {
+        assertEquals(generate(7, 0.7), generate(7, 0.7));
+        assertNotEquals(generate(7, 0.7), generate(8, 0.7));
+    }
+
+    @Test
+    void appendCsvRow_ShouldRespectColumnLimitsAndDisponibleRatio() {
+        int disponibles = 0;
+        int tituloMax = 0;
+        int descripcionMax = 0;
+        int direccionMax = 0;
+        for (String row : generate(42, 0.3).split("\n")) {
+            List<String> columns = parse(row);
+            assertEquals(10, columns.size());
+            tituloMax = Math.max(tituloMax, columns.get(1).length());
+            descripcionMax = Math.max(descripcionMax, columns.get(2).length());
+            direccionMax = Math.max(direccionMax, columns.get(6).length());
+            if (Boolean.parseBoolean(columns.get(7))) {
+                disponibles++;
+            }
+            LocalDateTime createdAt = LocalDateTime.parse(columns.get(8));
+            LocalDateTime updatedAt = LocalDateTime.parse(columns.get(9));
+            assertTrue(!updatedAt.isBefore(createdAt) && !updatedAt.isAfter(DepartamentoDataGenerator.DEFAULT_UNTIL));
+        }
+
+        assertTrue(tituloMax <= DepartamentoDataGenerator.TITULO_MAX && tituloMax > 140);
+        assertTrue(descripcionMax <= DepartamentoDataGenerator.DESCRIPCION_MAX && descripcionMax > 490);
+        assertTrue(direccionMax <= DepartamentoDataGenerator.DIRECCION_MAX && direccionMax > 490);
+        assertEquals(0.3, (double) disponibles / ROWS, 0.02);
+    }
+
+    private String generate(long seed, double disponibleRatio) {
+        DepartamentoDataGenerator generator = new DepartamentoDataGenerator(seed, disponibleRatio,
+                DepartamentoDataGenerator.DEFAULT_UNTIL);
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            generator.appendCsvRow(out);
+        }
+        return out.toString();
+    }
+
+    private List<String> parse(String row) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < row.length(); i++) {
+            char c = row.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                columns.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        columns.add(current.toString());
+        return columns;
+    }
+}
@@ -0,0 +1,44 @@
+package com.challenge.leban.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class UuidV7Test {
+
+    @Test
+    void randomUuid_ShouldBeVersion7AndCarryCurrentTime() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7.randomUuid();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        long millis = uuid.getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before && millis <= after + 1);
+    }
+
+    @Test
+    void randomUuid_ShouldIncreaseWithinTheSameMillisecond() {
+        String previous = UuidV7.randomUuid().toString();
+        for (int i = 0; i < 100_000; i++) {
+            String next = UuidV7.randomUuid().toString();
+            // Text order is the byte order PostgreSQL uses to compare uuid values
+            assertTrue(previous.compareTo(next) < 0, previous + " >= " + next);
+            previous = next;
+        }
+    }
+
+    @Test
+    void parseOrNull_ShouldRejectNonUuidText() {
+        assertNull(UuidV7.parseOrNull(null));
+        assertNull(UuidV7.parseOrNull("test-id"));
+        assertNull(UuidV7.parseOrNull("0190b3a8-7c1e-7a2b-9c3d-4e5f6071829z"));
+        assertEquals(UUID.fromString("0190b3a8-7c1e-7a2b-9c3d-4e5f60718293"),
+                UuidV7.parseOrNull("0190b3a8-7c1e-7a2b-9c3d-4e5f60718293"));
+    }
+}